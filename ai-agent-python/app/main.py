@@ -4,6 +4,7 @@ from fastapi import FastAPI
 from fastapi.middleware.cors import CORSMiddleware
 from dotenv import load_dotenv
 from app.routes import analyze
+from app.middleware import GzipRequestMiddleware
 
 # Load environment variables
 load_dotenv()
@@ -32,6 +33,9 @@ app.add_middleware(
     allow_headers=["*"],
 )
 
+# Accept gzip-compressed request bodies from the operator
+app.add_middleware(GzipRequestMiddleware)
+
 # Include routers
 app.include_router(analyze.router, tags=["Analysis"])
 
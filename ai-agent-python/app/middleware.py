@@ -0,0 +1,78 @@
+import logging
+import os
+import zlib
+
+logger = logging.getLogger(__name__)
+
+# Largest body a gzip request may expand to; larger bodies are rejected with 413
+MAX_DECOMPRESSED_BYTES = int(os.getenv("MAX_DECOMPRESSED_BYTES", str(10 * 1024 * 1024)))
+
+
+class GzipRequestMiddleware:
+    """
+    ASGI middleware that transparently decompresses request bodies sent with
+    `Content-Encoding: gzip`, so route handlers always see plain JSON.
+    """
+    
+    def __init__(self, app):
+        self.app = app
+    
+    async def __call__(self, scope, receive, send):
+        if scope["type"] != "http":
+            await self.app(scope, receive, send)
+            return
+        
+        headers = dict(scope.get("headers") or [])
+        if headers.get(b"content-encoding", b"").lower() != b"gzip":
+            await self.app(scope, receive, send)
+            return
+        
+        # Decompress as the body arrives, never past the limit
+        decompressor = zlib.decompressobj(16 + zlib.MAX_WBITS)
+        body = bytearray()
+        more_body = True
+        try:
+            while more_body:
+                message = await receive()
+                data = message.get("body", b"")
+                more_body = message.get("more_body", False)
+                while data:
+                    body += decompressor.decompress(data, MAX_DECOMPRESSED_BYTES + 1 - len(body))
+                    if len(body) > MAX_DECOMPRESSED_BYTES:
+                        await self._reject(send, 413, b"Decompressed body too large")
+                        return
+                    data = decompressor.unconsumed_tail
+            body += decompressor.flush()
+            if not decompressor.eof:
+                raise zlib.error("truncated gzip stream")
+        except zlib.error as e:
+            logger.warning(f"Rejected malformed gzip request body: {e}")
+            await self._reject(send, 400, b"Malformed gzip body")
+            return
+        if len(body) > MAX_DECOMPRESSED_BYTES:
+            await self._reject(send, 413, b"Decompressed body too large")
+            return
+        body = bytes(body)
+        
+        scope = dict(scope)
+        scope["headers"] = [
+            (k, v) for k, v in scope["headers"]
+            if k not in (b"content-encoding", b"content-length")
+        ] + [(b"content-length", str(len(body)).encode())]
+        
+        sent = False
+        
+        async def receive_decompressed():
+            nonlocal sent
+            if sent:
+                return await receive()
+            sent = True
+            return {"type": "http.request", "body": body, "more_body": False}
+        
+        await self.app(scope, receive_decompressed, send)
+    
+    @staticmethod
+    async def _reject(send, status, message):
+        await send({"type": "http.response.start", "status": status,
+                    "headers": [(b"content-type", b"text/plain")]})
+        await send({"type": "http.response.body", "body": message})
@@ -1,5 +1,17 @@
 from pydantic import BaseModel, Field
-from typing import Optional, Dict, Any
+from typing import Optional, Dict, Any, List
+
+
+class CorrelatedFailure(BaseModel):
+    """Another failure of the same correlated incident."""
+    
+    pod_name: str = Field(..., description="Name of the failed pod")
+    namespace: str = Field(..., description="Kubernetes namespace")
+    workload: Optional[str] = Field(None, description="Owning workload (namespace/Kind/name)")
+    failure_reason: str = Field(..., description="Detected failure reason")
+    node_name: Optional[str] = Field(None, description="Node the pod runs on")
+    image: Optional[str] = Field(None, description="Image digest or reference of the failing container")
+    termination_message: Optional[str] = Field(None, description="Last termination or waiting message")
 
 
 class AnalysisRequest(BaseModel):
@@ -10,6 +22,11 @@ class AnalysisRequest(BaseModel):
     failure_reason: str = Field(..., description="Detected failure reason (e.g., OOMKilled)")
     logs: str = Field(..., description="Pod logs (last N lines)")
     pod_yaml: str = Field(..., description="Pod YAML configuration")
+    correlation_key: Optional[str] = Field(
+        None, description="What correlated failures share, e.g. node=worker-3|CrashLoopBackOff")
+    correlated_count: Optional[int] = Field(None, description="Number of workloads failing in the incident")
+    correlated_failures: Optional[List[CorrelatedFailure]] = Field(
+        None, description="Sample failures of other workloads in the incident")
 
 
 class AnalysisResponse(BaseModel):
@@ -18,3 +35,44 @@ class AnalysisResponse(BaseModel):
     root_cause: str = Field(..., description="Root cause analysis of the failure")
     suggested_fix_yaml: Dict[str, Any] = Field(..., description="YAML patch to fix the issue")
     confidence_score: float = Field(..., ge=0.0, le=100.0, description="Confidence score (0-100)")
+
+
+class BatchAnalysisRequest(BaseModel):
+    """Request model for analyzing several pod failures in one call."""
+    
+    requests: List[AnalysisRequest] = Field(..., description="Pod failures to analyze")
+
+
+class BatchAnalysisResult(BaseModel):
+    """Outcome of one item in a batch; exactly one of response/error is set."""
+    
+    response: Optional[AnalysisResponse] = Field(None, description="Analysis, if it succeeded")
+    error: Optional[str] = Field(None, description="Error message, if it failed")
+
+
+class BatchAnalysisResponse(BaseModel):
+    """Response model for a batch, with results in request order."""
+    
+    results: List[BatchAnalysisResult] = Field(..., description="Per-request results")
+
+
+class AsyncAnalysisRequest(AnalysisRequest):
+    """Analysis job; the result is POSTed to callback_url as an AnalysisCallback."""
+    
+    job_id: str = Field(..., description="Job ID chosen by the operator, echoed in the callback")
+    callback_url: str = Field(..., description="Operator endpoint the result is POSTed to")
+
+
+class AnalysisJobAccepted(BaseModel):
+    """Acknowledgement of an accepted analysis job."""
+    
+    job_id: str = Field(..., description="ID of the accepted job")
+    status: str = Field("accepted", description="Job status")
+
+
+class AnalysisCallback(BaseModel):
+    """Result of an analysis job; exactly one of response/error is set."""
+    
+    job_id: str = Field(..., description="ID of the job")
+    response: Optional[AnalysisResponse] = Field(None, description="Analysis, if it succeeded")
+    error: Optional[str] = Field(None, description="Error message, if it failed")
@@ -1,7 +1,23 @@
-from fastapi import APIRouter, HTTPException
-from app.models.models import AnalysisRequest, AnalysisResponse
+from fastapi import APIRouter, BackgroundTasks, HTTPException
+from starlette.concurrency import run_in_threadpool
+from app.models.models import (
+    AnalysisCallback,
+    AnalysisJobAccepted,
+    AnalysisRequest,
+    AnalysisResponse,
+    AsyncAnalysisRequest,
+    BatchAnalysisRequest,
+    BatchAnalysisResponse,
+    BatchAnalysisResult,
+)
 from app.services.diagnosis_service import DiagnosisService
+import asyncio
+import ipaddress
 import logging
+import os
+import urllib.error
+import urllib.parse
+import urllib.request
 
 logger = logging.getLogger(__name__)
 router = APIRouter()
@@ -9,6 +25,47 @@ router = APIRouter()
 # Lazy initialization - will be created on first request
 _diagnosis_service = None
 
+# Max model calls running at once for a single batch request
+BATCH_CONCURRENCY = int(os.getenv("BATCH_CONCURRENCY", "4"))
+
+# Max model calls running at once across all analysis jobs
+ASYNC_CONCURRENCY = int(os.getenv("ASYNC_CONCURRENCY", "8"))
+# Delivery of a job's result to the operator: attempts, with doubling backoff
+CALLBACK_ATTEMPTS = int(os.getenv("CALLBACK_ATTEMPTS", "5"))
+CALLBACK_TIMEOUT_SECONDS = float(os.getenv("CALLBACK_TIMEOUT_SECONDS", "10"))
+# Where job results may be POSTed: hostnames and IP networks (CIDR) of the
+# operator, comma-separated, and the operator's callback path
+CALLBACK_ALLOWED_HOSTS = os.getenv("CALLBACK_ALLOWED_HOSTS", "localhost,127.0.0.0/8,::1")
+CALLBACK_PATH = os.getenv("CALLBACK_PATH", "/api/v1/analysis-callbacks")
+
+
+def _parse_allowed_hosts(value: str):
+    hosts, networks = set(), []
+    for entry in (e.strip() for e in value.split(",")):
+        if not entry:
+            continue
+        try:
+            networks.append(ipaddress.ip_network(entry, strict=False))
+        except ValueError:
+            hosts.add(entry.lower())
+    return hosts, networks
+
+
+_callback_hosts, _callback_networks = _parse_allowed_hosts(CALLBACK_ALLOWED_HOSTS)
+
+
+class _NoRedirect(urllib.request.HTTPRedirectHandler):
+    """Fails on redirects, so a callback cannot be bounced to another host."""
+    
+    def redirect_request(self, req, fp, code, msg, headers, newurl):
+        return None
+
+
+_callback_opener = urllib.request.build_opener(_NoRedirect)
+
+# Created on first use, inside the server's event loop
+_job_semaphore = None
+
 def get_diagnosis_service():
     """Lazy initialization of diagnosis service to ensure .env is loaded first."""
     global _diagnosis_service
@@ -17,6 +74,25 @@ def get_diagnosis_service():
     return _diagnosis_service
 
 
+def get_job_semaphore():
+    """Semaphore bounding the model calls of analysis jobs."""
+    global _job_semaphore
+    if _job_semaphore is None:
+        _job_semaphore = asyncio.Semaphore(ASYNC_CONCURRENCY)
+    return _job_semaphore
+
+
+def correlation_of(request: AnalysisRequest):
+    """Correlated incident details of a request, or None if it stands alone."""
+    if not request.correlation_key:
+        return None
+    return {
+        "key": request.correlation_key,
+        "count": request.correlated_count,
+        "failures": [f.model_dump() for f in request.correlated_failures or []],
+    }
+
+
 @router.post("/analyze", response_model=AnalysisResponse)
 async def analyze_pod_failure(request: AnalysisRequest):
     """
@@ -38,7 +114,8 @@ async def analyze_pod_failure(request: AnalysisRequest):
             namespace=request.namespace,
             failure_reason=request.failure_reason,
             logs=request.logs,
-            pod_yaml=request.pod_yaml
+            pod_yaml=request.pod_yaml,
+            correlation=correlation_of(request)
         )
         
         response = AnalysisResponse(
@@ -61,3 +138,148 @@ async def analyze_pod_failure(request: AnalysisRequest):
             
         raise HTTPException(status_code=500, detail=f"Analysis failed: {error_msg}")
 
+
+
+@router.post("/analyze/batch", response_model=BatchAnalysisResponse)
+async def analyze_pod_failures_batch(batch: BatchAnalysisRequest):
+    """
+    Analyzes several pod failures in one request.
+    
+    Items are diagnosed concurrently (bounded by BATCH_CONCURRENCY) and a
+    failure of one item does not fail the batch.
+    
+    Args:
+        batch: Batch of analysis requests
+    
+    Returns:
+        Per-request results in request order
+    """
+    logger.info(f"Received batch analysis request with {len(batch.requests)} items")
+    
+    diagnosis_service = get_diagnosis_service()
+    semaphore = asyncio.Semaphore(BATCH_CONCURRENCY)
+    
+    async def analyze_one(request: AnalysisRequest) -> BatchAnalysisResult:
+        async with semaphore:
+            try:
+                result = await run_in_threadpool(
+                    diagnosis_service.analyze_pod_failure,
+                    pod_name=request.pod_name,
+                    namespace=request.namespace,
+                    failure_reason=request.failure_reason,
+                    logs=request.logs,
+                    pod_yaml=request.pod_yaml,
+                    correlation=correlation_of(request)
+                )
+                return BatchAnalysisResult(response=AnalysisResponse(
+                    root_cause=result["root_cause"],
+                    suggested_fix_yaml=result["suggested_fix_yaml"],
+                    confidence_score=result["confidence_score"]
+                ))
+            except Exception as e:
+                logger.error(f"Batch item {request.namespace}/{request.pod_name} failed: {e}")
+                return BatchAnalysisResult(error=str(e))
+    
+    results = await asyncio.gather(*(analyze_one(r) for r in batch.requests))
+    return BatchAnalysisResponse(results=list(results))
+
+
+
+@router.post("/analyze/async", response_model=AnalysisJobAccepted, status_code=202)
+async def submit_analysis_job(request: AsyncAnalysisRequest, background_tasks: BackgroundTasks):
+    """
+    Accepts an analysis job and returns right away.
+    
+    The analysis runs in the background (bounded by ASYNC_CONCURRENCY) and its
+    result, or error, is POSTed to the request's callback_url.
+    
+    Args:
+        request: Analysis request with job ID and callback URL
+    
+    Returns:
+        Acknowledgement with the job ID
+    """
+    if not callback_allowed(request.callback_url):
+        logger.warning(f"Rejected analysis job {request.job_id}: callback URL {request.callback_url} is not allowed")
+        raise HTTPException(status_code=400, detail="callback_url is not an allowed operator endpoint")
+    logger.info(f"Accepted analysis job {request.job_id} for pod: {request.namespace}/{request.pod_name}")
+    background_tasks.add_task(run_analysis_job, request)
+    return AnalysisJobAccepted(job_id=request.job_id)
+
+
+async def run_analysis_job(request: AsyncAnalysisRequest):
+    """Runs an analysis job and delivers its result to the operator."""
+    async with get_job_semaphore():
+        try:
+            result = await run_in_threadpool(
+                get_diagnosis_service().analyze_pod_failure,
+                pod_name=request.pod_name,
+                namespace=request.namespace,
+                failure_reason=request.failure_reason,
+                logs=request.logs,
+                pod_yaml=request.pod_yaml,
+                correlation=correlation_of(request)
+            )
+            callback = AnalysisCallback(job_id=request.job_id, response=AnalysisResponse(
+                root_cause=result["root_cause"],
+                suggested_fix_yaml=result["suggested_fix_yaml"],
+                confidence_score=result["confidence_score"]
+            ))
+        except Exception as e:
+            logger.error(f"Analysis job {request.job_id} failed: {e}")
+            callback = AnalysisCallback(job_id=request.job_id, error=str(e))
+    
+    body = callback.model_dump_json(exclude_none=True).encode("utf-8")
+    delay = 1.0
+    for attempt in range(1, CALLBACK_ATTEMPTS + 1):
+        try:
+            await run_in_threadpool(post_callback, request.callback_url, body)
+            logger.info(f"Delivered result of analysis job {request.job_id}")
+            return
+        except urllib.error.HTTPError as e:
+            if e.code == 404:
+                # The operator no longer waits for this job (timed out or restarted)
+                logger.warning(f"Operator does not know analysis job {request.job_id}; dropping result")
+                return
+            logger.warning(f"Callback for job {request.job_id} failed (attempt {attempt}): HTTP {e.code}")
+        except Exception as e:
+            logger.warning(f"Callback for job {request.job_id} failed (attempt {attempt}): {e}")
+        if attempt < CALLBACK_ATTEMPTS:
+            await asyncio.sleep(delay)
+            delay *= 2
+    logger.error(f"Giving up on delivering the result of analysis job {request.job_id}")
+
+
+def callback_allowed(url: str) -> bool:
+    """
+    Checks a callback URL against CALLBACK_ALLOWED_HOSTS and CALLBACK_PATH.
+    
+    IP networks only match literal IP hosts; hostnames are not resolved, so
+    DNS cannot point an allowed name elsewhere at delivery time.
+    """
+    try:
+        parsed = urllib.parse.urlsplit(url)
+        parsed.port  # Raises on an invalid port
+    except ValueError:
+        return False
+    if parsed.scheme not in ("http", "https") or not parsed.hostname or parsed.username or parsed.password:
+        return False
+    if parsed.path != CALLBACK_PATH or parsed.query or parsed.fragment:
+        return False
+    
+    host = parsed.hostname.lower()
+    if host in _callback_hosts:
+        return True
+    try:
+        address = ipaddress.ip_address(host)
+    except ValueError:
+        return False
+    return any(address in network for network in _callback_networks)
+
+
+def post_callback(url: str, body: bytes):
+    """POSTs a job result to the operator; raises on a non-2xx status or a redirect."""
+    http_request = urllib.request.Request(
+        url, data=body, method="POST", headers={"Content-Type": "application/json"})
+    with _callback_opener.open(http_request, timeout=CALLBACK_TIMEOUT_SECONDS):
+        pass
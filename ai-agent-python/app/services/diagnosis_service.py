@@ -2,6 +2,7 @@ import os
 import json
 import yaml
 import logging
+from typing import Optional
 import google.generativeai as genai
 
 logger = logging.getLogger(__name__)
@@ -55,12 +56,15 @@ class DiagnosisService:
         return candidates
     
     def analyze_pod_failure(self, pod_name: str, namespace: str, failure_reason: str, 
-                           logs: str, pod_yaml: str) -> dict:
+                           logs: str, pod_yaml: str, correlation: Optional[dict] = None) -> dict:
         """
         Analyzes pod failure using GenAI and returns diagnosis with remediation.
         Tries multiple models if failures occur.
+        
+        correlation, if given, describes a correlated incident: 'key', 'count'
+        and 'failures' (sample failures of other workloads).
         """
-        prompt = self._build_prompt(pod_name, namespace, failure_reason, logs, pod_yaml)
+        prompt = self._build_prompt(pod_name, namespace, failure_reason, logs, pod_yaml, correlation)
         
         last_exception = None
         
@@ -95,9 +99,11 @@ class DiagnosisService:
         raise last_exception
     
     def _build_prompt(self, pod_name: str, namespace: str, failure_reason: str, 
-                     logs: str, pod_yaml: str) -> str:
+                     logs: str, pod_yaml: str, correlation: Optional[dict] = None) -> str:
         """Constructs the prompt for the LLM."""
         
+        correlation_section = self._build_correlation_section(correlation) if correlation else ""
+        
         prompt = f"""You are a Senior DevOps Engineer and Kubernetes expert specializing in incident response.
 
 **Your Mission**: Analyze the following Kubernetes pod failure and provide a precise remediation plan.
@@ -116,7 +122,7 @@ class DiagnosisService:
 ```yaml
 {pod_yaml}
 ```
-
+{correlation_section}
 **Your Task**:
 1. Analyze the logs and YAML to determine the ROOT CAUSE of the failure
 2. Suggest a Kubernetes YAML PATCH that will fix the issue
@@ -153,6 +159,26 @@ RESPOND ONLY WITH THE JSON. NO ADDITIONAL TEXT.
 """
         return prompt
     
+    def _build_correlation_section(self, correlation: dict) -> str:
+        """Describes a correlated incident: many workloads failing together."""
+        
+        samples = "\n".join(
+            f"- {f.get('namespace')}/{f.get('pod_name')} ({f.get('workload') or 'standalone'}): "
+            f"{f.get('failure_reason')} on node {f.get('node_name')}, image {f.get('image')}"
+            + (f", message: {f.get('termination_message')}" if f.get('termination_message') else "")
+            for f in correlation.get("failures") or []
+        )
+        return f"""
+**Correlated Incident**:
+This pod is one of {correlation.get('count')} workloads that failed within a short window and share
+`{correlation.get('key')}` (what they share, then the failure reason). Sample failures of other workloads:
+{samples}
+
+Look for a common cause (a bad node, a broken image, a bad ConfigMap/Secret) before a pod-specific one,
+and name it in root_cause. The suggested_fix_yaml is applied to THIS pod only: if the cause is outside the
+pod spec (node, registry, ConfigMap/Secret content), return an empty suggested_fix_yaml and say what to fix.
+"""
+    
     def _parse_response(self, response_text: str) -> dict:
         """Parses the LLM response and extracts structured data."""
         
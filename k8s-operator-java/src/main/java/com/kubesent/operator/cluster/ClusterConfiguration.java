@@ -0,0 +1,12 @@
+package com.kubesent.operator.cluster;
+
+import org.springframework.context.annotation.ComponentScan;
+
+/**
+ * Configuration of a cluster's child context: every {@link ClusterScoped}
+ * component of the operator.
+ */
+@ComponentScan(basePackages = "com.kubesent.operator", useDefaultFilters = false,
+        includeFilters = @ComponentScan.Filter(ClusterScoped.class))
+class ClusterConfiguration {
+}
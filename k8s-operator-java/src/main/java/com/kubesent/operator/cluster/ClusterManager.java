@@ -0,0 +1,203 @@
+package com.kubesent.operator.cluster;
+
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.MutablePropertySources;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs the operator against one or more clusters from a single process. Every
+ * cluster gets a child application context with its own Kubernetes client,
+ * pod watcher, work queue, pipeline executors, coordination and incident
+ * journal (the {@link ClusterScoped} components), while the AI Agent client,
+ * its guard, the analysis cache and the meter registry are shared through the
+ * parent context. Meters registered by a cluster carry a {@code cluster} tag.
+ * <p>
+ * Without {@code kubesent.clusters.contexts} there is a single cluster named
+ * {@value #DEFAULT_CLUSTER}: the current kubeconfig context, or the cluster
+ * the operator runs in.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ClusterManager implements SmartLifecycle {
+
+    public static final String DEFAULT_CLUSTER = "default";
+
+    private final ConfigurableApplicationContext applicationContext;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${kubesent.clusters.contexts:}")
+    private String contexts;
+
+    @Value("${kubesent.journal.path:${java.io.tmpdir}/kubesent/incidents.journal}")
+    private String journalPath;
+
+    private final Map<String, AnnotationConfigApplicationContext> clusters = new LinkedHashMap<>();
+    private volatile boolean running;
+
+    /**
+     * Starts every cluster once the application context is refreshed (and the
+     * callback endpoint is up).
+     */
+    @Override
+    public synchronized void start() {
+        Map<String, String> targets = parseContexts(contexts);
+        boolean multiCluster = !targets.isEmpty();
+        if (!multiCluster) {
+            targets.put(DEFAULT_CLUSTER, null);
+        }
+
+        try {
+            for (Map.Entry<String, String> target : targets.entrySet()) {
+                clusters.put(target.getKey(), startCluster(target.getKey(), target.getValue(), multiCluster));
+            }
+        } catch (RuntimeException e) {
+            stop();
+            throw e;
+        }
+        running = true;
+        log.info("Operating on {} cluster(s): {}", clusters.size(), clusters.keySet());
+    }
+
+    /**
+     * Stops every cluster before the shared components are destroyed.
+     */
+    @Override
+    public synchronized void stop() {
+        List<String> names = new ArrayList<>(clusters.keySet());
+        Collections.reverse(names);
+        for (String name : names) {
+            log.info("Stopping cluster {}", name);
+            clusters.remove(name).close();
+        }
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * @return Names of the managed clusters, in configuration order
+     */
+    public synchronized List<String> getClusterNames() {
+        return new ArrayList<>(clusters.keySet());
+    }
+
+    private AnnotationConfigApplicationContext startCluster(String name, String kubeContext, boolean multiCluster) {
+        log.info("Starting cluster {}{}", name, kubeContext != null ? " (context " + kubeContext + ")" : "");
+
+        AnnotationConfigApplicationContext context = clusterContext(name, kubeContext, multiCluster);
+        context.register(ClusterConfiguration.class);
+        try {
+            context.refresh();
+        } catch (RuntimeException e) {
+            context.close();
+            throw new IllegalStateException("Failed to start cluster " + name + ": " + e.getMessage(), e);
+        }
+        return context;
+    }
+
+    /**
+     * The cluster's child context, not yet refreshed. It converts property
+     * values like the application context does, e.g. a comma-separated
+     * {@code kubesent.kubernetes.namespaces} into a list.
+     */
+    AnnotationConfigApplicationContext clusterContext(String name, String kubeContext, boolean multiCluster) {
+        Map<String, Object> overrides = new HashMap<>();
+        overrides.put("kubesent.cluster.name", name);
+        if (kubeContext != null) {
+            overrides.put("kubesent.cluster.context", kubeContext);
+        }
+        if (multiCluster) {
+            // Journals record cluster-specific remediations
+            overrides.put("kubesent.journal.path", clusterPath(journalPath, name));
+        }
+
+        CompositeMeterRegistry clusterRegistry = new CompositeMeterRegistry(Clock.SYSTEM, List.of(meterRegistry));
+        clusterRegistry.config().commonTags("cluster", name);
+
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.setId(applicationContext.getId() + "-" + name);
+        context.setDisplayName("cluster " + name);
+        context.setEnvironment(clusterEnvironment(name, overrides));
+        context.setParent(applicationContext);
+        ConversionService conversionService = applicationContext.getBeanFactory().getConversionService();
+        context.getBeanFactory().setConversionService(
+                conversionService != null ? conversionService : DefaultConversionService.getSharedInstance());
+        context.registerBean("meterRegistry", MeterRegistry.class, () -> clusterRegistry,
+                definition -> definition.setPrimary(true));
+        return context;
+    }
+
+    /**
+     * The application's property sources, in the same order, behind the
+     * cluster's overrides.
+     */
+    private ConfigurableEnvironment clusterEnvironment(String name, Map<String, Object> overrides) {
+        StandardEnvironment environment = new StandardEnvironment() {
+            @Override
+            protected void customizePropertySources(MutablePropertySources propertySources) {
+                // Everything comes from the application environment
+            }
+        };
+        environment.merge(applicationContext.getEnvironment());
+        environment.getPropertySources().addFirst(new MapPropertySource("kubesent-cluster-" + name, overrides));
+        return environment;
+    }
+
+    /**
+     * Parses {@code name=context} or bare {@code context} entries.
+     */
+    static Map<String, String> parseContexts(String contexts) {
+        Map<String, String> targets = new LinkedHashMap<>();
+        if (contexts == null || contexts.isBlank()) {
+            return targets;
+        }
+        for (String entry : contexts.split(",")) {
+            String trimmed = entry.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            int eq = trimmed.indexOf('=');
+            String name = eq > 0 ? trimmed.substring(0, eq).trim() : trimmed;
+            String kubeContext = eq > 0 ? trimmed.substring(eq + 1).trim() : trimmed;
+            if (targets.put(name, kubeContext) != null) {
+                throw new IllegalArgumentException("Duplicate cluster name: " + name);
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * Inserts the cluster name before the file extension, e.g.
+     * {@code incidents.journal} becomes {@code incidents-prod.journal}.
+     */
+    static String clusterPath(String path, String cluster) {
+        String suffix = "-" + cluster.replaceAll("[^A-Za-z0-9._-]", "_");
+        int slash = Math.max(path.lastIndexOf('/'), path.lastIndexOf('\\'));
+        int dot = path.lastIndexOf('.');
+        return dot > slash + 1 ? path.substring(0, dot) + suffix + path.substring(dot) : path + suffix;
+    }
+}
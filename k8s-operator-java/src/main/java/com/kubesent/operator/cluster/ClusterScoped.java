@@ -0,0 +1,21 @@
+package com.kubesent.operator.cluster;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a component that exists once per managed cluster. It is left out of
+ * the application context and created in each cluster's child context instead
+ * (see {@link ClusterManager}), where it gets that cluster's
+ * {@code KubernetesClient} and a meter registry tagging every meter with the
+ * cluster name. Shared components (AI Agent client, analysis cache, ...) come
+ * from the parent application context.
+ */
+@Documented
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ClusterScoped {
+}
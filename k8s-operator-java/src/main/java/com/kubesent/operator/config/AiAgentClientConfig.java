@@ -0,0 +1,65 @@
+package com.kubesent.operator.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+/**
+ * Configuration for the HTTP client used to talk to the Python AI Agent.
+ * A single pooled, HTTP/2-capable JDK client backs both the blocking
+ * RestTemplate and the non-blocking async calls. The JDK's connection pool
+ * is tuned with JVM-wide system properties ({@code jdk.httpclient.keepalive.timeout},
+ * {@code jdk.httpclient.connectionPoolSize}), passed as {@code -D} options in
+ * {@code JAVA_OPTS} rather than set here.
+ */
+@Slf4j
+@Configuration
+public class AiAgentClientConfig {
+
+    @Value("${kubesent.ai-agent.connect-timeout-ms:2000}")
+    private Long connectTimeoutMs;
+
+    @Value("${kubesent.ai-agent.read-timeout-ms:60000}")
+    private Long readTimeoutMs;
+
+    @Value("${kubesent.ai-agent.http2-enabled:true}")
+    private Boolean http2Enabled;
+
+    @Value("${kubesent.ai-agent.gzip-requests:false}")
+    private Boolean gzipRequests;
+
+    @Value("${kubesent.ai-agent.gzip-min-bytes:1024}")
+    private Integer gzipMinBytes;
+
+    @Bean
+    public HttpClient aiAgentHttpClient() {
+        HttpClient client = HttpClient.newBuilder()
+                .version(http2Enabled ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+
+        log.info("AI Agent HTTP client initialized. Connect timeout: {} ms, read timeout: {} ms, keep-alive: {} s",
+                connectTimeoutMs, readTimeoutMs, System.getProperty("jdk.httpclient.keepalive.timeout", "1200"));
+        return client;
+    }
+
+    @Bean
+    public RestTemplate aiAgentRestTemplate(@Qualifier("aiAgentHttpClient") HttpClient aiAgentHttpClient) {
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(aiAgentHttpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+
+        RestTemplate restTemplate = new RestTemplate(requestFactory);
+        if (gzipRequests) {
+            restTemplate.getInterceptors().add(new GzipRequestInterceptor(gzipMinBytes));
+        }
+        return restTemplate;
+    }
+}
@@ -0,0 +1,107 @@
+package com.kubesent.operator.config;
+
+import com.kubesent.operator.resilience.PriorityTokenBucket;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client-side rate limit for the operator's calls to the Kubernetes API: a
+ * {@link PriorityTokenBucket} with a sustained QPS and a burst, so a failure
+ * storm does not get the operator throttled by the API server's Priority and
+ * Fairness. Calls that have to wait are served by {@link Priority}.
+ * <p>
+ * The token is taken at the call site, on the operator's own thread, before
+ * the client is called. Requests the client makes on its own threads (informer
+ * lists and watches, leader election renewals, retries) are never delayed, so
+ * a throttled log read cannot stall a watch reconnect.
+ */
+public class ApiRateLimiter {
+
+    /**
+     * Call priority, highest first.
+     */
+    public enum Priority {
+        /** Watches and coordination Leases, which keep the operator informed and in its role */
+        CONTROL,
+        /** Patches, creates and deletes */
+        WRITE,
+        /** Gets and lists */
+        READ,
+        /** Container log reads */
+        LOGS
+    }
+
+    private final PriorityTokenBucket bucket;
+    private final Map<Priority, Counter> throttled = new EnumMap<>(Priority.class);
+    private final Map<Priority, Timer> waits = new EnumMap<>(Priority.class);
+
+    /**
+     * @param qps           Sustained calls per second
+     * @param burst         Calls allowed at once after an idle period
+     * @param meterRegistry Registry for the throttling metrics
+     */
+    public ApiRateLimiter(double qps, int burst, MeterRegistry meterRegistry) {
+        this.bucket = new PriorityTokenBucket(qps, burst, Priority.values().length);
+        for (Priority priority : Priority.values()) {
+            String tag = priority.name().toLowerCase();
+            throttled.put(priority, Counter.builder("kubesent.k8s.api.throttled")
+                    .tag("priority", tag)
+                    .description("Kubernetes API calls delayed by the client-side rate limit")
+                    .register(meterRegistry));
+            waits.put(priority, Timer.builder("kubesent.k8s.api.throttle.wait")
+                    .tag("priority", tag)
+                    .description("Time throttled Kubernetes API calls waited for the rate limit")
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+        Gauge.builder("kubesent.k8s.api.tokens", bucket, PriorityTokenBucket::getAvailableTokens)
+                .description("Calls the client-side rate limit allows right now")
+                .register(meterRegistry);
+        Gauge.builder("kubesent.k8s.api.waiting", bucket, PriorityTokenBucket::getWaiting)
+                .description("Kubernetes API calls waiting for the rate limit")
+                .register(meterRegistry);
+    }
+
+    private ApiRateLimiter() {
+        this.bucket = null;
+    }
+
+    /**
+     * @return Limiter that lets every call through, for a disabled rate limit
+     */
+    public static ApiRateLimiter unlimited() {
+        return new ApiRateLimiter();
+    }
+
+    /**
+     * Takes a token for one API call, blocking the calling thread until one is
+     * available and no call of a higher priority is waiting.
+     *
+     * @param priority Priority of the call
+     * @throws KubernetesClientException If interrupted while waiting; the call
+     *                                   must not be made
+     */
+    public void acquire(Priority priority) {
+        if (bucket == null) {
+            return;
+        }
+        long waited;
+        try {
+            waited = bucket.acquire(priority.ordinal());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new KubernetesClientException("Interrupted while waiting for the API rate limit", e);
+        }
+        if (waited > 0) {
+            throttled.get(priority).increment();
+            waits.get(priority).record(waited, TimeUnit.NANOSECONDS);
+        }
+    }
+}
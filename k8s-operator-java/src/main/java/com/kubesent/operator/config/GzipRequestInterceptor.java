@@ -0,0 +1,52 @@
+package com.kubesent.operator.config;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzip-compresses request bodies of at least {@code minBytes} and marks them
+ * with {@code Content-Encoding: gzip}. Log-heavy analysis requests compress
+ * well, which cuts transfer time to the AI Agent.
+ */
+public class GzipRequestInterceptor implements ClientHttpRequestInterceptor {
+
+    private final int minBytes;
+
+    public GzipRequestInterceptor(int minBytes) {
+        this.minBytes = minBytes;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body,
+                                        ClientHttpRequestExecution execution) throws IOException {
+        if (body.length < minBytes || request.getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)) {
+            return execution.execute(request, body);
+        }
+        request.getHeaders().set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        return execution.execute(request, compress(body));
+    }
+
+    /**
+     * Gzip-compresses a byte array.
+     *
+     * @param body Bytes to compress
+     * @return Compressed bytes
+     */
+    public static byte[] compress(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
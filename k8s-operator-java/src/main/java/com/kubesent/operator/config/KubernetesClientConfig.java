@@ -1,37 +1,93 @@
 package com.kubesent.operator.config;
 
+import com.kubesent.operator.cluster.ClusterScoped;
 import io.fabric8.kubernetes.client.Config;
 import io.fabric8.kubernetes.client.ConfigBuilder;
 import io.fabric8.kubernetes.client.KubernetesClient;
 import io.fabric8.kubernetes.client.KubernetesClientBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.Configuration;
 
 /**
- * Configuration for Kubernetes Client.
- * Auto-detects in-cluster vs. local (kubeconfig) environment.
+ * Configuration for Kubernetes Client, one per managed cluster.
+ * Auto-detects in-cluster vs. local (kubeconfig) environment, or uses the
+ * cluster's kubeconfig context. All API calls to a cluster share one tuned
+ * HTTP client, and the operator's own calls one client-side rate limit.
  */
 @Slf4j
-@Configuration
+@ClusterScoped
 public class KubernetesClientConfig {
 
+    @Value("${kubesent.cluster.name:default}")
+    private String clusterName;
+
+    @Value("${kubesent.cluster.context:}")
+    private String kubeContext;
+
     @Value("${kubesent.kubernetes.namespace:default}")
     private String namespace;
 
+    @Value("${kubesent.kubernetes.rate-limit.enabled:true}")
+    private Boolean rateLimitEnabled;
+
+    @Value("${kubesent.kubernetes.rate-limit.qps:50}")
+    private Double qps;
+
+    @Value("${kubesent.kubernetes.rate-limit.burst:100}")
+    private Integer burst;
+
+    @Value("${kubesent.kubernetes.http.connect-timeout-ms:10000}")
+    private Integer connectTimeoutMs;
+
+    @Value("${kubesent.kubernetes.http.request-timeout-ms:10000}")
+    private Integer requestTimeoutMs;
+
+    @Value("${kubesent.kubernetes.http.http2-enabled:true}")
+    private Boolean http2Enabled;
+
+    @Value("${kubesent.kubernetes.http.max-concurrent-requests:0}")
+    private Integer maxConcurrentRequests;
+
+    @Value("${kubesent.kubernetes.http.max-concurrent-requests-per-host:0}")
+    private Integer maxConcurrentRequestsPerHost;
+
+    @Value("${kubesent.kubernetes.http.max-idle-connections:16}")
+    private Integer maxIdleConnections;
+
+    @Value("${kubesent.kubernetes.http.keep-alive-seconds:300}")
+    private Long keepAliveSeconds;
+
+    @Bean
+    public ApiRateLimiter apiRateLimiter(MeterRegistry meterRegistry) {
+        return rateLimitEnabled ? new ApiRateLimiter(qps, burst, meterRegistry) : ApiRateLimiter.unlimited();
+    }
+
     @Bean
-    public KubernetesClient kubernetesClient() {
-        Config config = new ConfigBuilder()
+    public KubernetesClient kubernetesClient(MeterRegistry meterRegistry) {
+        ConfigBuilder configBuilder = kubeContext.isEmpty()
+                ? new ConfigBuilder()
+                : new ConfigBuilder(Config.autoConfigure(kubeContext));
+        Config config = configBuilder
                 .withNamespace(namespace)
+                .withConnectionTimeout(connectTimeoutMs)
+                .withRequestTimeout(requestTimeoutMs)
+                .withHttp2Disable(!http2Enabled)
                 .build();
 
+        ServerThrottleInterceptor serverThrottle = new ServerThrottleInterceptor(meterRegistry);
         KubernetesClient client = new KubernetesClientBuilder()
                 .withConfig(config)
+                .withHttpClientFactory(new TunedOkHttpClientFactory(maxConcurrentRequests,
+                        maxConcurrentRequestsPerHost, maxIdleConnections, keepAliveSeconds))
+                .withHttpClientBuilderConsumer(http ->
+                        http.addOrReplaceInterceptor(ServerThrottleInterceptor.NAME, serverThrottle))
                 .build();
 
-        log.info("Kubernetes client initialized. Namespace: {}, Master URL: {}",
-                client.getNamespace(), client.getConfiguration().getMasterUrl());
+        log.info("Kubernetes client for cluster {} initialized. Namespace: {}, Master URL: {}, rate limit: {}",
+                clusterName, client.getNamespace(), client.getConfiguration().getMasterUrl(),
+                rateLimitEnabled ? qps + " qps, burst " + burst : "off");
 
         return client;
     }
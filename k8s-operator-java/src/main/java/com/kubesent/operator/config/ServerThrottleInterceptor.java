@@ -0,0 +1,39 @@
+package com.kubesent.operator.config;
+
+import io.fabric8.kubernetes.client.http.AsyncBody;
+import io.fabric8.kubernetes.client.http.HttpRequest;
+import io.fabric8.kubernetes.client.http.HttpResponse;
+import io.fabric8.kubernetes.client.http.Interceptor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Counts requests of the Kubernetes client the API server throttled (429 Too
+ * Many Requests). It never delays a request: the client-side rate limit is
+ * taken by the operator before its own calls, see {@link ApiRateLimiter}.
+ */
+public class ServerThrottleInterceptor implements Interceptor {
+
+    public static final String NAME = "kubesent-server-throttle";
+
+    private final Counter serverThrottled;
+
+    /**
+     * @param meterRegistry Registry for the throttling metric
+     */
+    public ServerThrottleInterceptor(MeterRegistry meterRegistry) {
+        serverThrottled = Counter.builder("kubesent.k8s.api.server.throttled")
+                .description("Kubernetes API requests answered with 429 Too Many Requests")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void after(HttpRequest request, HttpResponse<?> response, AsyncBody.Consumer<List<ByteBuffer>> consumer) {
+        if (response.code() == 429) {
+            serverThrottled.increment();
+        }
+    }
+}
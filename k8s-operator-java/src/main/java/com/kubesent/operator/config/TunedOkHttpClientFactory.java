@@ -0,0 +1,53 @@
+package com.kubesent.operator.config;
+
+import io.fabric8.kubernetes.client.okhttp.OkHttpClientFactory;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OkHttp factory for the Kubernetes client with a sized connection pool and
+ * optional caps on concurrent requests. The stock factory keeps OkHttp's
+ * default pool (5 idle connections) and an unbounded dispatcher, whatever
+ * {@code maxConcurrentRequests} the client Config sets.
+ */
+public class TunedOkHttpClientFactory extends OkHttpClientFactory {
+
+    private final int maxRequests;
+    private final int maxRequestsPerHost;
+    private final int maxIdleConnections;
+    private final long keepAliveSeconds;
+
+    /**
+     * @param maxRequests        Concurrent requests in flight (0 = unbounded)
+     * @param maxRequestsPerHost Concurrent requests per API server host (0 = unbounded)
+     * @param maxIdleConnections Idle connections kept in the pool
+     * @param keepAliveSeconds   How long an idle connection is kept
+     */
+    public TunedOkHttpClientFactory(int maxRequests, int maxRequestsPerHost, int maxIdleConnections,
+                                    long keepAliveSeconds) {
+        this.maxRequests = maxRequests;
+        this.maxRequestsPerHost = maxRequestsPerHost;
+        this.maxIdleConnections = maxIdleConnections;
+        this.keepAliveSeconds = keepAliveSeconds;
+    }
+
+    @Override
+    protected Dispatcher initDispatcher() {
+        Dispatcher dispatcher = super.initDispatcher();
+        if (maxRequests > 0) {
+            dispatcher.setMaxRequests(maxRequests);
+        }
+        if (maxRequestsPerHost > 0) {
+            dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+        }
+        return dispatcher;
+    }
+
+    @Override
+    protected void additionalConfig(OkHttpClient.Builder builder) {
+        builder.connectionPool(new ConnectionPool(maxIdleConnections, keepAliveSeconds, TimeUnit.SECONDS));
+    }
+}
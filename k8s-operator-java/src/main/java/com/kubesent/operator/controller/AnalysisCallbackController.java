@@ -0,0 +1,42 @@
+package com.kubesent.operator.controller;
+
+import com.kubesent.operator.model.AnalysisCallback;
+import com.kubesent.operator.service.AnalysisJobService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Endpoint the AI Agent posts analysis job results to in callback mode
+ * ({@code kubesent.ai-agent.callback.enabled}).
+ */
+@RestController
+@RequestMapping("/api/v1")
+@RequiredArgsConstructor
+public class AnalysisCallbackController {
+
+    private final AnalysisJobService analysisJobService;
+
+    /**
+     * Resumes the failure waiting for an analysis job.
+     *
+     * @return 204 if the job was pending, 404 if it is unknown or already timed out,
+     *         503 if the pipeline is too busy to take the result (the agent retries)
+     */
+    @PostMapping("/analysis-callbacks")
+    public ResponseEntity<Void> analysisCallback(@RequestBody AnalysisCallback callback) {
+        try {
+            return analysisJobService.complete(callback)
+                    ? ResponseEntity.noContent().build()
+                    : ResponseEntity.notFound().build();
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+}
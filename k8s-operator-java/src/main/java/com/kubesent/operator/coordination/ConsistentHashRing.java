@@ -0,0 +1,70 @@
+package com.kubesent.operator.coordination;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Immutable consistent hash ring over a set of members. Each member is placed
+ * on the ring at several virtual points, so keys spread evenly and a member
+ * joining or leaving only moves about 1/N of the keys.
+ */
+public final class ConsistentHashRing {
+
+    private final NavigableMap<Long, String> ring = new TreeMap<>();
+    private final List<String> members;
+
+    /**
+     * @param members      Member identities
+     * @param virtualNodes Points on the ring per member
+     */
+    public ConsistentHashRing(Collection<String> members, int virtualNodes) {
+        this.members = List.copyOf(new TreeSet<>(members));
+        for (String member : this.members) {
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.put(hash(member + "#" + i), member);
+            }
+        }
+    }
+
+    /**
+     * @param key Key to place, e.g. a namespace or workload
+     * @return Member owning the key, or null if the ring is empty
+     */
+    public String ownerOf(String key) {
+        if (ring.isEmpty()) {
+            return null;
+        }
+        Map.Entry<Long, String> entry = ring.ceilingEntry(hash(key));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    /**
+     * @return Members on the ring, sorted
+     */
+    public List<String> members() {
+        return members;
+    }
+
+    /**
+     * 64-bit FNV-1a with a final avalanche step, so that similar keys
+     * (pod-1, pod-2, ...) land far apart on the ring.
+     */
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,117 @@
+package com.kubesent.operator.fastpath;
+
+import com.kubesent.operator.model.AnalysisResponse;
+import com.kubesent.operator.model.FailureClassification;
+import io.fabric8.kubernetes.api.model.Container;
+import io.fabric8.kubernetes.api.model.Pod;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Flags an app container that cannot pull its image because the tag is a typo
+ * of a well-known tag (e.g. {@code lastest} for {@code latest}): one insertion,
+ * deletion, substitution or swap of adjacent characters away from exactly one
+ * known tag. The suggested fix corrects the tag; whether it is applied depends
+ * on the rule's confidence and the remediation threshold. Images pinned by
+ * digest are never touched.
+ */
+public class ImageTagTypoRule implements RemediationRule {
+
+    private static final Set<String> PULL_FAILURES = Set.of("ImagePullBackOff", "ErrImagePull");
+    // Shorter tags are too close to each other to call anything a typo
+    private static final int MIN_TAG_LENGTH = 4;
+
+    private final Set<String> knownTags;
+    private final double confidence;
+
+    /**
+     * @param knownTags  Tags a near miss is corrected to
+     * @param confidence Confidence score of the suggested fix
+     */
+    public ImageTagTypoRule(Set<String> knownTags, double confidence) {
+        this.knownTags = Set.copyOf(knownTags);
+        this.confidence = confidence;
+    }
+
+    @Override
+    public String name() {
+        return "image-tag-typo";
+    }
+
+    @Override
+    public AnalysisResponse evaluate(Pod pod, FailureClassification classification) {
+        if (classification.initContainer() || !PULL_FAILURES.contains(classification.reason())) {
+            return null;
+        }
+        Container container = RemediationRule.container(pod, classification.container());
+        String image = container != null ? container.getImage() : null;
+        if (image == null || image.contains("@")) {
+            return null;
+        }
+        int colon = image.lastIndexOf(':');
+        if (colon < 0 || colon < image.lastIndexOf('/')) {
+            return null;
+        }
+        String tag = image.substring(colon + 1);
+        String corrected = correction(tag);
+        if (corrected == null) {
+            return null;
+        }
+
+        String fixedImage = image.substring(0, colon + 1) + corrected;
+        return AnalysisResponse.builder()
+                .rootCause(String.format("Image tag '%s' of container '%s' looks like a typo of '%s' (rule %s).",
+                        tag, container.getName(), corrected, name()))
+                .suggestedFixYaml(Map.of("spec", Map.of("containers", List.of(Map.of(
+                        "name", container.getName(),
+                        "image", fixedImage)))))
+                .confidenceScore(confidence)
+                .build();
+    }
+
+    /**
+     * @return The known tag one edit away from the tag, or null if the tag is
+     *         known itself, too short, or close to no or several known tags
+     */
+    String correction(String tag) {
+        if (tag.length() < MIN_TAG_LENGTH || knownTags.contains(tag)) {
+            return null;
+        }
+        String match = null;
+        for (String known : knownTags) {
+            if (Math.abs(known.length() - tag.length()) <= 1 && distance(tag, known) == 1) {
+                if (match != null) {
+                    return null;
+                }
+                match = known;
+            }
+        }
+        return match;
+    }
+
+    /**
+     * Optimal string alignment distance: edits are insertions, deletions,
+     * substitutions and swaps of adjacent characters.
+     */
+    static int distance(String a, String b) {
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            d[i][0] = i;
+        }
+        for (int j = 0; j <= b.length(); j++) {
+            d[0][j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+                }
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+}
@@ -0,0 +1,120 @@
+package com.kubesent.operator.fastpath;
+
+import com.kubesent.operator.model.AnalysisResponse;
+import com.kubesent.operator.model.FailureClassification;
+import io.fabric8.kubernetes.api.model.Container;
+import io.fabric8.kubernetes.api.model.ContainerState;
+import io.fabric8.kubernetes.api.model.ContainerStatus;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.Quantity;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Raises the memory limit of an app container killed for exceeding it. The
+ * new limit is the current one times a factor, rounded up to whole Mi and
+ * capped at a maximum. Containers without a memory limit (killed because the
+ * node ran out of memory) and containers already at the maximum fall through
+ * to the AI Agent.
+ * <p>
+ * A container in CrashLoopBackOff whose last termination was OOMKilled counts
+ * too, since the waiting reason is what classifies it.
+ */
+public class OomMemoryBumpRule implements RemediationRule {
+
+    private static final String OOM_KILLED = "OOMKilled";
+    private static final BigDecimal MI = BigDecimal.valueOf(1024 * 1024);
+
+    private final BigDecimal factor;
+    private final BigDecimal maxBytes;
+    private final double confidence;
+
+    /**
+     * @param factor     Multiplier for the current memory limit (&gt; 1)
+     * @param maxMemory  Highest limit the rule sets
+     * @param confidence Confidence score of the suggested fix
+     */
+    public OomMemoryBumpRule(double factor, Quantity maxMemory, double confidence) {
+        if (factor <= 1) {
+            throw new IllegalArgumentException("Memory factor must be greater than 1: " + factor);
+        }
+        this.factor = BigDecimal.valueOf(factor);
+        this.maxBytes = maxMemory.getNumericalAmount();
+        this.confidence = confidence;
+    }
+
+    @Override
+    public String name() {
+        return "oom-memory-bump";
+    }
+
+    @Override
+    public AnalysisResponse evaluate(Pod pod, FailureClassification classification) {
+        if (classification.initContainer() || !oomKilled(pod, classification)) {
+            return null;
+        }
+        Container container = RemediationRule.container(pod, classification.container());
+        Quantity limit = container != null && container.getResources() != null
+                && container.getResources().getLimits() != null
+                ? container.getResources().getLimits().get("memory") : null;
+        if (limit == null) {
+            return null;
+        }
+
+        BigDecimal current = limit.getNumericalAmount();
+        if (current.compareTo(maxBytes) >= 0) {
+            return null;
+        }
+        BigDecimal bumpedMi = current.multiply(factor).min(maxBytes).divide(MI, 0, RoundingMode.CEILING);
+        Quantity bumped = new Quantity(bumpedMi.toPlainString(), "Mi");
+
+        // Resources are replaced as a whole on force replace, so keep the rest of them
+        Map<String, String> limits = quantities(container.getResources().getLimits());
+        limits.put("memory", bumped.toString());
+        Map<String, Object> resources = new LinkedHashMap<>();
+        resources.put("limits", limits);
+        if (container.getResources().getRequests() != null && !container.getResources().getRequests().isEmpty()) {
+            resources.put("requests", quantities(container.getResources().getRequests()));
+        }
+
+        return AnalysisResponse.builder()
+                .rootCause(String.format("Container '%s' was OOMKilled at its memory limit of %s. "
+                                + "Raised the limit %sx to %s (rule %s).",
+                        container.getName(), limit, factor.stripTrailingZeros().toPlainString(), bumped, name()))
+                .suggestedFixYaml(Map.of("spec", Map.of("containers", List.of(Map.of(
+                        "name", container.getName(),
+                        "resources", resources)))))
+                .confidenceScore(confidence)
+                .build();
+    }
+
+    private static boolean oomKilled(Pod pod, FailureClassification classification) {
+        if (OOM_KILLED.equals(classification.reason())) {
+            return true;
+        }
+        List<ContainerStatus> statuses = pod.getStatus() != null ? pod.getStatus().getContainerStatuses() : null;
+        if (statuses == null) {
+            return false;
+        }
+        for (ContainerStatus status : statuses) {
+            if (classification.container().equals(status.getName())) {
+                return terminatedBy(status.getState()) || terminatedBy(status.getLastState());
+            }
+        }
+        return false;
+    }
+
+    private static boolean terminatedBy(ContainerState state) {
+        return state != null && state.getTerminated() != null && OOM_KILLED.equals(state.getTerminated().getReason());
+    }
+
+    private static Map<String, String> quantities(Map<String, Quantity> quantities) {
+        Map<String, String> values = new LinkedHashMap<>();
+        quantities.forEach((resource, quantity) -> values.put(resource, quantity.toString()));
+        return values;
+    }
+}
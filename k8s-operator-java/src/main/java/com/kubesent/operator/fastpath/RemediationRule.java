@@ -0,0 +1,50 @@
+package com.kubesent.operator.fastpath;
+
+import com.kubesent.operator.model.AnalysisResponse;
+import com.kubesent.operator.model.FailureClassification;
+import io.fabric8.kubernetes.api.model.Container;
+import io.fabric8.kubernetes.api.model.Pod;
+
+import java.util.List;
+
+/**
+ * In-process rule for a well-understood failure, evaluated before the AI Agent
+ * is called. A rule that recognizes the failure answers with the fix itself;
+ * anything else falls through to the agent. Rules must be cheap and
+ * deterministic: the same pod and failure always give the same analysis and
+ * confidence score.
+ * <p>
+ * Besides the built-in rules, any Spring bean implementing this interface is
+ * evaluated too.
+ */
+public interface RemediationRule {
+
+    /**
+     * @return Rule name, used in logs and metrics
+     */
+    String name();
+
+    /**
+     * @param pod            The failing pod
+     * @param classification The detected failure
+     * @return Analysis with the suggested fix (in the AI Agent's format), or
+     *         null if the rule does not apply
+     */
+    AnalysisResponse evaluate(Pod pod, FailureClassification classification);
+
+    /**
+     * @return The app container of the pod with the given name, or null
+     */
+    static Container container(Pod pod, String name) {
+        List<Container> containers = pod.getSpec() != null ? pod.getSpec().getContainers() : null;
+        if (containers == null || name == null) {
+            return null;
+        }
+        for (Container container : containers) {
+            if (name.equals(container.getName())) {
+                return container;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,418 @@
+package com.kubesent.operator.journal;
+
+import com.kubesent.operator.model.FailureClassification.Severity;
+import com.kubesent.operator.model.FailureFingerprint;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of handled incidents on a memory-mapped file.
+ * <p>
+ * File layout: an 8 byte header (magic, version) followed by records of
+ * {@code [int length][byte type][long timestamp][payload][int crc32]}, where
+ * the length covers type, timestamp and payload and the CRC is computed over
+ * the same bytes. A zero length marks the end of the log; a record that does
+ * not fit or fails its CRC is a torn write and ends the replay.
+ * <p>
+ * Only the latest entry per key is live (pod for detections, fingerprint for
+ * analyses, workload and outcome for remediations, so a later skipped or
+ * failed remediation does not hide that the workload was patched). Compaction
+ * rewrites the live entries that are within the retention period to a new
+ * file and swaps it in atomically; it runs when asked to and whenever the
+ * mapping is full. The file grows by doubling, up to the maximum size, and
+ * compaction fails rather than drop live entries that would not fit.
+ */
+@Slf4j
+public class IncidentJournal implements Closeable {
+
+    private static final int MAGIC = 0x4B534A31; // "KSJ1"
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 8;
+    private static final int LENGTH_BYTES = 4;
+    private static final int CRC_BYTES = 4;
+
+    private static final byte DETECTION = 1;
+    private static final byte ANALYSIS = 2;
+    private static final byte REMEDIATION = 3;
+
+    /**
+     * A journal entry.
+     */
+    public sealed interface Entry permits Detection, Analysis, Remediation {
+
+        /**
+         * @return When the entry was recorded, in epoch millis
+         */
+        long timestamp();
+    }
+
+    /**
+     * A failure was picked up for processing.
+     */
+    public record Detection(long timestamp, String podKey, String workload, String reason, Severity severity)
+            implements Entry {
+    }
+
+    /**
+     * The AI Agent analyzed a failure; the response is kept as JSON.
+     */
+    public record Analysis(long timestamp, FailureFingerprint fingerprint, byte[] responseJson) implements Entry {
+    }
+
+    /**
+     * A suggested fix was applied or skipped.
+     */
+    public record Remediation(long timestamp, String podKey, String workload, String revision, String outcome)
+            implements Entry {
+    }
+
+    private final Path path;
+    private final int initialBytes;
+    private final int maxBytes;
+    private final long retentionMillis;
+
+    private final Map<String, Detection> detections = new HashMap<>();
+    private final Map<FailureFingerprint, Analysis> analyses = new HashMap<>();
+    private final Map<String, Remediation> remediations = new HashMap<>();
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private final CRC32 crc = new CRC32();
+
+    /**
+     * Opens (or creates) a journal and replays it into the in-memory indexes.
+     *
+     * @param path            Journal file
+     * @param initialBytes    Initial size of the mapping
+     * @param maxBytes        Maximum size of the file
+     * @param retentionMillis Age after which entries are dropped by compaction
+     */
+    public IncidentJournal(Path path, int initialBytes, int maxBytes, long retentionMillis) throws IOException {
+        this.path = path;
+        this.initialBytes = initialBytes;
+        this.maxBytes = maxBytes;
+        this.retentionMillis = retentionMillis;
+
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        // Map all of an existing file, even above the maximum size, so no entry is lost on replay
+        map(path, Math.max(initialBytes, (int) Math.min(Files.exists(path) ? Files.size(path) : 0,
+                Integer.MAX_VALUE)));
+        replay();
+    }
+
+    /**
+     * @return Live entries in the order they were recorded
+     */
+    public synchronized List<Entry> entries() {
+        List<Entry> entries = new ArrayList<>(detections.size() + analyses.size() + remediations.size());
+        entries.addAll(detections.values());
+        entries.addAll(analyses.values());
+        entries.addAll(remediations.values());
+        entries.sort(Comparator.comparingLong(Entry::timestamp));
+        return entries;
+    }
+
+    /**
+     * @return Bytes in use, including the header
+     */
+    public synchronized int usedBytes() {
+        return buffer.position();
+    }
+
+    /**
+     * @return Size of the mapping
+     */
+    public synchronized int capacityBytes() {
+        return buffer.capacity();
+    }
+
+    /**
+     * Appends an entry, compacting or growing the file if it is full. Entries
+     * that do not fit even at the maximum size are dropped with a warning.
+     *
+     * @param entry Entry to record
+     * @throws IOException If the file cannot be written, or compaction failed
+     */
+    public synchronized void append(Entry entry) throws IOException {
+        byte[] record = encode(entry);
+        if (buffer.remaining() < record.length + LENGTH_BYTES) {
+            compact();
+            if (buffer.remaining() < record.length + LENGTH_BYTES) {
+                int needed = buffer.position() + record.length + LENGTH_BYTES;
+                int grown = buffer.capacity();
+                while (grown < needed && grown < maxBytes) {
+                    grown = (int) Math.min((long) grown * 2, maxBytes);
+                }
+                if (grown < needed) {
+                    log.warn("Incident journal {} is full ({} bytes); dropping entry", path, maxBytes);
+                    return;
+                }
+                int position = buffer.position();
+                map(path, grown);
+                buffer.position(position);
+            }
+        }
+        buffer.put(record);
+        index(entry);
+    }
+
+    /**
+     * Rewrites the live entries within the retention period to a new file and
+     * swaps it in. The file is left as it is if the live entries do not fit in
+     * the maximum size (e.g. after the maximum was lowered).
+     *
+     * @return Number of bytes reclaimed
+     * @throws IOException If the live entries do not fit or the file cannot be written
+     */
+    public synchronized int compact() throws IOException {
+        long cutoff = System.currentTimeMillis() - retentionMillis;
+        detections.values().removeIf(e -> e.timestamp() < cutoff);
+        analyses.values().removeIf(e -> e.timestamp() < cutoff);
+        remediations.values().removeIf(e -> e.timestamp() < cutoff);
+
+        List<byte[]> records = new ArrayList<>();
+        long live = HEADER_BYTES + LENGTH_BYTES;
+        for (Entry entry : entries()) {
+            byte[] record = encode(entry);
+            records.add(record);
+            live += record.length;
+        }
+        int size = Math.min(initialBytes, maxBytes);
+        while (size < live * 2 && size < maxBytes) {
+            size = (int) Math.min((long) size * 2, maxBytes);
+        }
+        if (live > size) {
+            throw new IOException("Live entries of incident journal " + path + " need " + live
+                    + " bytes, more than the maximum of " + maxBytes);
+        }
+
+        int before = buffer.position();
+        Path compacted = path.resolveSibling(path.getFileName() + ".compact");
+        Files.deleteIfExists(compacted);
+        try (FileChannel out = FileChannel.open(compacted,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer target = out.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            target.putInt(MAGIC).putInt(VERSION);
+            for (byte[] record : records) {
+                target.put(record);
+            }
+            target.force();
+        }
+        channel.close();
+        Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        map(path, size);
+        skipToEnd();
+        int reclaimed = before - buffer.position();
+        log.debug("Compacted incident journal {}: {} live entries, {} -> {} bytes",
+                path, records.size(), before, buffer.position());
+        return reclaimed;
+    }
+
+    /**
+     * Flushes the mapping to disk.
+     */
+    public synchronized void force() {
+        buffer.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    private void map(Path file, int size) throws IOException {
+        if (channel != null && channel.isOpen()) {
+            channel.close();
+        }
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    /**
+     * Rebuilds the indexes from the file and positions the buffer after the
+     * last valid record.
+     */
+    private void replay() {
+        int magic = buffer.getInt(0);
+        if (magic == 0) {
+            buffer.putInt(0, MAGIC).putInt(4, VERSION);
+        } else if (magic != MAGIC || buffer.getInt(4) != VERSION) {
+            log.warn("Unrecognized incident journal {}; starting a new one", path);
+            clear(0);
+            buffer.putInt(0, MAGIC).putInt(4, VERSION);
+        }
+
+        int records = 0;
+        buffer.position(HEADER_BYTES);
+        while (buffer.remaining() >= LENGTH_BYTES) {
+            int start = buffer.position();
+            Entry entry = readRecord();
+            if (entry == null) {
+                buffer.position(start);
+                if (start + LENGTH_BYTES <= buffer.capacity() && buffer.getInt(start) != 0) {
+                    log.warn("Truncating torn record at offset {} of incident journal {}", start, path);
+                    clear(start);
+                }
+                break;
+            }
+            index(entry);
+            records++;
+        }
+        log.info("Replayed {} records from incident journal {} ({} bytes)", records, path, buffer.position());
+    }
+
+    /**
+     * Positions the buffer after the last record without indexing.
+     */
+    private void skipToEnd() {
+        buffer.position(HEADER_BYTES);
+        while (buffer.remaining() >= LENGTH_BYTES) {
+            int start = buffer.position();
+            int length = buffer.getInt();
+            if (length <= 0 || length + CRC_BYTES > buffer.remaining()) {
+                buffer.position(start);
+                return;
+            }
+            buffer.position(buffer.position() + length + CRC_BYTES);
+        }
+    }
+
+    /**
+     * @return The record at the current position, or null at the end of the log
+     */
+    private Entry readRecord() {
+        int length = buffer.getInt();
+        if (length <= 0 || length + CRC_BYTES > buffer.remaining()) {
+            return null;
+        }
+        byte[] body = new byte[length];
+        buffer.get(body);
+        int expected = buffer.getInt();
+        crc.reset();
+        crc.update(body);
+        if ((int) crc.getValue() != expected) {
+            return null;
+        }
+        try {
+            return decode(body);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Skipping undecodable incident journal record: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void clear(int from) {
+        byte[] zeros = new byte[Math.min(8192, buffer.capacity())];
+        for (int offset = from; offset < buffer.capacity(); offset += zeros.length) {
+            buffer.put(offset, zeros, 0, Math.min(zeros.length, buffer.capacity() - offset));
+        }
+    }
+
+    private void index(Entry entry) {
+        if (entry instanceof Detection detection) {
+            detections.put(detection.podKey(), detection);
+        } else if (entry instanceof Analysis analysis) {
+            analyses.put(analysis.fingerprint(), analysis);
+        } else if (entry instanceof Remediation remediation) {
+            remediations.put(remediation.workload() + "|" + remediation.outcome(), remediation);
+        }
+    }
+
+    private byte[] encode(Entry entry) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        if (entry instanceof Detection detection) {
+            out.writeByte(DETECTION);
+            out.writeLong(detection.timestamp());
+            writeString(out, detection.podKey());
+            writeString(out, detection.workload());
+            writeString(out, detection.reason());
+            out.writeByte(detection.severity().ordinal());
+        } else if (entry instanceof Analysis analysis) {
+            FailureFingerprint fingerprint = analysis.fingerprint();
+            out.writeByte(ANALYSIS);
+            out.writeLong(analysis.timestamp());
+            writeString(out, fingerprint.cluster());
+            writeString(out, fingerprint.workload());
+            writeString(out, fingerprint.revision());
+            writeString(out, fingerprint.container());
+            writeString(out, fingerprint.image());
+            writeString(out, fingerprint.failureReason());
+            writeString(out, fingerprint.logHash());
+            out.writeInt(analysis.responseJson().length);
+            out.write(analysis.responseJson());
+        } else if (entry instanceof Remediation remediation) {
+            out.writeByte(REMEDIATION);
+            out.writeLong(remediation.timestamp());
+            writeString(out, remediation.podKey());
+            writeString(out, remediation.workload());
+            writeString(out, remediation.revision());
+            writeString(out, remediation.outcome());
+        }
+        out.flush();
+        byte[] body = bytes.toByteArray();
+
+        crc.reset();
+        crc.update(body);
+        return ByteBuffer.allocate(LENGTH_BYTES + body.length + CRC_BYTES)
+                .putInt(body.length)
+                .put(body)
+                .putInt((int) crc.getValue())
+                .array();
+    }
+
+    private static Entry decode(byte[] body) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        byte type = in.readByte();
+        long timestamp = in.readLong();
+        switch (type) {
+            case DETECTION:
+                return new Detection(timestamp, readString(in), readString(in), readString(in),
+                        Severity.values()[in.readByte()]);
+            case ANALYSIS:
+                FailureFingerprint fingerprint = new FailureFingerprint(readString(in), readString(in),
+                        readString(in), readString(in), readString(in), readString(in), readString(in));
+                byte[] json = new byte[in.readInt()];
+                in.readFully(json);
+                return new Analysis(timestamp, fingerprint, json);
+            case REMEDIATION:
+                return new Remediation(timestamp, readString(in), readString(in), readString(in), readString(in));
+            default:
+                throw new IOException("Unknown record type " + type);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,27 @@
+package com.kubesent.operator.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Result of an analysis job, POSTed by the AI Agent to the operator's callback
+ * endpoint. Holds either a response or an error.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnalysisCallback {
+
+    @JsonProperty("job_id")
+    private String jobId;
+
+    @JsonProperty("response")
+    private AnalysisResponse response;
+
+    @JsonProperty("error")
+    private String error;
+}
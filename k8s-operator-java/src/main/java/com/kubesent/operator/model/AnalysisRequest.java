@@ -1,13 +1,20 @@
 package com.kubesent.operator.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+
 /**
- * Request DTO sent to the Python AI Agent for analysis.
+ * Request DTO sent to the Python AI Agent for analysis. When the failure is
+ * part of a correlated incident (many workloads failing on the same node,
+ * image or config at once), the correlation fields describe the group and
+ * carry a few sample failures besides this one. In callback mode the job ID
+ * and callback URL tell the agent where to POST the result.
  */
 @Data
 @Builder
@@ -29,4 +36,55 @@ public class AnalysisRequest {
 
     @JsonProperty("pod_yaml")
     private String podYaml;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonProperty("correlation_key")
+    private String correlationKey;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonProperty("correlated_count")
+    private Integer correlatedCount;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonProperty("correlated_failures")
+    private List<CorrelatedFailure> correlatedFailures;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonProperty("job_id")
+    private String jobId;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonProperty("callback_url")
+    private String callbackUrl;
+
+    /**
+     * Another failure of the same correlated incident.
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CorrelatedFailure {
+
+        @JsonProperty("pod_name")
+        private String podName;
+
+        @JsonProperty("namespace")
+        private String namespace;
+
+        @JsonProperty("workload")
+        private String workload;
+
+        @JsonProperty("failure_reason")
+        private String failureReason;
+
+        @JsonProperty("node_name")
+        private String nodeName;
+
+        @JsonProperty("image")
+        private String image;
+
+        @JsonProperty("termination_message")
+        private String terminationMessage;
+    }
 }
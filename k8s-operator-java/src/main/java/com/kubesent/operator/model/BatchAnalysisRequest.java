@@ -0,0 +1,22 @@
+package com.kubesent.operator.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Request DTO for analyzing several pod failures in one call to the AI Agent.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchAnalysisRequest {
+
+    @JsonProperty("requests")
+    private List<AnalysisRequest> requests;
+}
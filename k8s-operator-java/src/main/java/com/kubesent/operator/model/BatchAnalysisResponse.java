@@ -0,0 +1,38 @@
+package com.kubesent.operator.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Response DTO for a batch analysis. Results are in request order; each holds
+ * either a response or an error.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchAnalysisResponse {
+
+    @JsonProperty("results")
+    private List<Result> results;
+
+    /**
+     * Outcome of a single batch item.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Result {
+
+        @JsonProperty("response")
+        private AnalysisResponse response;
+
+        @JsonProperty("error")
+        private String error;
+    }
+}
@@ -0,0 +1,29 @@
+package com.kubesent.operator.model;
+
+/**
+ * Result of classifying a failing pod.
+ *
+ * @param severity      How urgent the failure is
+ * @param reason        Failure reason (e.g. CrashLoopBackOff, OOMKilled, ExitCode1)
+ * @param container     Name of the container the failure was found in
+ * @param initContainer Whether that container is an init container
+ */
+public record FailureClassification(Severity severity, String reason, String container, boolean initContainer) {
+
+    /**
+     * Failure severity, from least to most urgent.
+     */
+    public enum Severity {
+        LOW,
+        MEDIUM,
+        HIGH,
+        CRITICAL
+    }
+
+    /**
+     * @return Whether this classification is more urgent than another (or the other is null)
+     */
+    public boolean isMoreSevereThan(FailureClassification other) {
+        return other == null || severity.compareTo(other.severity) > 0;
+    }
+}
@@ -0,0 +1,154 @@
+package com.kubesent.operator.model;
+
+import io.fabric8.kubernetes.api.model.Container;
+import io.fabric8.kubernetes.api.model.Pod;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Identifies "the same failure" across replicas of a workload: cluster, owner
+ * workload, container, image, failure reason and a hash of the normalized log
+ * tail.
+ *
+ * @param cluster       Cluster the workload runs in
+ * @param workload      Owning workload key (namespace/Kind/name)
+ * @param revision      Workload template revision the pod was created from
+ * @param container     Failing container name (regular or init container)
+ * @param image         Failing container image
+ * @param failureReason Detected failure reason
+ * @param logHash       Hash of the normalized log tail
+ */
+public record FailureFingerprint(String cluster, String workload, String revision, String container, String image,
+                                 String failureReason, String logHash) {
+
+    private static final Pattern TIMESTAMP = Pattern.compile(
+            "\\d{4}-\\d{2}-\\d{2}[T ]\\d{2}:\\d{2}:\\d{2}(?:[.,]\\d+)?(?:Z|[+-]\\d{2}:?\\d{2})?");
+    private static final Pattern UUID = Pattern.compile(
+            "[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+    private static final Pattern IP = Pattern.compile("\\b\\d{1,3}(?:\\.\\d{1,3}){3}(?::\\d+)?\\b");
+    private static final Pattern HEX = Pattern.compile("\\b(?:0x)?[0-9a-fA-F]{8,}\\b");
+    private static final Pattern NUMBER = Pattern.compile("\\d+");
+    private static final Pattern WHITESPACE = Pattern.compile("[ \\t]+");
+
+    private static final List<String> REVISION_LABELS = List.of("pod-template-hash", "controller-revision-hash");
+
+    /**
+     * Builds the fingerprint of a pod failure.
+     *
+     * @param cluster        Cluster the pod runs in
+     * @param pod            The failed pod
+     * @param classification The detected failure, naming the failing container
+     * @param logs           Extracted pod logs
+     * @param tailLines      Number of trailing log lines to hash
+     * @return Fingerprint of the failure
+     */
+    public static FailureFingerprint of(String cluster, Pod pod, FailureClassification classification, String logs,
+                                        int tailLines) {
+        Container container = failingContainer(pod, classification);
+        return new FailureFingerprint(
+                cluster,
+                workloadKey(pod),
+                revision(pod),
+                classification.container(),
+                container != null ? container.getImage() : null,
+                classification.reason(),
+                hashLogTail(logs, tailLines));
+    }
+
+    /**
+     * Resolves the key of the workload that owns the pod.
+     *
+     * @param pod The pod
+     * @return Workload key in the form namespace/Kind/name
+     * @see WorkloadRef#of(Pod)
+     */
+    public static String workloadKey(Pod pod) {
+        return WorkloadRef.of(pod).key();
+    }
+
+    /**
+     * Resolves the template revision the pod was created from. Standalone pods
+     * use their UID and generation, so an in-place spec change yields a new
+     * revision.
+     *
+     * @param pod The pod
+     * @return Revision identifier
+     */
+    public static String revision(Pod pod) {
+        for (String labelName : REVISION_LABELS) {
+            String value = label(pod, labelName);
+            if (value != null) {
+                return value;
+            }
+        }
+        return pod.getMetadata().getUid() + "@" + pod.getMetadata().getGeneration();
+    }
+
+    /**
+     * Hashes the last lines of the logs after stripping volatile tokens
+     * (timestamps, UUIDs, IPs, hex IDs, numbers) so that replicas failing the
+     * same way produce the same hash.
+     *
+     * @param logs      Pod logs
+     * @param tailLines Number of trailing lines to hash
+     * @return Hex-encoded SHA-256 of the normalized tail
+     */
+    public static String hashLogTail(String logs, int tailLines) {
+        if (logs == null || logs.isEmpty()) {
+            return "";
+        }
+
+        int start = logs.length();
+        for (int i = 0; i < tailLines && start > 0; i++) {
+            int newline = logs.lastIndexOf('\n', start - 2);
+            start = newline < 0 ? 0 : newline + 1;
+        }
+        String tail = logs.substring(start);
+
+        String normalized = TIMESTAMP.matcher(tail).replaceAll("<ts>");
+        normalized = UUID.matcher(normalized).replaceAll("<uuid>");
+        normalized = IP.matcher(normalized).replaceAll("<ip>");
+        normalized = HEX.matcher(normalized).replaceAll("<hex>");
+        normalized = NUMBER.matcher(normalized).replaceAll("<n>");
+        normalized = WHITESPACE.matcher(normalized).replaceAll(" ").trim();
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(normalized.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Finds the container the classification names, among the init containers
+     * if it was found in one.
+     */
+    private static Container failingContainer(Pod pod, FailureClassification classification) {
+        if (pod.getSpec() == null || classification.container() == null) {
+            return null;
+        }
+        List<Container> containers = classification.initContainer()
+                ? pod.getSpec().getInitContainers()
+                : pod.getSpec().getContainers();
+        if (containers != null) {
+            for (Container container : containers) {
+                if (classification.container().equals(container.getName())) {
+                    return container;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String label(Pod pod, String name) {
+        Map<String, String> labels = pod.getMetadata().getLabels();
+        return labels != null ? labels.get(name) : null;
+    }
+}
@@ -0,0 +1,66 @@
+package com.kubesent.operator.model;
+
+import io.fabric8.kubernetes.api.model.OwnerReference;
+import io.fabric8.kubernetes.api.model.Pod;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The workload a pod belongs to. ReplicaSets created by a Deployment are
+ * folded into the Deployment using the pod-template-hash label; standalone
+ * pods are their own workload.
+ *
+ * @param namespace Workload namespace
+ * @param kind      Workload kind (Deployment, StatefulSet, DaemonSet, ReplicaSet, Job, Pod, ...)
+ * @param name      Workload name
+ * @param ownerUid  UID of the pod's controller owner, null for standalone pods
+ */
+public record WorkloadRef(String namespace, String kind, String name, String ownerUid) {
+
+    private static final Set<String> TEMPLATED_KINDS = Set.of("Deployment", "StatefulSet", "DaemonSet");
+
+    /**
+     * Resolves the workload of a pod from its owner references, without API calls.
+     *
+     * @param pod The pod
+     * @return Workload reference
+     */
+    public static WorkloadRef of(Pod pod) {
+        String namespace = pod.getMetadata().getNamespace();
+        List<OwnerReference> owners = pod.getMetadata().getOwnerReferences();
+        if (owners != null) {
+            for (OwnerReference owner : owners) {
+                if (!Boolean.TRUE.equals(owner.getController())) {
+                    continue;
+                }
+                Map<String, String> labels = pod.getMetadata().getLabels();
+                String templateHash = labels != null ? labels.get("pod-template-hash") : null;
+                if ("ReplicaSet".equals(owner.getKind()) && templateHash != null
+                        && owner.getName().endsWith("-" + templateHash)) {
+                    String deployment = owner.getName().substring(0,
+                            owner.getName().length() - templateHash.length() - 1);
+                    return new WorkloadRef(namespace, "Deployment", deployment, owner.getUid());
+                }
+                return new WorkloadRef(namespace, owner.getKind(), owner.getName(), owner.getUid());
+            }
+        }
+        return new WorkloadRef(namespace, "Pod", pod.getMetadata().getName(), null);
+    }
+
+    /**
+     * @return Whether pods of this workload are stamped from a pod template that
+     *         can be patched (Deployment, StatefulSet, DaemonSet)
+     */
+    public boolean isTemplated() {
+        return TEMPLATED_KINDS.contains(kind);
+    }
+
+    /**
+     * @return Key in the form namespace/Kind/name
+     */
+    public String key() {
+        return namespace + "/" + kind + "/" + name;
+    }
+}
@@ -0,0 +1,281 @@
+package com.kubesent.operator.queue;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Controller-style work queue keyed by a string (e.g. namespace/name).
+ * <ul>
+ * <li>Items added for a key that is already pending replace the pending item
+ * (de-duplication), so a burst of events collapses into one unit of work.</li>
+ * <li>A key handed to a worker is not handed out again until {@link #done}
+ * is called; items added meanwhile are re-queued on completion.</li>
+ * <li>{@link #addRateLimited} adds a key after a per-key exponential backoff
+ * that grows with {@link #backoff} and is reset by {@link #forget}.</li>
+ * </ul>
+ *
+ * @param <T> Item type carried with each key
+ */
+public class RateLimitingWorkQueue<T> {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+
+    private final Deque<String> queue = new ArrayDeque<>();
+    private final Map<String, Pending<T>> pending = new HashMap<>();
+    private final Map<String, T> delayed = new HashMap<>();
+    private final Set<String> processing = new HashSet<>();
+    private final Map<String, Integer> attempts = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService delayer;
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+    private boolean shuttingDown;
+
+    private final Counter addsCounter;
+    private final Counter dedupeCounter;
+    private final Counter retriesCounter;
+    private final Timer waitTimer;
+
+    public RateLimitingWorkQueue(String name, MeterRegistry meterRegistry, long baseDelayMs, long maxDelayMs) {
+        this.baseDelayMs = baseDelayMs;
+        this.maxDelayMs = maxDelayMs;
+        this.delayer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, name + "-delayer");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("kubesent.workqueue.depth", this, RateLimitingWorkQueue::depth)
+                .tag("queue", name)
+                .description("Keys waiting to be processed")
+                .register(meterRegistry);
+        Gauge.builder("kubesent.workqueue.in.flight", this, RateLimitingWorkQueue::inFlight)
+                .tag("queue", name)
+                .description("Keys currently being processed")
+                .register(meterRegistry);
+        this.addsCounter = Counter.builder("kubesent.workqueue.adds")
+                .tag("queue", name)
+                .register(meterRegistry);
+        this.dedupeCounter = Counter.builder("kubesent.workqueue.dedupe.hits")
+                .tag("queue", name)
+                .description("Adds collapsed into an already pending or delayed key")
+                .register(meterRegistry);
+        this.retriesCounter = Counter.builder("kubesent.workqueue.retries")
+                .tag("queue", name)
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("kubesent.workqueue.wait")
+                .tag("queue", name)
+                .description("Time from first add until a worker picks the key up")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * Adds or replaces the pending item for a key.
+     *
+     * @param key  Item key
+     * @param item Latest item for the key
+     */
+    public void add(String key, T item) {
+        lock.lock();
+        try {
+            if (shuttingDown) {
+                return;
+            }
+            addsCounter.increment();
+
+            Pending<T> existing = pending.get(key);
+            if (existing != null) {
+                // Keep the original enqueue time so wait time covers the whole burst
+                pending.put(key, new Pending<>(item, existing.enqueuedAtNanos()));
+                dedupeCounter.increment();
+                return;
+            }
+
+            pending.put(key, new Pending<>(item, System.nanoTime()));
+            if (!processing.contains(key)) {
+                queue.addLast(key);
+                notEmpty.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds a key after its current per-key backoff. Keys without recorded
+     * attempts are added immediately; a key already waiting out its backoff only
+     * has its item replaced.
+     *
+     * @param key  Item key
+     * @param item Latest item for the key
+     * @return Backoff delay applied
+     */
+    public Duration addRateLimited(String key, T item) {
+        int count = numRequeues(key);
+        if (count == 0) {
+            add(key, item);
+            return Duration.ZERO;
+        }
+
+        long delay = Math.min(maxDelayMs, baseDelayMs << Math.min(count - 1, 30));
+        lock.lock();
+        try {
+            if (shuttingDown) {
+                return Duration.ZERO;
+            }
+            if (delayed.put(key, item) != null) {
+                dedupeCounter.increment();
+                return Duration.ofMillis(delay);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        retriesCounter.increment();
+        delayer.schedule(() -> {
+            T latest;
+            lock.lock();
+            try {
+                latest = delayed.remove(key);
+            } finally {
+                lock.unlock();
+            }
+            if (latest != null) {
+                add(key, latest);
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+        return Duration.ofMillis(delay);
+    }
+
+    /**
+     * Records an attempt for a key, doubling the delay applied by the next
+     * {@link #addRateLimited} call (up to the configured maximum).
+     *
+     * @return Number of attempts recorded for the key
+     */
+    public int backoff(String key) {
+        return attempts.merge(key, 1, Integer::sum);
+    }
+
+    /**
+     * Clears the backoff history of a key, e.g. once the pod is healthy again.
+     */
+    public void forget(String key) {
+        attempts.remove(key);
+    }
+
+    /**
+     * @return Number of attempts recorded for the key since the last {@link #forget}
+     */
+    public int numRequeues(String key) {
+        return attempts.getOrDefault(key, 0);
+    }
+
+    /**
+     * Blocks until a key is available and marks it as processing.
+     *
+     * @return Next item, or null if the queue is shutting down
+     */
+    public Item<T> take() throws InterruptedException {
+        lock.lock();
+        try {
+            while (queue.isEmpty() && !shuttingDown) {
+                notEmpty.await();
+            }
+            if (shuttingDown) {
+                return null;
+            }
+
+            String key = queue.pollFirst();
+            Pending<T> entry = pending.remove(key);
+            processing.add(key);
+
+            waitTimer.record(System.nanoTime() - entry.enqueuedAtNanos(), TimeUnit.NANOSECONDS);
+            return new Item<>(key, entry.item());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Marks a key as finished. If it was added again while processing, it is
+     * put back on the queue.
+     */
+    public void done(String key) {
+        lock.lock();
+        try {
+            processing.remove(key);
+            if (pending.containsKey(key)) {
+                queue.addLast(key);
+                notEmpty.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Number of keys waiting for a worker
+     */
+    public int depth() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Number of keys currently held by workers
+     */
+    public int inFlight() {
+        lock.lock();
+        try {
+            return processing.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops handing out work and wakes up all waiting workers.
+     */
+    public void shutdown() {
+        lock.lock();
+        try {
+            shuttingDown = true;
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        delayer.shutdownNow();
+    }
+
+    /**
+     * A key handed out to a worker together with its latest item.
+     */
+    public record Item<T>(String key, T item) {
+    }
+
+    private record Pending<T>(T item, long enqueuedAtNanos) {
+    }
+}
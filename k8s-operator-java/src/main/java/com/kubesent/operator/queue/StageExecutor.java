@@ -0,0 +1,153 @@
+package com.kubesent.operator.queue;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executor for one pipeline stage with its own concurrency limit and bounded
+ * backlog. Tasks submitted beyond {@code concurrency + queueCapacity} are
+ * rejected with {@link RejectedExecutionException}, so a stage that is stuck on
+ * blocking I/O pushes back instead of absorbing work meant for other stages.
+ * <p>
+ * In {@link Mode#VIRTUAL} mode each task runs on its own virtual thread (Java
+ * 21+) and the limits are enforced with semaphores; on older runtimes the stage
+ * falls back to {@link Mode#PLATFORM}.
+ */
+@Slf4j
+public class StageExecutor implements Executor {
+
+    public enum Mode {
+        PLATFORM,
+        VIRTUAL
+    }
+
+    private final String name;
+    private final int concurrency;
+    private final int queueCapacity;
+    private final Mode mode;
+    private final ExecutorService delegate;
+
+    // Only used in VIRTUAL mode
+    private final Semaphore admitted;
+    private final Semaphore running;
+
+    public StageExecutor(String name, Mode mode, int concurrency, int queueCapacity) {
+        this.name = name;
+        this.concurrency = concurrency;
+        this.queueCapacity = queueCapacity;
+
+        ExecutorService virtual = mode == Mode.VIRTUAL ? newVirtualThreadExecutor() : null;
+        if (virtual != null) {
+            this.mode = Mode.VIRTUAL;
+            this.delegate = virtual;
+            this.admitted = new Semaphore(concurrency + queueCapacity);
+            this.running = new Semaphore(concurrency);
+        } else {
+            if (mode == Mode.VIRTUAL) {
+                log.warn("Virtual threads are not available on this JVM; stage '{}' uses platform threads", name);
+            }
+            this.mode = Mode.PLATFORM;
+            this.delegate = newPlatformExecutor(name, concurrency, queueCapacity);
+            this.admitted = null;
+            this.running = null;
+        }
+        log.info("Pipeline stage '{}' started. Mode: {}, concurrency: {}, queue capacity: {}",
+                name, this.mode, concurrency, queueCapacity);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (mode == Mode.PLATFORM) {
+            delegate.execute(task);
+            return;
+        }
+
+        if (!admitted.tryAcquire()) {
+            throw new RejectedExecutionException("Stage '" + name + "' is full");
+        }
+        delegate.execute(() -> {
+            try {
+                running.acquire();
+                try {
+                    task.run();
+                } finally {
+                    running.release();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                admitted.release();
+            }
+        });
+    }
+
+    /**
+     * @return Stage name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return Tasks waiting for a free slot in this stage
+     */
+    public int queued() {
+        if (mode == Mode.PLATFORM) {
+            return ((ThreadPoolExecutor) delegate).getQueue().size();
+        }
+        return Math.max(0, (concurrency + queueCapacity - admitted.availablePermits()) - active());
+    }
+
+    /**
+     * @return Tasks currently running in this stage
+     */
+    public int active() {
+        if (mode == Mode.PLATFORM) {
+            return ((ThreadPoolExecutor) delegate).getActiveCount();
+        }
+        return concurrency - running.availablePermits();
+    }
+
+    /**
+     * @return Maximum number of tasks running at once
+     */
+    public int concurrency() {
+        return concurrency;
+    }
+
+    public void shutdown() {
+        delegate.shutdownNow();
+    }
+
+    private static ExecutorService newPlatformExecutor(String name, int concurrency, int queueCapacity) {
+        AtomicInteger counter = new AtomicInteger();
+        return new ThreadPoolExecutor(concurrency, concurrency, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                r -> {
+                    Thread thread = new Thread(r, "pipeline-" + name + "-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            // Resolved reflectively so the operator still builds and runs on Java 17
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.kubesent.operator.resilience;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Adaptive limit on outstanding calls using additive increase /
+ * multiplicative decrease (AIMD), as in TCP congestion control:
+ * <ul>
+ * <li>a call that succeeds within the latency threshold while the limit is
+ * actually being used grows the limit by one;</li>
+ * <li>a call that fails or exceeds the threshold shrinks it by the backoff
+ * ratio.</li>
+ * </ul>
+ * Callers can be admitted against a share of the limit, so lower priority
+ * work is turned away first while higher priority work keeps headroom, even
+ * once the limit has dropped to a single call.
+ */
+public class AimdLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long latencyThresholdNanos;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int limit;
+
+    public AimdLimiter(int initialLimit, int minLimit, int maxLimit, double backoffRatio, long latencyThresholdMs) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(latencyThresholdMs);
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * Admits a call if in-flight calls are below the given share of the limit.
+     *
+     * @param share Fraction of the limit available to the caller (1.0 = all of it)
+     * @return True if admitted; the caller must then call {@link #release}
+     */
+    public boolean tryAcquire(double share) {
+        // Round down, so a partial share always leaves headroom above it: at a
+        // limit of 1 or 2 only full-share calls may take the last slot, and the
+        // limit recovers through them. Shedding by priority matters most then
+        int allowed = share >= 1.0 ? limit : (int) Math.floor(limit * share);
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Completes an admitted call and adjusts the limit.
+     *
+     * @param rttNanos Call duration
+     * @param dropped  Whether the call failed (error or timeout)
+     */
+    public void release(long rttNanos, boolean dropped) {
+        int current = inFlight.getAndDecrement();
+        synchronized (this) {
+            if (dropped || rttNanos > latencyThresholdNanos) {
+                limit = Math.max(minLimit, (int) (limit * backoffRatio));
+            } else if (current * 2 >= limit) {
+                // Only grow when the limit is actually the bottleneck
+                limit = Math.min(maxLimit, limit + 1);
+            }
+        }
+    }
+
+    /**
+     * @return Current limit
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return Calls currently admitted
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,162 @@
+package com.kubesent.operator.resilience;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Count-based circuit breaker.
+ * <ul>
+ * <li>CLOSED - calls pass; outcomes go into a sliding window of the last
+ * {@code windowSize} calls. Once at least {@code minimumCalls} are recorded and
+ * the failure rate reaches the threshold, the breaker opens.</li>
+ * <li>OPEN - calls are rejected until {@code openDurationMs} has passed.</li>
+ * <li>HALF_OPEN - up to {@code probes} calls are let through. If all of them
+ * succeed the breaker closes; any failure opens it again.</li>
+ * </ul>
+ * Every transition starts a new generation. A permit carries the generation it
+ * was issued in, and results of permits from an earlier generation are
+ * ignored, so a probe from one half-open phase cannot count in the next.
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    /**
+     * Permission for one call.
+     *
+     * @param state      State the call was admitted in
+     * @param generation Generation of that state
+     */
+    public record Permit(State state, long generation) {
+    }
+
+    private final String name;
+    private final double failureRateThreshold;
+    private final int minimumCalls;
+    private final long openDurationMs;
+    private final int probes;
+
+    // Ring buffer of recent outcomes in CLOSED state
+    private final boolean[] window;
+    private int windowNext;
+    private int windowCalls;
+    private int windowFailures;
+
+    private State state = State.CLOSED;
+    private long generation;
+    private long openedAtMillis;
+    private int probesInFlight;
+    private int probeSuccesses;
+
+    public CircuitBreaker(String name, int windowSize, int minimumCalls, double failureRateThreshold,
+                          long openDurationMs, int probes) {
+        this.name = name;
+        this.window = new boolean[windowSize];
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDurationMs = openDurationMs;
+        this.probes = probes;
+    }
+
+    /**
+     * Asks permission for a call.
+     *
+     * @return Permit to pass to {@link #onResult} or {@link #release}, or null
+     *         if the call is rejected
+     */
+    public synchronized Permit tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.currentTimeMillis() - openedAtMillis < openDurationMs) {
+                return null;
+            }
+            transition(State.HALF_OPEN);
+            probesInFlight = 0;
+            probeSuccesses = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesInFlight >= probes) {
+                return null;
+            }
+            probesInFlight++;
+        }
+        return new Permit(state, generation);
+    }
+
+    /**
+     * Records the outcome of an admitted call.
+     *
+     * @param permit  Permit returned by {@link #tryAcquire}
+     * @param success Whether the call succeeded
+     */
+    public synchronized void onResult(Permit permit, boolean success) {
+        if (permit.generation() != generation) {
+            // Late result from before the last transition
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            probesInFlight--;
+            if (!success) {
+                open();
+            } else if (++probeSuccesses >= probes) {
+                transition(State.CLOSED);
+                windowNext = 0;
+                windowCalls = 0;
+                windowFailures = 0;
+            }
+            return;
+        }
+
+        if (windowCalls == window.length) {
+            if (!window[windowNext]) {
+                windowFailures--;
+            }
+        } else {
+            windowCalls++;
+        }
+        window[windowNext] = success;
+        if (!success) {
+            windowFailures++;
+        }
+        windowNext = (windowNext + 1) % window.length;
+
+        if (windowCalls >= minimumCalls && (double) windowFailures / windowCalls >= failureRateThreshold) {
+            open();
+        }
+    }
+
+    /**
+     * Gives back a permit for a call that was never made, without recording an
+     * outcome.
+     *
+     * @param permit Permit returned by {@link #tryAcquire}
+     */
+    public synchronized void release(Permit permit) {
+        if (permit.generation() == generation && state == State.HALF_OPEN) {
+            probesInFlight--;
+        }
+    }
+
+    /**
+     * @return Current state
+     */
+    public synchronized State getState() {
+        return state;
+    }
+
+    private void open() {
+        transition(State.OPEN);
+        openedAtMillis = System.currentTimeMillis();
+    }
+
+    private void transition(State next) {
+        if (state != next) {
+            log.warn("Circuit breaker '{}' {} -> {}", name, state, next);
+            state = next;
+            generation++;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.kubesent.operator.resilience;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket shared by callers of several priorities: tokens refill at a
+ * fixed rate up to the burst size, and every call takes one. A caller that has
+ * to wait is served only once no caller of a higher priority is waiting, so
+ * under sustained load the lowest priority absorbs the delay.
+ * <p>
+ * Priorities are numbered from 0 (highest).
+ */
+public class PriorityTokenBucket {
+
+    // Re-check at least this often while only higher priorities are served
+    private static final long MAX_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final double tokensPerNano;
+    private final double burst;
+    private final int[] waiting;
+
+    private double tokens;
+    private long refilledAt;
+
+    /**
+     * @param qps        Sustained rate of tokens per second
+     * @param burst      Bucket size: calls allowed at once after an idle period
+     * @param priorities Number of priority levels
+     */
+    public PriorityTokenBucket(double qps, int burst, int priorities) {
+        if (qps <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Rate limit needs qps > 0 and burst >= 1");
+        }
+        this.tokensPerNano = qps / TimeUnit.SECONDS.toNanos(1);
+        this.burst = burst;
+        this.waiting = new int[priorities];
+        this.tokens = burst;
+        this.refilledAt = System.nanoTime();
+    }
+
+    /**
+     * Takes a token, blocking until one is available and no caller of a
+     * higher priority is waiting.
+     *
+     * @param priority Priority of the caller, 0 = highest
+     * @return Nanoseconds the caller was throttled, 0 if it was not
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public synchronized long acquire(int priority) throws InterruptedException {
+        refill();
+        if (tokens >= 1 && !waitingAtOrAbove(priority)) {
+            tokens -= 1;
+            return 0;
+        }
+
+        long start = System.nanoTime();
+        waiting[priority]++;
+        try {
+            while (true) {
+                refill();
+                if (tokens >= 1 && !waitingAtOrAbove(priority - 1)) {
+                    tokens -= 1;
+                    return System.nanoTime() - start;
+                }
+                long nanos = tokens >= 1 ? MAX_WAIT_NANOS
+                        : Math.min(MAX_WAIT_NANOS, (long) Math.ceil((1 - tokens) / tokensPerNano));
+                TimeUnit.NANOSECONDS.timedWait(this, Math.max(1, nanos));
+            }
+        } finally {
+            waiting[priority]--;
+            // Lower priorities may be next
+            notifyAll();
+        }
+    }
+
+    /**
+     * @return Tokens currently available
+     */
+    public synchronized double getAvailableTokens() {
+        refill();
+        return tokens;
+    }
+
+    /**
+     * @return Callers currently waiting for a token, across all priorities
+     */
+    public synchronized int getWaiting() {
+        int total = 0;
+        for (int count : waiting) {
+            total += count;
+        }
+        return total;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - refilledAt) * tokensPerNano);
+        refilledAt = now;
+    }
+
+    private boolean waitingAtOrAbove(int priority) {
+        for (int i = 0; i <= priority; i++) {
+            if (waiting[i] > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,295 @@
+package com.kubesent.operator.service;
+
+import com.kubesent.operator.model.FailureClassification;
+import com.kubesent.operator.model.FailureClassification.Severity;
+import com.kubesent.operator.resilience.AimdLimiter;
+import com.kubesent.operator.resilience.CircuitBreaker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Protects the AI Agent from overload and the pipeline from a slow or failing
+ * agent:
+ * <ul>
+ * <li>an {@link AimdLimiter} caps outstanding analysis calls and adapts the cap
+ * to the agent's observed latency and errors;</li>
+ * <li>a {@link CircuitBreaker} fails calls fast while the agent is unhealthy
+ * and lets a few probes through to detect recovery;</li>
+ * <li>failures are shed by priority when the limit is reached - the failure
+ * severity, adjusted by a per-namespace boost, picks the share of the limit a
+ * call may use, so a CRITICAL failure in production still gets a slot while
+ * LOW failures in dev namespaces wait;</li>
+ * <li>when several clusters have calls outstanding, each may hold at most an
+ * equal share of the limit, so one noisy cluster cannot take all of it. A
+ * cluster alone may use the whole limit.</li>
+ * </ul>
+ * Rejected calls fail with {@link RejectedExecutionException}, so the watcher
+ * requeues the failure with backoff instead of dropping it.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AiAgentGuard {
+
+    private static final Severity[] SEVERITIES = Severity.values();
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${kubesent.ai-agent.limiter.initial-limit:8}")
+    private Integer initialLimit;
+
+    @Value("${kubesent.ai-agent.limiter.min-limit:1}")
+    private Integer minLimit;
+
+    @Value("${kubesent.ai-agent.limiter.max-limit:64}")
+    private Integer maxLimit;
+
+    @Value("${kubesent.ai-agent.limiter.backoff-ratio:0.9}")
+    private Double backoffRatio;
+
+    @Value("${kubesent.ai-agent.limiter.latency-threshold-ms:30000}")
+    private Long latencyThresholdMs;
+
+    @Value("${kubesent.ai-agent.circuit-breaker.window-size:20}")
+    private Integer windowSize;
+
+    @Value("${kubesent.ai-agent.circuit-breaker.minimum-calls:10}")
+    private Integer minimumCalls;
+
+    @Value("${kubesent.ai-agent.circuit-breaker.failure-rate-threshold:0.5}")
+    private Double failureRateThreshold;
+
+    @Value("${kubesent.ai-agent.circuit-breaker.open-duration-ms:30000}")
+    private Long openDurationMs;
+
+    @Value("${kubesent.ai-agent.circuit-breaker.half-open-probes:2}")
+    private Integer halfOpenProbes;
+
+    @Value("${kubesent.ai-agent.shedding.shares:LOW=0.5,MEDIUM=0.7,HIGH=0.9,CRITICAL=1.0}")
+    private String shareRules;
+
+    @Value("${kubesent.ai-agent.shedding.namespace-boost:}")
+    private String namespaceBoostRules;
+
+    @Value("${kubesent.ai-agent.shedding.cluster-fair-share:true}")
+    private Boolean clusterFairShare;
+
+    private AimdLimiter limiter;
+    private CircuitBreaker circuitBreaker;
+    private final Map<Severity, Double> shares = new EnumMap<>(Severity.class);
+    private final List<NamespaceBoost> namespaceBoosts = new ArrayList<>();
+    private final Map<Severity, Counter> shedCounters = new EnumMap<>(Severity.class);
+    private Counter circuitOpenCounter;
+    private final Map<String, AtomicInteger> clusterInFlight = new ConcurrentHashMap<>();
+    private final Map<String, Counter> clusterShareCounters = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        limiter = new AimdLimiter(initialLimit, minLimit, maxLimit, backoffRatio, latencyThresholdMs);
+        circuitBreaker = new CircuitBreaker("ai-agent", windowSize, minimumCalls, failureRateThreshold,
+                openDurationMs, halfOpenProbes);
+
+        for (Severity severity : SEVERITIES) {
+            shares.put(severity, 1.0);
+        }
+        for (String[] rule : parsePairs(shareRules)) {
+            shares.put(Severity.valueOf(rule[0].toUpperCase()), Double.parseDouble(rule[1]));
+        }
+        for (String[] rule : parsePairs(namespaceBoostRules)) {
+            namespaceBoosts.add(new NamespaceBoost(rule[0], Integer.parseInt(rule[1])));
+        }
+
+        Gauge.builder("kubesent.ai.limit", limiter, AimdLimiter::getLimit)
+                .description("Current adaptive limit on outstanding AI Agent calls")
+                .register(meterRegistry);
+        Gauge.builder("kubesent.ai.in.flight", limiter, AimdLimiter::getInFlight)
+                .description("Outstanding AI Agent calls")
+                .register(meterRegistry);
+        Gauge.builder("kubesent.ai.circuit.state", circuitBreaker, b -> b.getState().ordinal())
+                .description("AI Agent circuit breaker state (0 closed, 1 open, 2 half-open)")
+                .register(meterRegistry);
+        for (Severity severity : SEVERITIES) {
+            shedCounters.put(severity, Counter.builder("kubesent.ai.rejected")
+                    .tag("reason", "shed")
+                    .tag("priority", severity.name())
+                    .description("AI Agent calls rejected before being sent")
+                    .register(meterRegistry));
+        }
+        circuitOpenCounter = Counter.builder("kubesent.ai.rejected")
+                .tag("reason", "circuit_open")
+                .tag("priority", "any")
+                .description("AI Agent calls rejected before being sent")
+                .register(meterRegistry);
+
+        log.info("AI Agent guard: initial limit {} ({}-{}), shares {}, namespace boosts {}",
+                limiter.getLimit(), minLimit, maxLimit, shares, namespaceBoosts);
+    }
+
+    /**
+     * Runs an AI Agent call if the circuit breaker and the limiter admit it.
+     *
+     * @param cluster        Cluster of the failing pod
+     * @param classification The failure being analyzed
+     * @param namespace      Namespace of the failing pod
+     * @param call           Starts the call
+     * @return The call's future, or a future failed with
+     *         {@link RejectedExecutionException} if the call was not admitted
+     */
+    public <T> CompletableFuture<T> call(String cluster, FailureClassification classification, String namespace,
+                                         Supplier<CompletableFuture<T>> call) {
+        AtomicInteger inFlightOfCluster = clusterInFlight(cluster);
+        if (!reserveClusterShare(inFlightOfCluster)) {
+            clusterShareCounters.get(cluster).increment();
+            return CompletableFuture.failedFuture(new RejectedExecutionException(
+                    "Cluster " + cluster + " holds its share of the AI Agent limit (" + limiter.getLimit() + ")"));
+        }
+
+        CircuitBreaker.Permit permit = circuitBreaker.tryAcquire();
+        if (permit == null) {
+            inFlightOfCluster.decrementAndGet();
+            circuitOpenCounter.increment();
+            return CompletableFuture.failedFuture(
+                    new RejectedExecutionException("AI Agent circuit breaker is open"));
+        }
+
+        Severity priority = priorityOf(classification, namespace);
+        if (!limiter.tryAcquire(shares.get(priority))) {
+            inFlightOfCluster.decrementAndGet();
+            circuitBreaker.release(permit);
+            shedCounters.get(priority).increment();
+            return CompletableFuture.failedFuture(new RejectedExecutionException(
+                    "AI Agent limit reached (" + limiter.getLimit() + "), shedding " + priority + " failure"));
+        }
+
+        long start = System.nanoTime();
+        CompletableFuture<T> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        return future.whenComplete((result, e) -> {
+            inFlightOfCluster.decrementAndGet();
+            limiter.release(System.nanoTime() - start, e != null);
+            circuitBreaker.onResult(permit, e == null);
+        });
+    }
+
+    /**
+     * Counts a call against its cluster if the cluster is within its share.
+     * Check and increment happen under one lock, so clusters admitted at the
+     * same time cannot exceed their shares together.
+     *
+     * @return Whether the call was counted; the caller must decrement the
+     *         count once the call is over or was not admitted after all
+     */
+    private boolean reserveClusterShare(AtomicInteger inFlightOfCluster) {
+        synchronized (clusterInFlight) {
+            if (clusterFairShare && !withinClusterShare(inFlightOfCluster)) {
+                return false;
+            }
+            inFlightOfCluster.incrementAndGet();
+            return true;
+        }
+    }
+
+    /**
+     * A cluster is within its share while it holds fewer calls than the limit
+     * divided by the clusters that have calls outstanding (itself included).
+     */
+    private boolean withinClusterShare(AtomicInteger inFlightOfCluster) {
+        int active = 1;
+        for (AtomicInteger other : clusterInFlight.values()) {
+            if (other != inFlightOfCluster && other.get() > 0) {
+                active++;
+            }
+        }
+        return inFlightOfCluster.get() < Math.ceil((double) limiter.getLimit() / active);
+    }
+
+    private AtomicInteger clusterInFlight(String cluster) {
+        return clusterInFlight.computeIfAbsent(cluster, name -> {
+            AtomicInteger inFlight = new AtomicInteger();
+            Gauge.builder("kubesent.ai.cluster.in.flight", inFlight, AtomicInteger::get)
+                    .tag("cluster", name)
+                    .description("Outstanding AI Agent calls of a cluster")
+                    .register(meterRegistry);
+            clusterShareCounters.put(name, Counter.builder("kubesent.ai.rejected")
+                    .tag("reason", "cluster_share")
+                    .tag("priority", "any")
+                    .description("AI Agent calls rejected before being sent")
+                    .register(meterRegistry));
+            return inFlight;
+        });
+    }
+
+    /**
+     * Severity moved up or down by the first matching namespace boost.
+     */
+    Severity priorityOf(FailureClassification classification, String namespace) {
+        int level = classification.severity().ordinal();
+        for (NamespaceBoost boost : namespaceBoosts) {
+            if (boost.matches(namespace)) {
+                level += boost.levels;
+                break;
+            }
+        }
+        return SEVERITIES[Math.max(0, Math.min(SEVERITIES.length - 1, level))];
+    }
+
+    private static List<String[]> parsePairs(String rules) {
+        List<String[]> pairs = new ArrayList<>();
+        if (rules == null || rules.isBlank()) {
+            return pairs;
+        }
+        for (String rule : rules.split(",")) {
+            String trimmed = rule.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            int eq = trimmed.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Invalid AI Agent guard rule (expected key=value): " + trimmed);
+            }
+            pairs.add(new String[]{trimmed.substring(0, eq).trim(), trimmed.substring(eq + 1).trim()});
+        }
+        return pairs;
+    }
+
+    /**
+     * Namespace pattern ({@code name} or {@code prefix*}) and the number of
+     * severity levels to add.
+     */
+    private record NamespaceBoost(String pattern, int levels) {
+
+        boolean matches(String namespace) {
+            if (namespace == null) {
+                return false;
+            }
+            return pattern.endsWith("*")
+                    ? namespace.startsWith(pattern.substring(0, pattern.length() - 1))
+                    : namespace.equals(pattern);
+        }
+
+        @Override
+        public String toString() {
+            return pattern + (levels >= 0 ? "+" : "") + levels;
+        }
+    }
+}
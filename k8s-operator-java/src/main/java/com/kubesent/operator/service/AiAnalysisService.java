@@ -1,14 +1,37 @@
 package com.kubesent.operator.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kubesent.operator.config.GzipRequestInterceptor;
 import com.kubesent.operator.model.AnalysisRequest;
 import com.kubesent.operator.model.AnalysisResponse;
+import com.kubesent.operator.model.BatchAnalysisRequest;
+import com.kubesent.operator.model.BatchAnalysisResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
 /**
  * Service to communicate with the Python AI Agent for pod failure analysis.
+ * Offers a blocking call, a non-blocking call that completes on the HTTP
+ * client's own threads, a batch call to the agent's /analyze/batch endpoint,
+ * and the submission of analysis jobs whose result the agent posts back.
  */
 @Slf4j
 @Service
@@ -17,10 +40,28 @@ public class AiAnalysisService {
     @Value("${kubesent.ai-agent.url:http://localhost:8000}")
     private String aiAgentUrl;
 
+    @Value("${kubesent.ai-agent.read-timeout-ms:60000}")
+    private Long readTimeoutMs;
+
+    @Value("${kubesent.ai-agent.gzip-requests:false}")
+    private Boolean gzipRequests;
+
+    @Value("${kubesent.ai-agent.gzip-min-bytes:1024}")
+    private Integer gzipMinBytes;
+
     private final RestTemplate restTemplate;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
 
-    public AiAnalysisService() {
-        this.restTemplate = new RestTemplate();
+    public AiAnalysisService(@Qualifier("aiAgentRestTemplate") RestTemplate restTemplate,
+                             @Qualifier("aiAgentHttpClient") HttpClient httpClient,
+                             ObjectMapper objectMapper,
+                             MeterRegistry meterRegistry) {
+        this.restTemplate = restTemplate;
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
     }
 
     /**
@@ -30,6 +71,7 @@ public class AiAnalysisService {
      * @return Analysis response with root cause and suggested fix
      */
     public AnalysisResponse analyzeFailure(AnalysisRequest request) {
+        Timer.Sample sample = Timer.start(meterRegistry);
         try {
             log.info("Sending analysis request to AI Agent for pod: {}/{}",
                     request.getNamespace(), request.getPodName());
@@ -45,11 +87,126 @@ public class AiAnalysisService {
                         response.getRootCause(), response.getConfidenceScore());
             }
 
+            sample.stop(timer("sync", "success"));
             return response;
         } catch (Exception e) {
+            sample.stop(timer("sync", "error"));
             log.error("Failed to get AI analysis for pod {}/{}: {}",
                     request.getNamespace(), request.getPodName(), e.getMessage());
             throw new RuntimeException("AI Analysis failed", e);
         }
     }
+
+    /**
+     * Sends pod failure data to AI Agent without blocking the calling thread.
+     *
+     * @param request Analysis request with logs and YAML
+     * @return Future completed with the analysis, or exceptionally if the call failed
+     */
+    public CompletableFuture<AnalysisResponse> analyzeFailureAsync(AnalysisRequest request) {
+        log.info("Sending async analysis request to AI Agent for pod: {}/{}",
+                request.getNamespace(), request.getPodName());
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        return postJson("/analyze", request, AnalysisResponse.class)
+                .whenComplete((response, e) -> {
+                    sample.stop(timer("async", e == null ? "success" : "error"));
+                    if (e != null) {
+                        log.error("Failed to get AI analysis for pod {}/{}: {}",
+                                request.getNamespace(), request.getPodName(), e.getMessage());
+                    } else if (response != null) {
+                        log.info("Received AI analysis for pod {}/{}. Root cause: {}, Confidence: {}",
+                                request.getNamespace(), request.getPodName(),
+                                response.getRootCause(), response.getConfidenceScore());
+                    }
+                });
+    }
+
+    /**
+     * Sends several pod failures to the AI Agent in a single request.
+     *
+     * @param requests Analysis requests
+     * @return Future with one response per request, in order; null where the agent reported an error
+     */
+    public CompletableFuture<List<AnalysisResponse>> analyzeBatch(List<AnalysisRequest> requests) {
+        log.info("Sending batch analysis request to AI Agent with {} items", requests.size());
+
+        BatchAnalysisRequest batch = BatchAnalysisRequest.builder().requests(requests).build();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        return postJson("/analyze/batch", batch, BatchAnalysisResponse.class)
+                .whenComplete((batchResponse, e) -> sample.stop(timer("batch", e == null ? "success" : "error")))
+                .thenApply(batchResponse -> {
+                    List<AnalysisResponse> responses = new ArrayList<>(requests.size());
+                    List<BatchAnalysisResponse.Result> results = batchResponse.getResults();
+                    for (int i = 0; i < requests.size(); i++) {
+                        BatchAnalysisResponse.Result result = results != null && i < results.size()
+                                ? results.get(i) : null;
+                        if (result == null || result.getError() != null) {
+                            AnalysisRequest request = requests.get(i);
+                            log.warn("Batch analysis failed for pod {}/{}: {}",
+                                    request.getNamespace(), request.getPodName(),
+                                    result != null ? result.getError() : "missing result");
+                            responses.add(null);
+                        } else {
+                            responses.add(result.getResponse());
+                        }
+                    }
+                    return responses;
+                });
+    }
+
+    /**
+     * Submits an analysis job to the AI Agent's /analyze/async endpoint. The
+     * request carries the job ID and the callback URL the agent POSTs the
+     * result to; the returned future only covers the submission.
+     *
+     * @param request Analysis request with job ID and callback URL set
+     * @return Future completed once the agent accepted the job
+     */
+    public CompletableFuture<Void> submitAnalysisJob(AnalysisRequest request) {
+        log.info("Submitting analysis job {} to AI Agent for pod: {}/{}",
+                request.getJobId(), request.getNamespace(), request.getPodName());
+
+        return postJson("/analyze/async", request, Map.class).thenApply(accepted -> null);
+    }
+
+    Timer timer(String mode, String outcome) {
+        return Timer.builder("kubesent.ai.analysis")
+                .tag("mode", mode)
+                .tag("outcome", outcome)
+                .description("Round trip of an AI Agent analysis call")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private <T> CompletableFuture<T> postJson(String path, Object body, Class<T> responseType) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(aiAgentUrl + path))
+                .timeout(Duration.ofMillis(readTimeoutMs))
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json");
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(body);
+            if (gzipRequests && json.length >= gzipMinBytes) {
+                builder.header("Content-Encoding", "gzip");
+                json = GzipRequestInterceptor.compress(json);
+            }
+            builder.POST(HttpRequest.BodyPublishers.ofByteArray(json));
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(new RuntimeException("AI Analysis failed", e));
+        }
+        HttpRequest httpRequest = builder.build();
+
+        return httpClient.sendAsync(httpRequest, HttpResponse.BodyHandlers.ofByteArray())
+                .thenApply(httpResponse -> {
+                    if (httpResponse.statusCode() / 100 != 2) {
+                        throw new CompletionException(new RuntimeException(
+                                "AI Analysis failed: HTTP " + httpResponse.statusCode()));
+                    }
+                    try {
+                        return objectMapper.readValue(httpResponse.body(), responseType);
+                    } catch (IOException e) {
+                        throw new CompletionException(new RuntimeException("AI Analysis failed", e));
+                    }
+                });
+    }
 }
@@ -0,0 +1,197 @@
+package com.kubesent.operator.service;
+
+import com.kubesent.operator.model.AnalysisResponse;
+import com.kubesent.operator.model.FailureFingerprint;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Size-bounded LRU cache of AI analyses keyed by {@link FailureFingerprint}.
+ * Lets replicas of the same workload that fail the same way share a single
+ * analysis instead of each making a round trip to the AI Agent. Entries expire
+ * after a TTL and are dropped when the owning workload's template revision
+ * changes. Shared by all clusters: fingerprints and revisions are kept per
+ * cluster, so same-named workloads in different clusters do not mix.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AnalysisCacheService {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${kubesent.analysis-cache.enabled:true}")
+    private Boolean enabled;
+
+    @Value("${kubesent.analysis-cache.max-size:1000}")
+    private Integer maxSize;
+
+    @Value("${kubesent.analysis-cache.ttl-seconds:600}")
+    private Long ttlSeconds;
+
+    @Value("${kubesent.analysis-cache.log-tail-lines:20}")
+    private Integer logTailLines;
+
+    // cluster/namespace/Kind/name -> last template revision seen
+    private final Map<String, String> workloadRevisions = new HashMap<>();
+    private Map<FailureFingerprint, Entry> entries;
+
+    private Counter hits;
+    private Counter misses;
+    private Counter evictions;
+    private Counter invalidations;
+
+    @PostConstruct
+    public void init() {
+        entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<FailureFingerprint, Entry> eldest) {
+                if (size() > maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        hits = Counter.builder("kubesent.analysis.cache.hits").register(meterRegistry);
+        misses = Counter.builder("kubesent.analysis.cache.misses").register(meterRegistry);
+        evictions = Counter.builder("kubesent.analysis.cache.evictions")
+                .description("Entries evicted by size or TTL")
+                .register(meterRegistry);
+        invalidations = Counter.builder("kubesent.analysis.cache.invalidations")
+                .description("Entries dropped because the workload spec changed")
+                .register(meterRegistry);
+        Gauge.builder("kubesent.analysis.cache.size", this, AnalysisCacheService::size)
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return Number of trailing log lines that go into the fingerprint
+     */
+    public int getLogTailLines() {
+        return logTailLines;
+    }
+
+    /**
+     * Looks up a cached analysis. Observing a new template revision for the
+     * fingerprint's workload invalidates the workload's existing entries first.
+     *
+     * @param fingerprint Failure fingerprint
+     * @return Cached analysis, or null on a miss
+     */
+    public synchronized AnalysisResponse get(FailureFingerprint fingerprint) {
+        if (!enabled) {
+            return null;
+        }
+        observeRevision(fingerprint);
+
+        Entry entry = entries.get(fingerprint);
+        if (entry != null && entry.expiresAtMillis() < System.currentTimeMillis()) {
+            entries.remove(fingerprint);
+            evictions.increment();
+            entry = null;
+        }
+
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        log.debug("Analysis cache hit for workload {} ({})", fingerprint.workload(), fingerprint.failureReason());
+        return entry.response();
+    }
+
+    /**
+     * Stores an analysis for a fingerprint.
+     *
+     * @param fingerprint Failure fingerprint
+     * @param response    Analysis to cache
+     */
+    public synchronized void put(FailureFingerprint fingerprint, AnalysisResponse response) {
+        if (!enabled || response == null) {
+            return;
+        }
+        observeRevision(fingerprint);
+        entries.put(fingerprint, new Entry(response, System.currentTimeMillis() + ttlSeconds * 1000));
+    }
+
+    /**
+     * Stores an analysis recorded earlier, e.g. from the incident journal after
+     * a restart. The TTL counts from when it was recorded.
+     *
+     * @param fingerprint      Failure fingerprint
+     * @param response         Recorded analysis
+     * @param recordedAtMillis When the analysis was recorded
+     * @return Whether the entry was still fresh and got cached
+     */
+    public synchronized boolean restore(FailureFingerprint fingerprint, AnalysisResponse response,
+                                        long recordedAtMillis) {
+        long expiresAtMillis = recordedAtMillis + ttlSeconds * 1000;
+        if (!enabled || response == null || expiresAtMillis < System.currentTimeMillis()) {
+            return false;
+        }
+        observeRevision(fingerprint);
+        entries.put(fingerprint, new Entry(response, expiresAtMillis));
+        return true;
+    }
+
+    /**
+     * Drops every cached analysis for a workload, e.g. after its spec changed.
+     *
+     * @param cluster  Cluster the workload runs in
+     * @param workload Workload key (namespace/Kind/name)
+     * @return Number of entries removed
+     */
+    public synchronized int invalidateWorkload(String cluster, String workload) {
+        int removed = 0;
+        Iterator<FailureFingerprint> it = entries.keySet().iterator();
+        while (it.hasNext()) {
+            FailureFingerprint fingerprint = it.next();
+            if (fingerprint.workload().equals(workload) && Objects.equals(fingerprint.cluster(), cluster)) {
+                it.remove();
+                removed++;
+            }
+        }
+        workloadRevisions.remove(cluster + "/" + workload);
+
+        if (removed > 0) {
+            invalidations.increment(removed);
+            log.info("Invalidated {} cached analyses for workload {} in cluster {}", removed, workload, cluster);
+        }
+        return removed;
+    }
+
+    /**
+     * @return Number of cached analyses
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void observeRevision(FailureFingerprint fingerprint) {
+        String key = fingerprint.cluster() + "/" + fingerprint.workload();
+        String previous = workloadRevisions.get(key);
+        if (previous != null && !previous.equals(fingerprint.revision())) {
+            log.info("Workload {} in cluster {} changed revision {} -> {}", fingerprint.workload(),
+                    fingerprint.cluster(), previous, fingerprint.revision());
+            invalidateWorkload(fingerprint.cluster(), fingerprint.workload());
+        }
+        workloadRevisions.put(key, fingerprint.revision());
+    }
+
+    private record Entry(AnalysisResponse response, long expiresAtMillis) {
+    }
+}
@@ -0,0 +1,203 @@
+package com.kubesent.operator.service;
+
+import com.kubesent.operator.model.AnalysisCallback;
+import com.kubesent.operator.model.AnalysisRequest;
+import com.kubesent.operator.model.AnalysisResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Callback mode of the AI Agent protocol: an analysis is submitted as a job
+ * and the agent POSTs the result to the operator's callback endpoint, so an
+ * outstanding analysis holds no thread and no connection while the LLM works.
+ * <p>
+ * Submitted jobs wait in a pending-job table keyed by a random job ID, which
+ * is also what authorizes a callback. A job whose callback does not arrive
+ * within the timeout fails, and the failure is retried like a failed call.
+ * Only the submission is an AI Agent call for the limiter and circuit breaker;
+ * outstanding jobs are bounded by {@code max-pending}. A callback completes its
+ * job on the executor given at submission, never on the request thread that
+ * delivered it.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AnalysisJobService {
+
+    private final AiAnalysisService aiAnalysisService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${kubesent.ai-agent.callback.enabled:false}")
+    private Boolean enabled;
+
+    @Value("${kubesent.ai-agent.callback.url:http://localhost:8080/api/v1/analysis-callbacks}")
+    private String callbackUrl;
+
+    @Value("${kubesent.ai-agent.callback.timeout-ms:300000}")
+    private Long timeoutMs;
+
+    @Value("${kubesent.ai-agent.callback.max-pending:10000}")
+    private Integer maxPending;
+
+    private final Map<String, PendingJob> pending = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("kubesent.ai.jobs.pending", pending, Map::size)
+                .description("Analysis jobs waiting for the AI Agent's callback")
+                .register(meterRegistry);
+        if (enabled) {
+            log.info("AI Agent callback mode: results are posted to {}, job timeout {} ms, at most {} pending",
+                    callbackUrl, timeoutMs, maxPending);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pending.values().forEach(job -> job.future.cancel(false));
+    }
+
+    /**
+     * @return Whether analyses are submitted as jobs with a callback
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return Whether max-pending jobs are waiting for their callback
+     */
+    public boolean isFull() {
+        return pending.size() >= maxPending;
+    }
+
+    /**
+     * Submits an analysis job and registers it as pending.
+     *
+     * @param request            Analysis request; its job ID and callback URL are set here
+     * @param completionExecutor Executor the job's result is completed on, and
+     *                           so the stages that depend on it run on
+     * @return Future completed with the job once the agent accepted it, or
+     *         exceptionally if the submission failed
+     */
+    public CompletableFuture<Job> submit(AnalysisRequest request, Executor completionExecutor) {
+        if (isFull()) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException(
+                    "Too many pending analysis jobs (" + maxPending + ")"));
+        }
+
+        String jobId = UUID.randomUUID().toString();
+        request.setJobId(jobId);
+        request.setCallbackUrl(callbackUrl);
+
+        PendingJob job = new PendingJob(request.getNamespace() + "/" + request.getPodName(),
+                new CompletableFuture<>(), completionExecutor, Timer.start(meterRegistry));
+        pending.put(jobId, job);
+        job.future.orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                .whenComplete((response, e) -> {
+                    pending.remove(jobId);
+                    String outcome = outcomeOf(e);
+                    job.sample.stop(aiAnalysisService.timer("callback", "success".equals(outcome) ? outcome : "error"));
+                    Counter.builder("kubesent.ai.jobs.completed")
+                            .tag("outcome", outcome)
+                            .description("Analysis jobs by outcome")
+                            .register(meterRegistry)
+                            .increment();
+                    if ("timeout".equals(outcome)) {
+                        log.warn("Analysis job {} for pod {} timed out after {} ms", jobId, job.pod, timeoutMs);
+                    }
+                });
+
+        return aiAnalysisService.submitAnalysisJob(request)
+                .whenComplete((accepted, e) -> {
+                    if (e != null) {
+                        log.error("Failed to submit analysis job {} for pod {}: {}", jobId, job.pod, e.getMessage());
+                        job.future.completeExceptionally(e);
+                    }
+                })
+                .thenApply(accepted -> new Job(jobId, job.future));
+    }
+
+    /**
+     * Hands the result posted by the AI Agent to its pending job's executor.
+     *
+     * @param callback Job ID and result
+     * @return False if no such job is pending (unknown, already completed or timed out)
+     * @throws RejectedExecutionException If the job's executor is full; the agent
+     *                                    should deliver the result again later
+     */
+    public boolean complete(AnalysisCallback callback) {
+        PendingJob job = callback.getJobId() != null ? pending.get(callback.getJobId()) : null;
+        if (job == null) {
+            log.warn("Callback for unknown or expired analysis job {}", callback.getJobId());
+            return false;
+        }
+
+        job.executor.execute(() -> complete(callback, job));
+        return true;
+    }
+
+    private void complete(AnalysisCallback callback, PendingJob job) {
+        if (callback.getError() != null || callback.getResponse() == null) {
+            log.error("AI analysis job {} for pod {} failed: {}", callback.getJobId(), job.pod,
+                    callback.getError() != null ? callback.getError() : "no response");
+            job.future.completeExceptionally(new RuntimeException("AI Analysis failed: "
+                    + (callback.getError() != null ? callback.getError() : "no response")));
+        } else {
+            log.info("Received AI analysis job {} for pod {}. Root cause: {}, Confidence: {}",
+                    callback.getJobId(), job.pod, callback.getResponse().getRootCause(),
+                    callback.getResponse().getConfidenceScore());
+            job.future.complete(callback.getResponse());
+        }
+    }
+
+    /**
+     * @return Jobs waiting for their callback
+     */
+    public int getPending() {
+        return pending.size();
+    }
+
+    private static String outcomeOf(Throwable e) {
+        if (e == null) {
+            return "success";
+        }
+        if (e instanceof TimeoutException) {
+            return "timeout";
+        }
+        return e instanceof CancellationException ? "cancelled" : "error";
+    }
+
+    /**
+     * An analysis job accepted by the AI Agent.
+     *
+     * @param id     Job ID
+     * @param result Completed with the analysis when the callback arrives, or
+     *               exceptionally if the agent reported an error or the job
+     *               timed out
+     */
+    public record Job(String id, CompletableFuture<AnalysisResponse> result) {
+    }
+
+    private record PendingJob(String pod, CompletableFuture<AnalysisResponse> future, Executor executor,
+                              Timer.Sample sample) {
+    }
+}
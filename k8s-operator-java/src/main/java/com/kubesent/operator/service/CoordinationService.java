@@ -0,0 +1,304 @@
+package com.kubesent.operator.service;
+
+import com.kubesent.operator.cluster.ClusterScoped;
+import com.kubesent.operator.config.ApiRateLimiter;
+import com.kubesent.operator.config.ApiRateLimiter.Priority;
+import com.kubesent.operator.coordination.ConsistentHashRing;
+import com.kubesent.operator.model.FailureFingerprint;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.coordination.v1.Lease;
+import io.fabric8.kubernetes.api.model.coordination.v1.LeaseBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.extended.leaderelection.LeaderCallbacks;
+import io.fabric8.kubernetes.client.extended.leaderelection.LeaderElectionConfigBuilder;
+import io.fabric8.kubernetes.client.extended.leaderelection.resourcelock.LeaseLock;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides which operator replica handles which pod failure, so replicas never
+ * analyze or patch the same pod twice.
+ * <ul>
+ * <li>{@code none} - single instance, this replica owns everything;</li>
+ * <li>{@code leader} - Lease-based leader election; only the leader processes
+ * failures, the others keep their caches warm for a fast failover;</li>
+ * <li>{@code sharded} - every replica heartbeats its own member Lease, and
+ * failures are split over the live members with a consistent hash of the
+ * namespace or owning workload. Ownership moves when replicas join or leave.</li>
+ * </ul>
+ * Listeners are notified whenever this replica's ownership may have grown, so
+ * failures it just took over can be picked up.
+ */
+@Slf4j
+@ClusterScoped
+@RequiredArgsConstructor
+public class CoordinationService {
+
+    private static final String GROUP_LABEL = "kubesent.io/shard-group";
+
+    private final KubernetesClient kubernetesClient;
+    private final MeterRegistry meterRegistry;
+    private final ApiRateLimiter rateLimiter;
+
+    @Value("${kubesent.coordination.mode:none}")
+    private String mode;
+
+    @Value("${kubesent.coordination.identity:${HOSTNAME:kubesent-local}}")
+    private String identity;
+
+    @Value("${kubesent.coordination.lease-namespace:${kubesent.kubernetes.namespace:default}}")
+    private String leaseNamespace;
+
+    @Value("${kubesent.coordination.lease-name:kubesent-operator}")
+    private String leaseName;
+
+    @Value("${kubesent.coordination.lease-duration-seconds:15}")
+    private Integer leaseDurationSeconds;
+
+    @Value("${kubesent.coordination.renew-period-ms:5000}")
+    private Long renewPeriodMs;
+
+    @Value("${kubesent.coordination.shard-by:namespace}")
+    private String shardBy;
+
+    @Value("${kubesent.coordination.virtual-nodes:64}")
+    private Integer virtualNodes;
+
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+    private ScheduledExecutorService scheduler;
+    private volatile CompletableFuture<?> election;
+    private volatile boolean leader;
+    private volatile ConsistentHashRing ring;
+    // System.nanoTime() the member Lease was last renewed at (sharded mode)
+    private volatile long renewedAtNanos;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        Gauge.builder("kubesent.coordination.leader", this, s -> s.leader ? 1 : 0)
+                .description("1 if this replica is the leader (leader mode)")
+                .register(meterRegistry);
+        Gauge.builder("kubesent.coordination.members", this, s -> s.ring != null ? s.ring.members().size() : 0)
+                .description("Live replicas sharing the work (sharded mode)")
+                .register(meterRegistry);
+
+        if ("leader".equalsIgnoreCase(mode)) {
+            scheduler = newScheduler();
+            elect();
+        } else if ("sharded".equalsIgnoreCase(mode)) {
+            scheduler = newScheduler();
+            // Join before anything is processed: until the members are known this
+            // replica owns nothing, rather than everything
+            heartbeat();
+            if (ring == null) {
+                log.warn("Could not join shard group {}; owning no failures until a heartbeat succeeds", leaseName);
+            }
+            scheduler.scheduleWithFixedDelay(this::heartbeat, renewPeriodMs, renewPeriodMs, TimeUnit.MILLISECONDS);
+        }
+        log.info("Coordination mode: {} (identity: {})", mode, identity);
+    }
+
+    /**
+     * @param listener Called when this replica may have taken over failures from another one
+     */
+    public void addOwnershipListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * @param pod The failing pod
+     * @return Whether this replica should process failures of the pod
+     */
+    public boolean owns(Pod pod) {
+        if ("leader".equalsIgnoreCase(mode)) {
+            return leader;
+        }
+        if (!"sharded".equalsIgnoreCase(mode)) {
+            return true;
+        }
+        ConsistentHashRing current = ring;
+        if (current == null || !renewed()) {
+            return false;
+        }
+        String key = "workload".equalsIgnoreCase(shardBy)
+                ? FailureFingerprint.workloadKey(pod)
+                : pod.getMetadata().getNamespace();
+        return identity.equals(current.ownerOf(key));
+    }
+
+    /**
+     * Campaigns for the leader Lease. When leadership is lost the elector
+     * completes and campaigning starts over.
+     */
+    private void elect() {
+        if (!running) {
+            return;
+        }
+        LeaderCallbacks callbacks = new LeaderCallbacks(
+                () -> {
+                    log.info("Became leader ({}/{})", leaseNamespace, leaseName);
+                    leader = true;
+                    notifyListeners();
+                },
+                () -> {
+                    log.warn("Lost leadership ({}/{})", leaseNamespace, leaseName);
+                    leader = false;
+                },
+                newLeader -> log.info("Current leader: {}", newLeader));
+
+        election = kubernetesClient.leaderElector()
+                .withConfig(new LeaderElectionConfigBuilder()
+                        .withName("kubesent-operator")
+                        .withLock(new LeaseLock(leaseNamespace, leaseName, identity))
+                        .withLeaseDuration(Duration.ofSeconds(leaseDurationSeconds))
+                        .withRenewDeadline(Duration.ofSeconds(leaseDurationSeconds * 2L / 3))
+                        .withRetryPeriod(Duration.ofMillis(renewPeriodMs / 2))
+                        .withLeaderCallbacks(callbacks)
+                        .withReleaseOnCancel()
+                        .build())
+                .build()
+                .start();
+
+        election.whenComplete((ignored, e) -> {
+            leader = false;
+            if (running) {
+                if (e != null) {
+                    log.warn("Leader election failed: {}", e.getMessage());
+                }
+                scheduler.schedule(this::elect, renewPeriodMs, TimeUnit.MILLISECONDS);
+            }
+        });
+    }
+
+    /**
+     * Whether the member Lease is still live as far as this replica knows: once
+     * it may have expired, the others rebuild their rings without this replica
+     * and take over its keys, so it must stop processing them too.
+     */
+    private boolean renewed() {
+        return System.nanoTime() - renewedAtNanos < TimeUnit.SECONDS.toNanos(leaseDurationSeconds);
+    }
+
+    /**
+     * Renews this replica's member Lease and rebuilds the ring from the Leases
+     * that have not expired. The ring stays unset until the first heartbeat
+     * succeeds, and is not used while the Lease may have expired.
+     */
+    private void heartbeat() {
+        try {
+            long startNanos = System.nanoTime();
+            ZonedDateTime now = ZonedDateTime.now();
+            Lease member = new LeaseBuilder()
+                    .withNewMetadata()
+                    .withName(memberLeaseName())
+                    .withNamespace(leaseNamespace)
+                    .addToLabels(GROUP_LABEL, leaseName)
+                    .endMetadata()
+                    .withNewSpec()
+                    .withHolderIdentity(identity)
+                    .withLeaseDurationSeconds(leaseDurationSeconds)
+                    .withRenewTime(now)
+                    .endSpec()
+                    .build();
+            rateLimiter.acquire(Priority.CONTROL);
+            kubernetesClient.leases().inNamespace(leaseNamespace).resource(member)
+                    .fieldManager("kubesent-operator")
+                    .forceConflicts()
+                    .serverSideApply();
+            boolean rejoined = ring != null && !renewed();
+            renewedAtNanos = startNanos;
+
+            List<String> live = new ArrayList<>();
+            rateLimiter.acquire(Priority.CONTROL);
+            for (Lease lease : kubernetesClient.leases().inNamespace(leaseNamespace)
+                    .withLabel(GROUP_LABEL, leaseName).list().getItems()) {
+                if (lease.getSpec() == null || lease.getSpec().getHolderIdentity() == null
+                        || lease.getSpec().getRenewTime() == null) {
+                    continue;
+                }
+                int duration = lease.getSpec().getLeaseDurationSeconds() != null
+                        ? lease.getSpec().getLeaseDurationSeconds() : leaseDurationSeconds;
+                if (lease.getSpec().getRenewTime().plusSeconds(duration).isAfter(now)) {
+                    live.add(lease.getSpec().getHolderIdentity());
+                }
+            }
+            if (!live.contains(identity)) {
+                live.add(identity);
+            }
+
+            ConsistentHashRing current = ring;
+            ConsistentHashRing updated = new ConsistentHashRing(live, virtualNodes);
+            if (current == null || !updated.members().equals(current.members())) {
+                log.info("Shard members changed: {} -> {}",
+                        current != null ? current.members() : List.of(), updated.members());
+                ring = updated;
+                notifyListeners();
+            } else if (rejoined) {
+                log.info("Shard heartbeat recovered; owning failures again");
+                notifyListeners();
+            }
+        } catch (Exception e) {
+            // Keep the last known ring, but owns() stops using it once the Lease may have expired
+            log.warn("Shard heartbeat failed: {}", e.getMessage());
+        }
+    }
+
+    private void notifyListeners() {
+        for (Runnable listener : listeners) {
+            try {
+                listener.run();
+            } catch (RuntimeException e) {
+                log.error("Ownership listener failed: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    private String memberLeaseName() {
+        return leaseName + "-" + identity;
+    }
+
+    private static ScheduledExecutorService newScheduler() {
+        return Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "coordination");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (election != null) {
+            // Releases the leader Lease so another replica takes over without waiting for expiry
+            election.cancel(true);
+        }
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        if ("sharded".equalsIgnoreCase(mode)) {
+            // Leave the group right away instead of waiting for the Lease to expire
+            try {
+                rateLimiter.acquire(Priority.CONTROL);
+                kubernetesClient.leases().inNamespace(leaseNamespace).withName(memberLeaseName()).delete();
+            } catch (Exception e) {
+                log.warn("Failed to delete member lease: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.kubesent.operator.service;
+
+import com.kubesent.operator.model.FailureClassification;
+import com.kubesent.operator.model.FailureClassification.Severity;
+import io.fabric8.kubernetes.api.model.ContainerState;
+import io.fabric8.kubernetes.api.model.ContainerStateTerminated;
+import io.fabric8.kubernetes.api.model.ContainerStatus;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodCondition;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Classifies pod failures from container statuses using rules loaded from
+ * configuration:
+ * <ul>
+ * <li>waiting/terminated reasons (CrashLoopBackOff, OOMKilled, ...), for init
+ * and app containers, current and last state;</li>
+ * <li>exit codes of terminated containers;</li>
+ * <li>restart counts above a threshold;</li>
+ * <li>running containers that stay unready past a grace period.</li>
+ * </ul>
+ * The last termination and the restart count describe the past: they only
+ * count while the container is not settled (running and ready, or an init
+ * container that completed) or when the last termination is recent, so a pod
+ * that recovered is not reported again and again.
+ * Rules are compiled once at startup into a reason map and an exit code table.
+ * Checking a healthy pod only walks the status lists and does not allocate.
+ * When several containers fail, the most severe classification wins.
+ */
+@Slf4j
+@Component
+public class FailureClassifier {
+
+    private static final int MAX_EXIT_CODE = 255;
+
+    @Value("${kubesent.classifier.reasons:CrashLoopBackOff=HIGH,OOMKilled=CRITICAL,ImagePullBackOff=MEDIUM,ErrImagePull=MEDIUM,Error=HIGH,Failed=HIGH}")
+    private String reasonRules;
+
+    @Value("${kubesent.classifier.exit-codes:137=CRITICAL,139=HIGH}")
+    private String exitCodeRules;
+
+    @Value("${kubesent.classifier.nonzero-exit-severity:MEDIUM}")
+    private String nonZeroExitSeverity;
+
+    @Value("${kubesent.classifier.restart-threshold:5}")
+    private Integer restartThreshold;
+
+    @Value("${kubesent.classifier.restart-severity:MEDIUM}")
+    private String restartSeverity;
+
+    @Value("${kubesent.classifier.recent-termination-seconds:600}")
+    private Long recentTerminationSeconds;
+
+    @Value("${kubesent.classifier.unready-grace-seconds:300}")
+    private Long unreadyGraceSeconds;
+
+    @Value("${kubesent.classifier.unready-severity:LOW}")
+    private String unreadySeverity;
+
+    private final Map<String, Severity> reasons = new HashMap<>();
+    private final Severity[] exitCodes = new Severity[MAX_EXIT_CODE + 1];
+    private final String[] exitCodeReasons = new String[MAX_EXIT_CODE + 1];
+    private Severity restartRule;
+    private Severity unreadyRule;
+
+    @PostConstruct
+    public void init() {
+        parseRules(reasonRules, reasons::put);
+
+        Severity nonZero = parseSeverity(nonZeroExitSeverity);
+        for (int code = 1; code <= MAX_EXIT_CODE; code++) {
+            exitCodes[code] = nonZero;
+        }
+        parseRules(exitCodeRules, (key, severity) -> {
+            int code = Integer.parseInt(key);
+            if (code < 0 || code > MAX_EXIT_CODE) {
+                throw new IllegalArgumentException("Exit code out of range: " + key);
+            }
+            exitCodes[code] = severity;
+        });
+        // Precomputed so classifying an exit code does not build a string
+        for (int code = 0; code <= MAX_EXIT_CODE; code++) {
+            exitCodeReasons[code] = "ExitCode" + code;
+        }
+
+        restartRule = restartThreshold > 0 ? parseSeverity(restartSeverity) : null;
+        unreadyRule = unreadyGraceSeconds > 0 ? parseSeverity(unreadySeverity) : null;
+
+        log.info("Failure classifier loaded {} reason rules (restart threshold: {}, unready grace: {}s)",
+                reasons.size(), restartThreshold, unreadyGraceSeconds);
+    }
+
+    /**
+     * Classifies a pod.
+     *
+     * @param pod The pod to check
+     * @return The most severe failure found, or null if the pod is healthy
+     */
+    public FailureClassification classify(Pod pod) {
+        if (pod.getStatus() == null) {
+            return null;
+        }
+        FailureClassification worst = classify(pod.getStatus().getInitContainerStatuses(), true, null, pod);
+        return classify(pod.getStatus().getContainerStatuses(), false, worst, pod);
+    }
+
+    private FailureClassification classify(List<ContainerStatus> statuses, boolean init,
+                                           FailureClassification worst, Pod pod) {
+        if (statuses == null) {
+            return worst;
+        }
+        // Indexed loop: no iterator allocation on the hot path
+        for (int i = 0; i < statuses.size(); i++) {
+            ContainerStatus status = statuses.get(i);
+            FailureClassification found = classify(status, init, pod);
+            if (found != null && found.isMoreSevereThan(worst)) {
+                worst = found;
+            }
+        }
+        return worst;
+    }
+
+    private FailureClassification classify(ContainerStatus status, boolean init, Pod pod) {
+        String container = status.getName();
+        ContainerState state = status.getState();
+
+        // Current state
+        if (state != null) {
+            if (state.getWaiting() != null) {
+                String reason = state.getWaiting().getReason();
+                Severity severity = reason != null ? reasons.get(reason) : null;
+                if (severity != null) {
+                    return new FailureClassification(severity, reason, container, init);
+                }
+            }
+            if (state.getTerminated() != null) {
+                FailureClassification found = classifyTerminated(state.getTerminated(), container, init);
+                if (found != null) {
+                    return found;
+                }
+            }
+        }
+
+        // Last termination and restarts, for recent failures of a restarted container
+        ContainerState lastState = status.getLastState();
+        ContainerStateTerminated lastTerminated = lastState != null ? lastState.getTerminated() : null;
+        if (!settled(status, init) || recent(lastTerminated)) {
+            if (lastTerminated != null) {
+                FailureClassification found = classifyTerminated(lastTerminated, container, init);
+                if (found != null) {
+                    return found;
+                }
+            }
+            Integer restarts = status.getRestartCount();
+            if (restartRule != null && restarts != null && restarts >= restartThreshold) {
+                return new FailureClassification(restartRule, "RestartThreshold", container, init);
+            }
+        }
+
+        // Running but failing its readiness probe
+        if (unreadyRule != null && !init && Boolean.FALSE.equals(status.getReady())
+                && state != null && state.getRunning() != null && unreadyPastGrace(pod)) {
+            return new FailureClassification(unreadyRule, "ReadinessProbeFailing", container, false);
+        }
+        return null;
+    }
+
+    private FailureClassification classifyTerminated(ContainerStateTerminated terminated, String container,
+                                                     boolean init) {
+        String reason = terminated.getReason();
+        Severity severity = reason != null ? reasons.get(reason) : null;
+        if (severity != null) {
+            return new FailureClassification(severity, reason, container, init);
+        }
+        Integer exitCode = terminated.getExitCode();
+        if (exitCode != null && exitCode >= 0 && exitCode <= MAX_EXIT_CODE && exitCodes[exitCode] != null) {
+            return new FailureClassification(exitCodes[exitCode], exitCodeReasons[exitCode], container, init);
+        }
+        return null;
+    }
+
+    /**
+     * @return Whether the container currently works: running and ready, or for
+     *         an init container, completed successfully
+     */
+    private static boolean settled(ContainerStatus status, boolean init) {
+        ContainerState state = status.getState();
+        if (state == null) {
+            return false;
+        }
+        if (init) {
+            return state.getTerminated() != null && Integer.valueOf(0).equals(state.getTerminated().getExitCode());
+        }
+        return state.getRunning() != null && Boolean.TRUE.equals(status.getReady());
+    }
+
+    /**
+     * @return Whether the termination finished within the recency window
+     */
+    private boolean recent(ContainerStateTerminated terminated) {
+        if (terminated == null || terminated.getFinishedAt() == null || recentTerminationSeconds <= 0) {
+            return false;
+        }
+        try {
+            return Instant.parse(terminated.getFinishedAt()).plusSeconds(recentTerminationSeconds)
+                    .isAfter(Instant.now());
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Checks whether the pod's Ready condition has been false for longer than
+     * the grace period.
+     */
+    private boolean unreadyPastGrace(Pod pod) {
+        List<PodCondition> conditions = pod.getStatus().getConditions();
+        if (conditions == null) {
+            return false;
+        }
+        for (int i = 0; i < conditions.size(); i++) {
+            PodCondition condition = conditions.get(i);
+            if ("Ready".equals(condition.getType()) && "False".equals(condition.getStatus())
+                    && condition.getLastTransitionTime() != null) {
+                try {
+                    Instant since = Instant.parse(condition.getLastTransitionTime());
+                    return since.plusSeconds(unreadyGraceSeconds).isBefore(Instant.now());
+                } catch (DateTimeParseException e) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void parseRules(String rules, BiConsumer<String, Severity> consumer) {
+        if (rules == null || rules.isBlank()) {
+            return;
+        }
+        for (String rule : rules.split(",")) {
+            String trimmed = rule.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            int eq = trimmed.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Invalid classifier rule (expected key=SEVERITY): " + trimmed);
+            }
+            consumer.accept(trimmed.substring(0, eq).trim(), parseSeverity(trimmed.substring(eq + 1)));
+        }
+    }
+
+    private static Severity parseSeverity(String value) {
+        if (value == null || value.isBlank() || "NONE".equalsIgnoreCase(value.trim())) {
+            return null;
+        }
+        return Severity.valueOf(value.trim().toUpperCase());
+    }
+}
@@ -0,0 +1,435 @@
+package com.kubesent.operator.service;
+
+import com.kubesent.operator.cluster.ClusterScoped;
+import com.kubesent.operator.model.AnalysisRequest.CorrelatedFailure;
+import com.kubesent.operator.model.AnalysisResponse;
+import com.kubesent.operator.model.FailureClassification;
+import com.kubesent.operator.model.WorkloadRef;
+import io.fabric8.kubernetes.api.model.Container;
+import io.fabric8.kubernetes.api.model.ContainerStatus;
+import io.fabric8.kubernetes.api.model.EnvFromSource;
+import io.fabric8.kubernetes.api.model.EnvVar;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.Volume;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Groups failures that happen together, so a bad node or a broken image or
+ * config rollout is analyzed once instead of once per failing workload.
+ * <p>
+ * Every detected failure is recorded under its correlation keys: the node it
+ * runs on, the image digest of the failing container and every ConfigMap and
+ * Secret it references, each combined with the failure reason. When at least
+ * {@code min-group-size} distinct workloads failed under one key within the
+ * sliding window, the failure is correlated: the first such failure leads and
+ * sends one aggregated analysis with a few samples of the others, and the rest
+ * of the group reuse that analysis for {@code result-ttl-ms}. A group keyed
+ * by node or config can mix unrelated workloads, so a member only takes the
+ * shared fix when it runs the same images in the containers the fix changes
+ * (see {@link #fits}); every other member is analyzed on its own, with the
+ * group's samples as context.
+ */
+@Slf4j
+@ClusterScoped
+@RequiredArgsConstructor
+public class FailureCorrelator {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${kubesent.correlation.enabled:true}")
+    private Boolean enabled;
+
+    @Value("${kubesent.correlation.window-ms:60000}")
+    private Long windowMs;
+
+    @Value("${kubesent.correlation.min-group-size:3}")
+    private Integer minGroupSize;
+
+    @Value("${kubesent.correlation.max-samples:5}")
+    private Integer maxSamples;
+
+    @Value("${kubesent.correlation.result-ttl-ms:300000}")
+    private Long resultTtlMs;
+
+    // Correlation key -> workload key -> latest failure, oldest first
+    private final Map<String, LinkedHashMap<String, Signal>> windows = new HashMap<>();
+    private final Map<String, Group> groups = new HashMap<>();
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("kubesent.correlation.groups", this, FailureCorrelator::activeGroups)
+                .description("Correlated incidents with a shared analysis")
+                .register(meterRegistry);
+    }
+
+    /**
+     * A group of correlated failures.
+     *
+     * @param key       Correlation key, e.g. {@code node=worker-3|NotReady}
+     * @param workloads Number of distinct workloads failing under the key
+     * @param samples   Most recent other failures of the group
+     */
+    public record Correlation(String key, int workloads, List<CorrelatedFailure> samples) {
+
+        /**
+         * @return What the failures have in common: node, image, configmap or secret
+         */
+        public String dimension() {
+            return key.substring(0, key.indexOf('='));
+        }
+    }
+
+    /**
+     * The shared analysis of a group.
+     *
+     * @param future         Completes with the aggregated analysis
+     * @param leader         Whether the caller's workload started it
+     * @param leaderWorkload Workload whose failure the analysis was sent for
+     * @param leaderImages   Image of each container of the leader's pod, by name
+     */
+    public record GroupAnalysis(CompletableFuture<AnalysisResponse> future, boolean leader, String leaderWorkload,
+                                Map<String, String> leaderImages) {
+    }
+
+    /**
+     * Records a detected failure.
+     *
+     * @param pod            The failing pod
+     * @param classification The detected failure
+     */
+    public void observe(Pod pod, FailureClassification classification) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Signal signal = new Signal(WorkloadRef.of(pod).key(), sample(pod, classification), now);
+        synchronized (this) {
+            for (String key : keys(pod, classification)) {
+                LinkedHashMap<String, Signal> window = windows.computeIfAbsent(key, k -> new LinkedHashMap<>());
+                // Re-insert so the map stays ordered by last failure
+                window.remove(signal.workload());
+                window.put(signal.workload(), signal);
+            }
+            prune(now);
+        }
+    }
+
+    /**
+     * Finds the largest group the failure belongs to.
+     *
+     * @param pod            The failing pod
+     * @param classification The detected failure
+     * @return The correlation, or null if the failure stands alone
+     */
+    public synchronized Correlation correlate(Pod pod, FailureClassification classification) {
+        if (!enabled) {
+            return null;
+        }
+        prune(System.currentTimeMillis());
+        String workload = WorkloadRef.of(pod).key();
+        String bestKey = null;
+        LinkedHashMap<String, Signal> best = null;
+        for (String key : keys(pod, classification)) {
+            LinkedHashMap<String, Signal> window = windows.get(key);
+            if (window != null && window.size() >= minGroupSize && (best == null || window.size() > best.size())) {
+                bestKey = key;
+                best = window;
+            }
+        }
+        if (best == null) {
+            return null;
+        }
+
+        List<Signal> recent = new ArrayList<>(best.values());
+        List<CorrelatedFailure> samples = new ArrayList<>(maxSamples);
+        for (int i = recent.size() - 1; i >= 0 && samples.size() < maxSamples; i--) {
+            if (!recent.get(i).workload().equals(workload)) {
+                samples.add(recent.get(i).sample());
+            }
+        }
+        return new Correlation(bestKey, best.size(), samples);
+    }
+
+    /**
+     * Joins the group's shared analysis, or starts it if there is none yet.
+     * A failed analysis is forgotten so the next member retries.
+     *
+     * @param correlation The group
+     * @param pod         The caller's failing pod
+     * @param analysis    Starts the aggregated analysis
+     * @return The group's analysis and whether the caller leads it
+     */
+    public GroupAnalysis analyze(Correlation correlation, Pod pod,
+                                 Supplier<CompletableFuture<AnalysisResponse>> analysis) {
+        String workload = WorkloadRef.of(pod).key();
+        Group group;
+        synchronized (this) {
+            Group existing = groups.get(correlation.key());
+            if (existing != null && existing.expiresAtMillis() > System.currentTimeMillis()) {
+                if (existing.leaderWorkload().equals(workload)) {
+                    return new GroupAnalysis(existing.future(), true, workload, existing.leaderImages());
+                }
+                Counter.builder("kubesent.correlation.joined")
+                        .tag("dimension", correlation.dimension())
+                        .description("Failures that reused the analysis of a correlated incident")
+                        .register(meterRegistry)
+                        .increment();
+                return new GroupAnalysis(existing.future(), false, existing.leaderWorkload(), existing.leaderImages());
+            }
+            group = new Group(new CompletableFuture<>(), workload, images(pod),
+                    System.currentTimeMillis() + resultTtlMs);
+            groups.put(correlation.key(), group);
+        }
+        log.warn("Correlated incident {}: {} workloads failing; sending one aggregated analysis",
+                correlation.key(), correlation.workloads());
+
+        CompletableFuture<AnalysisResponse> call;
+        try {
+            call = analysis.get();
+        } catch (RuntimeException e) {
+            call = CompletableFuture.failedFuture(e);
+        }
+        call.whenComplete((response, e) -> {
+            if (e != null) {
+                synchronized (this) {
+                    groups.remove(correlation.key(), group);
+                }
+                group.future().completeExceptionally(e);
+            } else {
+                group.future().complete(response);
+            }
+        });
+        return new GroupAnalysis(group.future(), true, workload, group.leaderImages());
+    }
+
+    /**
+     * Whether a shared analysis can be applied to another member of the group:
+     * its fix only changes containers, and the member runs the same image as
+     * the leader in each of them. Container names alone (e.g. {@code app}) say
+     * nothing about two workloads being alike, and a fix without containers
+     * would change unrelated pods wholesale.
+     *
+     * @param analysis     The group's analysis
+     * @param leaderImages Image of each container of the leader's pod, by name
+     * @param pod          Failing pod of the member
+     * @return True if the member can take the fix as is
+     */
+    public static boolean fits(AnalysisResponse analysis, Map<String, String> leaderImages, Pod pod) {
+        if (analysis == null || analysis.getSuggestedFixYaml() == null
+                || !Set.of("spec").containsAll(analysis.getSuggestedFixYaml().keySet())
+                || !(analysis.getSuggestedFixYaml().get("spec") instanceof Map<?, ?> spec)
+                || spec.isEmpty() || !Set.of("containers", "initContainers").containsAll(spec.keySet())) {
+            return false;
+        }
+        Map<String, String> images = images(pod);
+        for (Object entries : spec.values()) {
+            if (!(entries instanceof List<?> list) || list.isEmpty()) {
+                return false;
+            }
+            for (Object entry : list) {
+                Object name = entry instanceof Map<?, ?> fix ? fix.get("name") : null;
+                String image = name != null ? leaderImages.get(name.toString()) : null;
+                if (image == null || !image.equals(images.get(name.toString()))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return Image of every container and init container of the pod, by name
+     */
+    private static Map<String, String> images(Pod pod) {
+        Map<String, String> images = new HashMap<>();
+        if (pod.getSpec() != null) {
+            for (List<Container> containers : List.of(
+                    pod.getSpec().getContainers() != null ? pod.getSpec().getContainers() : List.<Container>of(),
+                    pod.getSpec().getInitContainers() != null ? pod.getSpec().getInitContainers()
+                            : List.<Container>of())) {
+                for (Container container : containers) {
+                    if (container.getImage() != null) {
+                        images.put(container.getName(), container.getImage());
+                    }
+                }
+            }
+        }
+        return images;
+    }
+
+    private synchronized int activeGroups() {
+        long now = System.currentTimeMillis();
+        int active = 0;
+        for (Group group : groups.values()) {
+            if (group.expiresAtMillis() > now) {
+                active++;
+            }
+        }
+        return active;
+    }
+
+    private void prune(long now) {
+        long cutoff = now - windowMs;
+        for (LinkedHashMap<String, Signal> window : windows.values()) {
+            Iterator<Signal> signals = window.values().iterator();
+            while (signals.hasNext()) {
+                if (signals.next().atMillis() >= cutoff) {
+                    break;
+                }
+                signals.remove();
+            }
+        }
+        windows.values().removeIf(Map::isEmpty);
+        groups.values().removeIf(group -> group.expiresAtMillis() <= now && group.future().isDone());
+    }
+
+    /**
+     * @return Correlation keys of a failure: node, image digest, and referenced
+     *         ConfigMaps and Secrets, each combined with the failure reason
+     */
+    static Set<String> keys(Pod pod, FailureClassification classification) {
+        Set<String> keys = new LinkedHashSet<>();
+        String suffix = "|" + classification.reason();
+        if (pod.getSpec() != null && pod.getSpec().getNodeName() != null) {
+            keys.add("node=" + pod.getSpec().getNodeName() + suffix);
+        }
+        String image = imageOf(pod, classification);
+        if (image != null) {
+            keys.add("image=" + image + suffix);
+        }
+        if (pod.getSpec() == null) {
+            return keys;
+        }
+        String namespace = pod.getMetadata().getNamespace();
+        Container container = container(pod, classification);
+        if (container != null) {
+            if (container.getEnvFrom() != null) {
+                for (EnvFromSource source : container.getEnvFrom()) {
+                    if (source.getConfigMapRef() != null) {
+                        keys.add("configmap=" + namespace + "/" + source.getConfigMapRef().getName() + suffix);
+                    }
+                    if (source.getSecretRef() != null) {
+                        keys.add("secret=" + namespace + "/" + source.getSecretRef().getName() + suffix);
+                    }
+                }
+            }
+            if (container.getEnv() != null) {
+                for (EnvVar env : container.getEnv()) {
+                    if (env.getValueFrom() == null) {
+                        continue;
+                    }
+                    if (env.getValueFrom().getConfigMapKeyRef() != null) {
+                        keys.add("configmap=" + namespace + "/"
+                                + env.getValueFrom().getConfigMapKeyRef().getName() + suffix);
+                    }
+                    if (env.getValueFrom().getSecretKeyRef() != null) {
+                        keys.add("secret=" + namespace + "/" + env.getValueFrom().getSecretKeyRef().getName() + suffix);
+                    }
+                }
+            }
+        }
+        if (pod.getSpec().getVolumes() != null) {
+            for (Volume volume : pod.getSpec().getVolumes()) {
+                if (volume.getConfigMap() != null) {
+                    keys.add("configmap=" + namespace + "/" + volume.getConfigMap().getName() + suffix);
+                }
+                if (volume.getSecret() != null) {
+                    keys.add("secret=" + namespace + "/" + volume.getSecret().getSecretName() + suffix);
+                }
+            }
+        }
+        return keys;
+    }
+
+    private static CorrelatedFailure sample(Pod pod, FailureClassification classification) {
+        ContainerStatus status = status(pod, classification);
+        String message = null;
+        if (status != null && status.getLastState() != null && status.getLastState().getTerminated() != null) {
+            message = status.getLastState().getTerminated().getMessage();
+        } else if (status != null && status.getState() != null && status.getState().getWaiting() != null) {
+            message = status.getState().getWaiting().getMessage();
+        }
+        return CorrelatedFailure.builder()
+                .podName(pod.getMetadata().getName())
+                .namespace(pod.getMetadata().getNamespace())
+                .workload(WorkloadRef.of(pod).key())
+                .failureReason(classification.reason())
+                .nodeName(pod.getSpec() != null ? pod.getSpec().getNodeName() : null)
+                .image(imageOf(pod, classification))
+                .terminationMessage(message)
+                .build();
+    }
+
+    /**
+     * @return Image digest of the failing container, or its image reference if
+     *         the digest is not known (e.g. the pull failed)
+     */
+    private static String imageOf(Pod pod, FailureClassification classification) {
+        ContainerStatus status = status(pod, classification);
+        if (status != null && status.getImageID() != null && !status.getImageID().isEmpty()) {
+            String imageId = status.getImageID();
+            int at = imageId.indexOf('@');
+            return at >= 0 ? imageId.substring(at + 1) : imageId;
+        }
+        Container container = container(pod, classification);
+        return container != null ? container.getImage() : null;
+    }
+
+    private static ContainerStatus status(Pod pod, FailureClassification classification) {
+        if (pod.getStatus() == null || classification.container() == null) {
+            return null;
+        }
+        List<ContainerStatus> statuses = classification.initContainer()
+                ? pod.getStatus().getInitContainerStatuses()
+                : pod.getStatus().getContainerStatuses();
+        if (statuses != null) {
+            for (ContainerStatus status : statuses) {
+                if (classification.container().equals(status.getName())) {
+                    return status;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Container container(Pod pod, FailureClassification classification) {
+        if (pod.getSpec() == null || classification.container() == null) {
+            return null;
+        }
+        List<Container> containers = classification.initContainer()
+                ? pod.getSpec().getInitContainers()
+                : pod.getSpec().getContainers();
+        if (containers != null) {
+            for (Container container : containers) {
+                if (classification.container().equals(container.getName())) {
+                    return container;
+                }
+            }
+        }
+        return null;
+    }
+
+    private record Signal(String workload, CorrelatedFailure sample, long atMillis) {
+    }
+
+    private record Group(CompletableFuture<AnalysisResponse> future, String leaderWorkload,
+                         Map<String, String> leaderImages, long expiresAtMillis) {
+    }
+}
@@ -0,0 +1,398 @@
+package com.kubesent.operator.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.kubesent.operator.cluster.ClusterScoped;
+import com.kubesent.operator.model.AnalysisRequest;
+import com.kubesent.operator.model.AnalysisResponse;
+import com.kubesent.operator.model.FailureClassification;
+import com.kubesent.operator.model.FailureFingerprint;
+import com.kubesent.operator.model.WorkloadRef;
+import com.kubesent.operator.queue.StageExecutor;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Processes a detected pod failure as a pipeline of stages:
+ * <ol>
+ * <li>FETCH - refresh the pod from the cache (or pick another failing replica
+ * of the same workload) and extract its logs</li>
+ * <li>SERIALIZE - apply a fast-path rule, or look up the analysis cache and
+ * build the AI request</li>
+ * <li>ANALYZE - call the AI Agent, once per group of correlated failures; in
+ * callback mode the call is a job whose result the agent posts back</li>
+ * <li>REMEDIATE - apply the suggested fix</li>
+ * </ol>
+ * Detections, analyses and remediation outcomes are recorded in the incident
+ * journal. Every stage runs on its own {@link StageExecutor}, so a slow stage (e.g. a
+ * force replace waiting for deletion) cannot starve the others.
+ */
+@Slf4j
+@ClusterScoped
+@RequiredArgsConstructor
+public class FailurePipelineService {
+
+    public enum Stage {
+        FETCH,
+        SERIALIZE,
+        ANALYZE,
+        REMEDIATE
+    }
+
+    private final PodCacheService podCacheService;
+    private final PodLogExtractor podLogExtractor;
+    private final PodProjectionSerializer podProjectionSerializer;
+    private final FailureClassifier failureClassifier;
+    private final FastPathService fastPathService;
+    private final AiAnalysisService aiAnalysisService;
+    private final AiAgentGuard aiAgentGuard;
+    private final AnalysisJobService analysisJobService;
+    private final FailureCorrelator failureCorrelator;
+    private final AnalysisCacheService analysisCacheService;
+    private final RemediationService remediationService;
+    private final IncidentJournalService incidentJournalService;
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${kubesent.pipeline.executor-mode:platform}")
+    private String executorMode;
+
+    @Value("${kubesent.pipeline.serializer:projection}")
+    private String serializer;
+
+    @Value("${kubesent.pipeline.analyze.async:true}")
+    private Boolean asyncAnalysis;
+
+    @Value("${kubesent.cluster.name:default}")
+    private String clusterName;
+
+    private final ObjectMapper yamlMapper = new ObjectMapper(new YAMLFactory());
+    private final Map<Stage, StageExecutor> executors = new EnumMap<>(Stage.class);
+    private final Map<Stage, Timer> stageTimers = new EnumMap<>(Stage.class);
+    private Timer serializeTimer;
+
+    @PostConstruct
+    public void init() {
+        StageExecutor.Mode mode = StageExecutor.Mode.valueOf(executorMode.toUpperCase());
+        for (Stage stage : Stage.values()) {
+            String prefix = "kubesent.pipeline." + stage.name().toLowerCase() + ".";
+            int concurrency = environment.getProperty(prefix + "concurrency", Integer.class, 4);
+            int queueCapacity = environment.getProperty(prefix + "queue-capacity", Integer.class, 100);
+            StageExecutor executor = new StageExecutor(stage.name().toLowerCase(), mode, concurrency, queueCapacity);
+            executors.put(stage, executor);
+
+            Gauge.builder("kubesent.pipeline.queued", executor, StageExecutor::queued)
+                    .tag("stage", executor.getName())
+                    .description("Tasks waiting for a stage thread")
+                    .register(meterRegistry);
+            Gauge.builder("kubesent.pipeline.active", executor, StageExecutor::active)
+                    .tag("stage", executor.getName())
+                    .description("Tasks running in a stage")
+                    .register(meterRegistry);
+            stageTimers.put(stage, Timer.builder("kubesent.pipeline.stage")
+                    .tag("stage", executor.getName())
+                    .description("Time spent in a stage, excluding time queued for it")
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+        serializeTimer = Timer.builder("kubesent.pod.serialize")
+                .tag("serializer", serializer.toLowerCase())
+                .description("Time to convert a pod to YAML for the AI Agent")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs a failure through all stages.
+     *
+     * @param pod            The failed pod
+     * @param classification The detected failure
+     * @return Future completed when remediation finished or the failure was skipped;
+     *         completed exceptionally if a stage failed or rejected the work
+     */
+    public CompletableFuture<Void> process(Pod pod, FailureClassification classification) {
+        FailureContext context = new FailureContext(pod, classification);
+        long start = System.nanoTime();
+
+        return CompletableFuture.supplyAsync(() -> timed(Stage.FETCH, () -> fetch(context)), executor(Stage.FETCH))
+                .thenApplyAsync(ctx -> ctx.isDone() ? ctx : timed(Stage.SERIALIZE, () -> serialize(ctx)),
+                        executor(Stage.SERIALIZE))
+                .thenComposeAsync(ctx -> ctx.isDone() ? CompletableFuture.completedFuture(ctx) : timedAnalyze(ctx),
+                        executor(Stage.ANALYZE))
+                .thenComposeAsync(ctx -> ctx.isDone() ? CompletableFuture.<Void>completedFuture(null)
+                        : timedRemediate(ctx), executor(Stage.REMEDIATE))
+                .whenComplete((ignored, e) -> {
+                    String outcome = e != null ? "failed" : context.isDone() ? "skipped" : "completed";
+                    Timer.builder("kubesent.pipeline.duration")
+                            .tag("outcome", outcome)
+                            .tag("severity", classification.severity().name())
+                            .description("Time from the start of processing to remediation")
+                            .publishPercentileHistogram()
+                            .register(meterRegistry)
+                            .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    if (e != null) {
+                        log.error("Failed to process pod failure for {}/{}: {}",
+                                context.namespace, context.podName, e.getMessage());
+                    }
+                });
+    }
+
+    /**
+     * @return Executor of a stage
+     */
+    public StageExecutor executor(Stage stage) {
+        return executors.get(stage);
+    }
+
+    private <T> T timed(Stage stage, Supplier<T> work) {
+        return stageTimers.get(stage).record(work);
+    }
+
+    private CompletableFuture<Void> timedRemediate(FailureContext context) {
+        long start = System.nanoTime();
+        return remediate(context).whenComplete((ignored, e) ->
+                stageTimers.get(Stage.REMEDIATE).record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+    }
+
+    private CompletableFuture<FailureContext> timedAnalyze(FailureContext context) {
+        long start = System.nanoTime();
+        return analyze(context).whenComplete((ignored, e) ->
+                stageTimers.get(Stage.ANALYZE).record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+    }
+
+    /**
+     * FETCH: refreshes the pod from the local cache and extracts its logs.
+     */
+    private FailureContext fetch(FailureContext context) {
+        log.info("Processing failure for pod {}/{}", context.namespace, context.podName);
+
+        // Prefer the latest cached state; the event may be stale by now
+        Pod current = podCacheService.getPod(context.namespace, context.podName);
+        FailureClassification classification = current != null ? failureClassifier.classify(current) : null;
+
+        // The replica that was queued may be gone or healthy while others of the
+        // same workload still fail; analyze one of those instead
+        WorkloadRef workload = WorkloadRef.of(context.pod);
+        if (classification == null && workload.isTemplated()) {
+            for (Pod sibling : podCacheService.byOwnerUid(workload.ownerUid())) {
+                classification = failureClassifier.classify(sibling);
+                if (classification != null) {
+                    log.info("Pod {}/{} is gone or recovered; using failing replica {} of {}",
+                            context.namespace, context.podName, sibling.getMetadata().getName(), workload.key());
+                    current = sibling;
+                    context.podName = sibling.getMetadata().getName();
+                    break;
+                }
+            }
+        }
+
+        if (current == null) {
+            log.info("Pod {}/{} no longer exists. Skipping.", context.namespace, context.podName);
+            return context.done();
+        }
+        context.pod = current;
+        if (classification == null) {
+            log.info("Pod {}/{} recovered before processing. Skipping.", context.namespace, context.podName);
+            return context.done();
+        }
+        context.classification = classification;
+
+        // Old replicas keep failing until the rollout of an already patched template replaces them
+        if (remediationService.isRemediated(current)) {
+            log.info("Workload {} was already remediated for the revision of pod {}/{}. Waiting for rollout.",
+                    workload.key(), context.namespace, context.podName);
+            return context.done();
+        }
+
+        // Stream current and previous logs of the failing containers
+        context.logs = podLogExtractor.extractPodLogs(current);
+        incidentJournalService.recordDetection(current, classification);
+        return context;
+    }
+
+    /**
+     * SERIALIZE: lets a fast-path rule handle the failure, else checks the
+     * analysis cache and, on a miss, builds the AI request.
+     */
+    private FailureContext serialize(FailureContext context) {
+        // Well-understood failures are fixed in process, without the AI Agent
+        context.analysis = fastPathService.evaluate(context.pod, context.classification);
+        if (context.analysis != null) {
+            return context;
+        }
+
+        // Replicas failing the same way share one analysis
+        context.fingerprint = FailureFingerprint.of(clusterName,
+                context.pod, context.classification, context.logs, analysisCacheService.getLogTailLines());
+        context.analysis = analysisCacheService.get(context.fingerprint);
+        if (context.analysis != null) {
+            log.info("Reusing cached analysis for pod {}/{} (workload {})",
+                    context.namespace, context.podName, context.fingerprint.workload());
+            return context;
+        }
+
+        context.request = AnalysisRequest.builder()
+                .podName(context.podName)
+                .namespace(context.namespace)
+                .failureReason(context.classification.reason())
+                .logs(context.logs)
+                .podYaml(convertPodToYaml(context.pod))
+                .build();
+        return context;
+    }
+
+    /**
+     * ANALYZE: calls the AI Agent unless the analysis came from the cache. The
+     * call goes through the {@link AiAgentGuard}, which may reject it when the
+     * agent is overloaded or unhealthy. A failure that is part of a correlated
+     * incident shares one aggregated analysis with the rest of the group when
+     * the fix fits it (same images in the containers the fix changes); other
+     * members get an analysis of their own, sent with the group as context.
+     */
+    private CompletableFuture<FailureContext> analyze(FailureContext context) {
+        if (context.analysis != null) {
+            return CompletableFuture.completedFuture(context);
+        }
+
+        FailureCorrelator.Correlation correlation = failureCorrelator.correlate(context.pod, context.classification);
+        if (correlation == null) {
+            return callAgent(context).thenApply(analysis -> analyzed(context, analysis));
+        }
+
+        // Leader and separately analyzed members both send the group as context
+        context.request.setCorrelationKey(correlation.key());
+        context.request.setCorrelatedCount(correlation.workloads());
+        context.request.setCorrelatedFailures(correlation.samples());
+        FailureCorrelator.GroupAnalysis group = failureCorrelator.analyze(correlation, context.pod,
+                () -> callAgent(context));
+        return group.future().thenCompose(analysis -> {
+            if (group.leader()) {
+                return CompletableFuture.completedFuture(analyzed(context, analysis));
+            }
+            if (FailureCorrelator.fits(analysis, group.leaderImages(), context.pod)) {
+                log.info("Pod {}/{} is part of correlated incident {} analyzed for {}: {}. Applying the shared fix.",
+                        context.namespace, context.podName, correlation.key(), group.leaderWorkload(),
+                        analysis.getRootCause());
+                // Not cached under this pod's fingerprint: the analysis is of another workload's failure
+                context.analysis = analysis;
+                return CompletableFuture.completedFuture(context);
+            }
+            log.info("Pod {}/{} is part of correlated incident {}, but the fix for {} does not fit it. "
+                    + "Analyzing it separately.", context.namespace, context.podName, correlation.key(),
+                    group.leaderWorkload());
+            return callAgent(context).thenApply(own -> analyzed(context, own));
+        });
+    }
+
+    private CompletableFuture<AnalysisResponse> callAgent(FailureContext context) {
+        if (analysisJobService.isEnabled()) {
+            if (analysisJobService.isFull()) {
+                return CompletableFuture.failedFuture(new RejectedExecutionException("Too many pending analysis jobs"));
+            }
+            // The guard covers the submission only: the agent posts the result
+            // back, and nothing is held open while it works
+            return aiAgentGuard.call(clusterName, context.classification, context.namespace,
+                            () -> analysisJobService.submit(context.request, executor(Stage.ANALYZE)))
+                    .thenCompose(AnalysisJobService.Job::result);
+        }
+        return aiAgentGuard.call(clusterName, context.classification, context.namespace, () -> asyncAnalysis
+                ? aiAnalysisService.analyzeFailureAsync(context.request)
+                : CompletableFuture.completedFuture(aiAnalysisService.analyzeFailure(context.request)));
+    }
+
+    private FailureContext analyzed(FailureContext context, AnalysisResponse analysis) {
+        analysisCacheService.put(context.fingerprint, analysis);
+        incidentJournalService.recordAnalysis(context.fingerprint, analysis);
+        context.analysis = analysis;
+        return context;
+    }
+
+    /**
+     * REMEDIATE: applies the suggested fix. A force replace releases the stage
+     * thread while it waits for the old pod to go away.
+     */
+    private CompletableFuture<Void> remediate(FailureContext context) {
+        AnalysisResponse analysis = context.analysis;
+        if (analysis != null && analysis.getSuggestedFixYaml() != null) {
+            return remediationService.applyRemediation(context.pod, analysis)
+                    .thenAccept(outcome -> incidentJournalService.recordRemediation(context.pod, outcome));
+        }
+        log.warn("No valid analysis received for pod {}/{}", context.namespace, context.podName);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Converts pod object to YAML string. Uses the compact diagnosis projection
+     * unless the full object dump is configured.
+     *
+     * @param pod The pod to convert
+     * @return YAML representation
+     */
+    private String convertPodToYaml(Pod pod) {
+        long start = System.nanoTime();
+        try {
+            return "full".equalsIgnoreCase(serializer)
+                    ? yamlMapper.writeValueAsString(pod)
+                    : podProjectionSerializer.toYaml(pod);
+        } catch (IOException e) {
+            log.error("Failed to convert pod to YAML: {}", e.getMessage());
+            return "Failed to convert pod to YAML";
+        } finally {
+            serializeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        log.info("Shutting down failure pipeline");
+        executors.values().forEach(StageExecutor::shutdown);
+    }
+
+    /**
+     * State of one failure as it moves through the stages.
+     */
+    private static final class FailureContext {
+
+        private final String namespace;
+        private String podName;
+        private Pod pod;
+        private FailureClassification classification;
+        private String logs;
+        private FailureFingerprint fingerprint;
+        private AnalysisRequest request;
+        private AnalysisResponse analysis;
+        private boolean done;
+
+        private FailureContext(Pod pod, FailureClassification classification) {
+            this.pod = pod;
+            this.namespace = pod.getMetadata().getNamespace();
+            this.podName = pod.getMetadata().getName();
+            this.classification = classification;
+        }
+
+        private FailureContext done() {
+            this.done = true;
+            return this;
+        }
+
+        private boolean isDone() {
+            return done;
+        }
+    }
+}
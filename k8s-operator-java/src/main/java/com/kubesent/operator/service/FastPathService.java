@@ -0,0 +1,119 @@
+package com.kubesent.operator.service;
+
+import com.kubesent.operator.fastpath.ImageTagTypoRule;
+import com.kubesent.operator.fastpath.OomMemoryBumpRule;
+import com.kubesent.operator.fastpath.RemediationRule;
+import com.kubesent.operator.model.AnalysisResponse;
+import com.kubesent.operator.model.FailureClassification;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.Quantity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Fast path for well-understood failures: evaluates {@link RemediationRule}s
+ * in process before the AI Agent is called. The first rule that recognizes a
+ * failure supplies its analysis, with a fixed confidence score, in
+ * milliseconds; failures no rule recognizes go to the agent. Built-in rules
+ * come first, then any {@link RemediationRule} beans.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FastPathService {
+
+    private final ObjectProvider<RemediationRule> customRules;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${kubesent.fast-path.enabled:true}")
+    private Boolean enabled;
+
+    @Value("${kubesent.fast-path.oom.enabled:true}")
+    private Boolean oomEnabled;
+
+    @Value("${kubesent.fast-path.oom.memory-factor:2.0}")
+    private Double oomMemoryFactor;
+
+    @Value("${kubesent.fast-path.oom.max-memory:8Gi}")
+    private String oomMaxMemory;
+
+    @Value("${kubesent.fast-path.oom.confidence:95.0}")
+    private Double oomConfidence;
+
+    @Value("${kubesent.fast-path.image-tag.enabled:true}")
+    private Boolean imageTagEnabled;
+
+    @Value("${kubesent.fast-path.image-tag.known-tags:latest,stable,main,master,release}")
+    private String knownTags;
+
+    @Value("${kubesent.fast-path.image-tag.confidence:80.0}")
+    private Double imageTagConfidence;
+
+    private final List<RemediationRule> rules = new ArrayList<>();
+    private final Map<String, Counter> matches = new HashMap<>();
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            log.info("Fast-path remediation disabled");
+            return;
+        }
+        if (oomEnabled) {
+            rules.add(new OomMemoryBumpRule(oomMemoryFactor, new Quantity(oomMaxMemory), oomConfidence));
+        }
+        if (imageTagEnabled) {
+            Set<String> tags = new LinkedHashSet<>();
+            Arrays.stream(knownTags.split(",")).map(String::trim).filter(t -> !t.isEmpty()).forEach(tags::add);
+            rules.add(new ImageTagTypoRule(tags, imageTagConfidence));
+        }
+        customRules.orderedStream().forEach(rules::add);
+
+        for (RemediationRule rule : rules) {
+            matches.put(rule.name(), Counter.builder("kubesent.fastpath.matches")
+                    .tag("rule", rule.name())
+                    .description("Failures handled by a fast-path rule instead of the AI Agent")
+                    .register(meterRegistry));
+        }
+        log.info("Fast-path remediation rules: {}", rules.stream().map(RemediationRule::name).toList());
+    }
+
+    /**
+     * @param pod            The failing pod
+     * @param classification The detected failure
+     * @return Analysis of the first matching rule, or null if the failure needs the AI Agent
+     */
+    public AnalysisResponse evaluate(Pod pod, FailureClassification classification) {
+        for (RemediationRule rule : rules) {
+            AnalysisResponse analysis;
+            try {
+                analysis = rule.evaluate(pod, classification);
+            } catch (RuntimeException e) {
+                // A broken rule must not block the failure from reaching the agent
+                log.warn("Fast-path rule {} failed for pod {}/{}: {}", rule.name(),
+                        pod.getMetadata().getNamespace(), pod.getMetadata().getName(), e.getMessage());
+                continue;
+            }
+            if (analysis != null) {
+                matches.get(rule.name()).increment();
+                log.info("Fast-path rule {} handled {} of pod {}/{}: {}", rule.name(), classification.reason(),
+                        pod.getMetadata().getNamespace(), pod.getMetadata().getName(), analysis.getRootCause());
+                return analysis;
+            }
+        }
+        return null;
+    }
+}
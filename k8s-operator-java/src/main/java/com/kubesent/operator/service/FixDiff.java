@@ -0,0 +1,224 @@
+package com.kubesent.operator.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.fabric8.kubernetes.api.model.Quantity;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Computes the effective change of a suggested fix against a live object, both
+ * as generic maps (e.g. from {@code ObjectMapper.convertValue}). Follows the
+ * strategic merge rules the fix is written for:
+ * <ul>
+ * <li>maps are compared key by key, keys the fix leaves out are unchanged;</li>
+ * <li>lists of named entries (containers, env, ports) are matched by name;</li>
+ * <li>resource quantities are compared by value, so {@code 1Gi} equals
+ * {@code 1024Mi};</li>
+ * <li>any other value, including a plain list, changes unless it is equal.</li>
+ * </ul>
+ * Also rebuilds what a field manager applied earlier from its
+ * {@code managedFields} entry, so a new change can be sent together with it.
+ */
+public final class FixDiff {
+
+    private static final Set<String> QUANTITY_KEYS = Set.of("limits", "requests");
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private FixDiff() {
+    }
+
+    /**
+     * @param fix  The suggested fix, or part of it
+     * @param live The corresponding part of the live object, null if absent
+     * @return The part of the fix that differs from the live object (named list
+     *         entries keep their name), or null if applying it changes nothing
+     */
+    public static Object change(Object fix, Object live) {
+        return change(fix, live, false);
+    }
+
+    /**
+     * @param fix  The suggested fix
+     * @param live The live object
+     * @return The part of the fix that differs from the live object, or null if
+     *         applying it changes nothing
+     */
+    public static Map<?, ?> change(Map<?, ?> fix, Map<?, ?> live) {
+        return (Map<?, ?>) change(fix, live, false);
+    }
+
+    private static Object change(Object fix, Object live, boolean quantities) {
+        if (fix instanceof Map<?, ?> fixMap) {
+            if (!(live instanceof Map<?, ?> liveMap)) {
+                return fix;
+            }
+            Map<Object, Object> changed = new LinkedHashMap<>();
+            for (Map.Entry<?, ?> entry : fixMap.entrySet()) {
+                Object value = change(entry.getValue(), liveMap.get(entry.getKey()),
+                        quantities || QUANTITY_KEYS.contains(entry.getKey()));
+                if (value != null) {
+                    changed.put(entry.getKey(), value);
+                }
+            }
+            return changed.isEmpty() ? null : changed;
+        }
+        if (fix instanceof List<?> fixList && isNamed(fixList)) {
+            if (!(live instanceof List<?> liveList)) {
+                return fix;
+            }
+            List<Object> changed = new ArrayList<>();
+            for (Object entry : fixList) {
+                Object name = ((Map<?, ?>) entry).get("name");
+                Object value = change(entry, liveList.stream()
+                        .filter(l -> l instanceof Map<?, ?> m && name.equals(m.get("name")))
+                        .findFirst()
+                        .orElse(null), false);
+                if (value instanceof Map<?, ?> valueMap) {
+                    Map<Object, Object> named = new LinkedHashMap<>();
+                    named.put("name", name);
+                    named.putAll(valueMap);
+                    changed.add(named);
+                }
+            }
+            return changed.isEmpty() ? null : changed;
+        }
+        return sameValue(fix, live, quantities) ? null : fix;
+    }
+
+    /**
+     * Picks the fields a manager owns out of a live object.
+     *
+     * @param fields The manager's field set ({@code fieldsV1} of its managedFields entry)
+     * @param live   The live object, or the part the field set describes
+     * @return The owned part of the live object; list entries keep their keys
+     */
+    public static Object owned(Map<?, ?> fields, Object live) {
+        if (live instanceof Map<?, ?> liveMap) {
+            Map<Object, Object> owned = new LinkedHashMap<>();
+            for (Map.Entry<?, ?> entry : fields.entrySet()) {
+                String path = entry.getKey().toString();
+                if (path.startsWith("f:") && liveMap.containsKey(path.substring(2))) {
+                    Object value = liveMap.get(path.substring(2));
+                    owned.put(path.substring(2), ownedValue((Map<?, ?>) entry.getValue(), value));
+                }
+            }
+            return owned;
+        }
+        if (live instanceof List<?> liveList) {
+            List<Object> owned = new ArrayList<>();
+            for (Map.Entry<?, ?> entry : fields.entrySet()) {
+                String path = entry.getKey().toString();
+                if (path.startsWith("k:")) {
+                    Map<?, ?> keys = parse(path.substring(2), Map.class);
+                    liveList.stream()
+                            .filter(element -> element instanceof Map<?, ?> m && matches(keys, m))
+                            .findFirst()
+                            .ifPresent(element -> {
+                                Map<Object, Object> keyed = new LinkedHashMap<>(keys);
+                                if (ownedValue((Map<?, ?>) entry.getValue(), element) instanceof Map<?, ?> rest) {
+                                    keyed.putAll(rest);
+                                }
+                                owned.add(keyed);
+                            });
+                } else if (path.startsWith("v:")) {
+                    owned.add(parse(path.substring(2), Object.class));
+                }
+            }
+            return owned;
+        }
+        return live;
+    }
+
+    /**
+     * Lays a change over a configuration: maps are merged key by key and lists
+     * of named entries entry by entry; anything else is replaced.
+     *
+     * @return The merged configuration; neither argument is modified
+     */
+    public static Object merge(Object base, Object change) {
+        if (base instanceof Map<?, ?> baseMap && change instanceof Map<?, ?> changeMap) {
+            Map<Object, Object> merged = new LinkedHashMap<>(baseMap);
+            changeMap.forEach((key, value) -> merged.put(key, merge(baseMap.get(key), value)));
+            return merged;
+        }
+        if (base instanceof List<?> baseList && change instanceof List<?> changeList
+                && isNamed(baseList) && isNamed(changeList)) {
+            List<Object> merged = new ArrayList<>(baseList);
+            for (Object entry : changeList) {
+                Object name = ((Map<?, ?>) entry).get("name");
+                int index = -1;
+                for (int i = 0; i < merged.size(); i++) {
+                    if (name.equals(((Map<?, ?>) merged.get(i)).get("name"))) {
+                        index = i;
+                    }
+                }
+                if (index < 0) {
+                    merged.add(entry);
+                } else {
+                    merged.set(index, merge(merged.get(index), entry));
+                }
+            }
+            return merged;
+        }
+        return change;
+    }
+
+    /**
+     * A field with no owned children is owned as a whole; "." alone only marks
+     * the field as present.
+     */
+    private static Object ownedValue(Map<?, ?> children, Object value) {
+        if (children.isEmpty()) {
+            return value;
+        }
+        if (children.size() == 1 && children.containsKey(".")) {
+            if (value instanceof Map) {
+                return new LinkedHashMap<>();
+            }
+            return value instanceof List ? new ArrayList<>() : value;
+        }
+        return owned(children, value);
+    }
+
+    private static boolean matches(Map<?, ?> keys, Map<?, ?> element) {
+        return keys.entrySet().stream().allMatch(key ->
+                String.valueOf(key.getValue()).equals(String.valueOf(element.get(key.getKey()))));
+    }
+
+    private static <T> T parse(String json, Class<T> type) {
+        try {
+            return JSON.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid managed field key: " + json, e);
+        }
+    }
+
+    private static boolean isNamed(List<?> list) {
+        return !list.isEmpty() && list.stream().allMatch(e -> e instanceof Map<?, ?> m && m.get("name") != null);
+    }
+
+    private static boolean sameValue(Object fix, Object live, boolean quantities) {
+        if (Objects.equals(fix, live)) {
+            return true;
+        }
+        if (fix == null || live == null) {
+            return false;
+        }
+        if (quantities) {
+            try {
+                return new Quantity(fix.toString()).getNumericalAmount()
+                        .compareTo(new Quantity(live.toString()).getNumericalAmount()) == 0;
+            } catch (RuntimeException e) {
+                return false;
+            }
+        }
+        // Numbers and booleans written as strings, e.g. port "8080"
+        return !(fix instanceof List) && fix.toString().equals(live.toString());
+    }
+}
@@ -0,0 +1,213 @@
+package com.kubesent.operator.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kubesent.operator.cluster.ClusterScoped;
+import com.kubesent.operator.journal.IncidentJournal;
+import com.kubesent.operator.model.AnalysisResponse;
+import com.kubesent.operator.model.FailureClassification;
+import com.kubesent.operator.model.FailureFingerprint;
+import com.kubesent.operator.model.WorkloadRef;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records detections, AI analyses and remediation outcomes in an
+ * {@link IncidentJournal} so a restarted operator does not re-analyze or
+ * re-patch failures it already handled. On startup the journal is replayed into
+ * the {@link AnalysisCacheService} (analyses still within their TTL) and the
+ * {@link RemediationService} (patched workload revisions). The journal is
+ * flushed and compacted periodically. Journal I/O errors are logged and never
+ * fail the pipeline.
+ */
+@Slf4j
+@ClusterScoped
+@RequiredArgsConstructor
+public class IncidentJournalService {
+
+    private final AnalysisCacheService analysisCacheService;
+    private final RemediationService remediationService;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${kubesent.journal.enabled:true}")
+    private Boolean enabled;
+
+    @Value("${kubesent.journal.path:${java.io.tmpdir}/kubesent/incidents.journal}")
+    private String path;
+
+    @Value("${kubesent.journal.initial-size-mb:4}")
+    private Integer initialSizeMb;
+
+    @Value("${kubesent.journal.max-size-mb:64}")
+    private Integer maxSizeMb;
+
+    @Value("${kubesent.journal.retention-hours:24}")
+    private Long retentionHours;
+
+    @Value("${kubesent.journal.flush-interval-ms:1000}")
+    private Long flushIntervalMs;
+
+    @Value("${kubesent.journal.compaction-interval-ms:600000}")
+    private Long compactionIntervalMs;
+
+    private IncidentJournal journal;
+    private ScheduledExecutorService scheduler;
+    private Counter appendErrors;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            log.info("Incident journal disabled");
+            return;
+        }
+        appendErrors = Counter.builder("kubesent.journal.errors")
+                .description("Journal entries that could not be written")
+                .register(meterRegistry);
+
+        long start = System.nanoTime();
+        try {
+            journal = new IncidentJournal(Path.of(path), initialSizeMb << 20, maxSizeMb << 20,
+                    TimeUnit.HOURS.toMillis(retentionHours));
+        } catch (IOException e) {
+            // Run without recovery rather than not at all
+            log.error("Failed to open incident journal {}: {}", path, e.getMessage(), e);
+            return;
+        }
+        restore();
+        log.info("Restored incident journal {} in {} ms", path,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+        Gauge.builder("kubesent.journal.used", journal, IncidentJournal::usedBytes)
+                .baseUnit("bytes")
+                .description("Bytes used in the incident journal")
+                .register(meterRegistry);
+        Gauge.builder("kubesent.journal.capacity", journal, IncidentJournal::capacityBytes)
+                .baseUnit("bytes")
+                .description("Size of the incident journal mapping")
+                .register(meterRegistry);
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "incident-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(journal::force, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::compact, compactionIntervalMs, compactionIntervalMs,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Records that a failure was picked up for processing.
+     *
+     * @param pod            The failing pod
+     * @param classification The detected failure
+     */
+    public void recordDetection(Pod pod, FailureClassification classification) {
+        append(() -> new IncidentJournal.Detection(System.currentTimeMillis(), podKey(pod),
+                WorkloadRef.of(pod).key(), classification.reason(), classification.severity()));
+    }
+
+    /**
+     * Records an analysis returned by the AI Agent.
+     *
+     * @param fingerprint Fingerprint the analysis is cached under
+     * @param response    The analysis
+     */
+    public void recordAnalysis(FailureFingerprint fingerprint, AnalysisResponse response) {
+        if (response == null) {
+            return;
+        }
+        append(() -> new IncidentJournal.Analysis(System.currentTimeMillis(), fingerprint,
+                objectMapper.writeValueAsBytes(response)));
+    }
+
+    /**
+     * Records the outcome of a remediation.
+     *
+     * @param pod     The remediated pod
+     * @param outcome Outcome tag from {@link RemediationService#applyRemediation}
+     */
+    public void recordRemediation(Pod pod, String outcome) {
+        append(() -> new IncidentJournal.Remediation(System.currentTimeMillis(), podKey(pod),
+                WorkloadRef.of(pod).key(), FailureFingerprint.revision(pod), outcome));
+    }
+
+    private void restore() {
+        int analyses = 0;
+        int remediations = 0;
+        for (IncidentJournal.Entry entry : journal.entries()) {
+            try {
+                if (entry instanceof IncidentJournal.Analysis analysis) {
+                    AnalysisResponse response = objectMapper.readValue(analysis.responseJson(), AnalysisResponse.class);
+                    if (analysisCacheService.restore(analysis.fingerprint(), response, analysis.timestamp())) {
+                        analyses++;
+                    }
+                } else if (entry instanceof IncidentJournal.Remediation remediation
+                        && "workload_patched".equals(remediation.outcome())) {
+                    remediationService.restoreRemediated(remediation.workload(), remediation.revision());
+                    remediations++;
+                }
+            } catch (IOException e) {
+                log.warn("Skipping unreadable journal entry: {}", e.getMessage());
+            }
+        }
+        log.info("Restored {} analyses and {} remediated workloads from the incident journal",
+                analyses, remediations);
+    }
+
+    private void append(EntrySupplier entry) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.append(entry.get());
+        } catch (IOException | RuntimeException e) {
+            appendErrors.increment();
+            log.warn("Failed to write incident journal entry: {}", e.getMessage());
+        }
+    }
+
+    private void compact() {
+        try {
+            journal.compact();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Incident journal compaction failed: {}", e.getMessage());
+        }
+    }
+
+    private static String podKey(Pod pod) {
+        return pod.getMetadata().getNamespace() + "/" + pod.getMetadata().getName();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                log.warn("Failed to close incident journal: {}", e.getMessage());
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface EntrySupplier {
+        IncidentJournal.Entry get() throws IOException;
+    }
+}
@@ -0,0 +1,190 @@
+package com.kubesent.operator.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Accumulates the tail of a log stream within a byte budget, folding noise as
+ * lines arrive:
+ * <ul>
+ * <li>consecutive lines that only differ in digits collapse into one line plus
+ * a "repeated N times" marker;</li>
+ * <li>stack frames already seen earlier in the stream (a repeated stack trace)
+ * collapse into a single "N repeated frames omitted" marker.</li>
+ * </ul>
+ * When the budget is exceeded the oldest lines are dropped, since the end of
+ * the log is what explains a crash; a single line larger than the whole
+ * budget is cut to fit. Not thread-safe; use one per stream.
+ */
+public class LogFolder {
+
+    private static final int MAX_SEEN_FRAMES = 10_000;
+
+    private final int byteBudget;
+    private final Deque<Line> lines = new ArrayDeque<>();
+    private final Set<String> seenFrames = new HashSet<>();
+    private long bytes;
+    private long droppedLines;
+
+    private String lastLine;
+    private String lastKey;
+    private int lastBytes;
+    private int repeats;
+    private int omittedFrames;
+
+    public LogFolder(int byteBudget) {
+        this.byteBudget = byteBudget;
+    }
+
+    /**
+     * Adds one line (without the trailing newline).
+     *
+     * @param line      Line text
+     * @param byteCount Size of the line in bytes as read from the stream
+     */
+    public void accept(String line, int byteCount) {
+        if (isStackFrame(line)) {
+            if (seenFrames.contains(line)) {
+                flushRepeats();
+                omittedFrames++;
+                return;
+            }
+            if (seenFrames.size() < MAX_SEEN_FRAMES) {
+                seenFrames.add(line);
+            }
+        }
+        flushOmittedFrames();
+
+        String key = normalize(line);
+        if (key.equals(lastKey)) {
+            repeats++;
+            return;
+        }
+        flushRepeats();
+
+        lastLine = line;
+        lastKey = key;
+        lastBytes = byteCount;
+    }
+
+    /**
+     * Adds one line, computing its UTF-8 size.
+     *
+     * @param line Line text
+     */
+    public void accept(String line) {
+        accept(line, line.getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    /**
+     * Flushes pending folds and renders the retained tail.
+     *
+     * @return Folded log text
+     */
+    public String finish() {
+        flushOmittedFrames();
+        flushRepeats();
+
+        StringBuilder out = new StringBuilder((int) Math.min(bytes + 64, Integer.MAX_VALUE));
+        if (droppedLines > 0) {
+            out.append("[... ").append(droppedLines).append(" earlier lines dropped to fit log budget]\n");
+        }
+        for (Line line : lines) {
+            out.append(line.text()).append('\n');
+        }
+        return out.toString();
+    }
+
+    /**
+     * @return Bytes currently retained
+     */
+    public long retainedBytes() {
+        return bytes;
+    }
+
+    private void flushRepeats() {
+        if (lastLine == null) {
+            return;
+        }
+        append(lastLine, lastBytes);
+        if (repeats > 0) {
+            append("    [previous line repeated " + repeats + " times]");
+        }
+        lastLine = null;
+        lastKey = null;
+        repeats = 0;
+    }
+
+    private void flushOmittedFrames() {
+        if (omittedFrames == 0) {
+            return;
+        }
+        append("\t... " + omittedFrames + " repeated frames omitted");
+        omittedFrames = 0;
+    }
+
+    private void append(String marker) {
+        append(marker, marker.length());
+    }
+
+    private void append(String text, int byteCount) {
+        lines.addLast(new Line(text, byteCount + 1));
+        bytes += byteCount + 1;
+        while (bytes > byteBudget && lines.size() > 1) {
+            bytes -= lines.removeFirst().bytes();
+            droppedLines++;
+        }
+        if (bytes > byteBudget) {
+            String cut = truncate(lines.removeFirst().text(), byteBudget - 1);
+            lines.addFirst(new Line(cut, cut.getBytes(StandardCharsets.UTF_8).length + 1));
+            bytes = lines.getFirst().bytes();
+        }
+    }
+
+    /**
+     * Cuts text to at most {@code maxBytes} of UTF-8 without splitting a character.
+     */
+    private static String truncate(String text, int maxBytes) {
+        byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+        if (utf8.length <= maxBytes) {
+            return text;
+        }
+        int end = Math.max(0, maxBytes);
+        while (end > 0 && (utf8[end] & 0xC0) == 0x80) {
+            end--;
+        }
+        return new String(utf8, 0, end, StandardCharsets.UTF_8);
+    }
+
+    private static boolean isStackFrame(String line) {
+        int i = 0;
+        while (i < line.length() && Character.isWhitespace(line.charAt(i))) {
+            i++;
+        }
+        return i > 0 && (line.startsWith("at ", i) || line.startsWith("... ", i));
+    }
+
+    /**
+     * Replaces digits so that lines differing only in counters, timestamps or
+     * IDs compare equal.
+     */
+    private static String normalize(String line) {
+        char[] chars = null;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c >= '1' && c <= '9') {
+                if (chars == null) {
+                    chars = line.toCharArray();
+                }
+                chars[i] = '0';
+            }
+        }
+        return chars == null ? line : new String(chars);
+    }
+
+    private record Line(String text, int bytes) {
+    }
+}
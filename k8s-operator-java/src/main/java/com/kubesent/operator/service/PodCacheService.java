@@ -0,0 +1,254 @@
+package com.kubesent.operator.service;
+
+import com.kubesent.operator.cluster.ClusterScoped;
+import com.kubesent.operator.config.ApiRateLimiter;
+import com.kubesent.operator.config.ApiRateLimiter.Priority;
+import io.fabric8.kubernetes.api.model.OwnerReference;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodList;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.dsl.FilterWatchListDeletable;
+import io.fabric8.kubernetes.client.dsl.PodResource;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import io.fabric8.kubernetes.client.informers.cache.Cache;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Local, informer-backed cache of pods in the watched scope.
+ * Keeps one SharedIndexInformer per namespace (or a single cluster-wide one)
+ * with indexers by namespace, owner UID and node, so follow-up lookups are
+ * served from memory instead of the API server.
+ */
+@Slf4j
+@ClusterScoped
+@RequiredArgsConstructor
+public class PodCacheService {
+
+    public static final String ALL_NAMESPACES = "*";
+    public static final String NAMESPACE_INDEX = Cache.NAMESPACE_INDEX;
+    public static final String OWNER_UID_INDEX = "ownerUid";
+    public static final String NODE_INDEX = "node";
+
+    private final KubernetesClient kubernetesClient;
+    private final ApiRateLimiter rateLimiter;
+
+    @Value("${kubesent.kubernetes.namespace:default}")
+    private String defaultNamespace;
+
+    @Value("${kubesent.kubernetes.namespaces:}")
+    private List<String> namespaces;
+
+    @Value("${kubesent.pod-watcher.label-selector:}")
+    private String labelSelector;
+
+    @Value("${kubesent.pod-watcher.resync-period-ms:300000}")
+    private Long resyncPeriodMs;
+
+    @Value("${kubesent.pod-watcher.list-page-size:500}")
+    private Long listPageSize;
+
+    private final Map<String, SharedIndexInformer<Pod>> informers = new ConcurrentHashMap<>();
+
+    /**
+     * Resolves the configured watch scope. Returns the single default namespace
+     * when no list is configured, or {@link #ALL_NAMESPACES} for the whole cluster.
+     *
+     * @return Namespaces to watch
+     */
+    public List<String> resolveNamespaces() {
+        List<String> resolved = new ArrayList<>();
+        if (namespaces != null) {
+            for (String ns : namespaces) {
+                if (ns != null && !ns.isBlank()) {
+                    resolved.add(ns.trim());
+                }
+            }
+        }
+        if (resolved.contains(ALL_NAMESPACES)) {
+            return List.of(ALL_NAMESPACES);
+        }
+        return resolved.isEmpty() ? List.of(defaultNamespace) : resolved;
+    }
+
+    /**
+     * Returns the pod operation for a namespace in the watch scope, with the
+     * server-side label selector applied.
+     *
+     * @param namespace Namespace or {@link #ALL_NAMESPACES}
+     * @return Filtered pod operation
+     */
+    public FilterWatchListDeletable<Pod, PodList, PodResource> podsIn(String namespace) {
+        FilterWatchListDeletable<Pod, PodList, PodResource> pods = ALL_NAMESPACES.equals(namespace)
+                ? kubernetesClient.pods().inAnyNamespace()
+                : kubernetesClient.pods().inNamespace(namespace);
+
+        if (labelSelector != null && !labelSelector.isBlank()) {
+            pods = pods.withLabelSelector(labelSelector);
+        }
+        return pods;
+    }
+
+    /**
+     * Starts one informer per namespace in scope and registers the handler.
+     * The informers list in pages and sync concurrently; each one resumes its
+     * watch from the last seen resourceVersion (kept current by bookmarks) and
+     * relists only when that version has expired. Returns once all have synced.
+     *
+     * @param handler Handler receiving pod add/update/delete notifications
+     */
+    public void start(ResourceEventHandler<Pod> handler) {
+        long start = System.nanoTime();
+        List<CompletableFuture<Void>> synced = new ArrayList<>();
+        for (String namespace : resolveNamespaces()) {
+            log.info("Starting pod informer for namespace: {} (label selector: '{}', resync: {} ms, page size: {})",
+                    namespace, labelSelector, resyncPeriodMs, listPageSize);
+
+            SharedIndexInformer<Pod> informer = podsIn(namespace)
+                    .withIndexers(indexers())
+                    .withLimit(listPageSize)
+                    .runnableInformer(resyncPeriodMs);
+            informer.addEventHandler(handler);
+
+            informers.put(namespace, informer);
+            synced.add(informer.start().toCompletableFuture());
+        }
+        CompletableFuture.allOf(synced.toArray(new CompletableFuture[0])).join();
+        log.info("Pod informers for {} scope(s) synced in {} ms",
+                informers.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * @return Page size for LIST calls
+     */
+    public long getListPageSize() {
+        return listPageSize;
+    }
+
+    /**
+     * @return True if informers are running and all of them have synced
+     */
+    public boolean isActive() {
+        return !informers.isEmpty() && informers.values().stream().allMatch(SharedIndexInformer::hasSynced);
+    }
+
+    /**
+     * Looks up a pod from the local cache, falling back to a live GET when the
+     * informers are not running (watch mode) or the namespace is out of scope.
+     *
+     * @param namespace Pod namespace
+     * @param podName   Pod name
+     * @return The pod, or null if it does not exist
+     */
+    public Pod getPod(String namespace, String podName) {
+        SharedIndexInformer<Pod> informer = informerFor(namespace);
+        if (informer != null && informer.hasSynced()) {
+            return informer.getStore().getByKey(Cache.namespaceKeyFunc(namespace, podName));
+        }
+        rateLimiter.acquire(Priority.READ);
+        return kubernetesClient.pods().inNamespace(namespace).withName(podName).get();
+    }
+
+    /**
+     * Lists all pods in the watch scope: from the cache when the informers have
+     * synced, otherwise with a live LIST per namespace.
+     *
+     * @return Pods in scope
+     */
+    public List<Pod> listPods() {
+        if (isActive()) {
+            List<Pod> result = new ArrayList<>();
+            for (SharedIndexInformer<Pod> informer : informers.values()) {
+                result.addAll(informer.getStore().list());
+            }
+            return result;
+        }
+        List<Pod> result = new ArrayList<>();
+        for (String namespace : resolveNamespaces()) {
+            rateLimiter.acquire(Priority.READ);
+            result.addAll(podsIn(namespace).list().getItems());
+        }
+        return result;
+    }
+
+    /**
+     * @return Cached pods in the given namespace
+     */
+    public List<Pod> byNamespace(String namespace) {
+        return byIndex(NAMESPACE_INDEX, namespace);
+    }
+
+    /**
+     * @return Cached pods controlled by the owner with the given UID
+     */
+    public List<Pod> byOwnerUid(String ownerUid) {
+        return byIndex(OWNER_UID_INDEX, ownerUid);
+    }
+
+    /**
+     * @return Cached pods scheduled on the given node
+     */
+    public List<Pod> byNode(String nodeName) {
+        return byIndex(NODE_INDEX, nodeName);
+    }
+
+    private List<Pod> byIndex(String indexName, String key) {
+        if (informers.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Pod> result = new ArrayList<>();
+        for (SharedIndexInformer<Pod> informer : informers.values()) {
+            result.addAll(informer.getIndexer().byIndex(indexName, key));
+        }
+        return result;
+    }
+
+    private SharedIndexInformer<Pod> informerFor(String namespace) {
+        SharedIndexInformer<Pod> informer = informers.get(namespace);
+        return informer != null ? informer : informers.get(ALL_NAMESPACES);
+    }
+
+    private static Map<String, Function<Pod, List<String>>> indexers() {
+        return Map.of(
+                OWNER_UID_INDEX, PodCacheService::ownerUids,
+                NODE_INDEX, PodCacheService::nodeName);
+    }
+
+    private static List<String> ownerUids(Pod pod) {
+        List<OwnerReference> owners = pod.getMetadata().getOwnerReferences();
+        if (owners == null || owners.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> uids = new ArrayList<>(owners.size());
+        for (OwnerReference owner : owners) {
+            uids.add(owner.getUid());
+        }
+        return uids;
+    }
+
+    private static List<String> nodeName(Pod pod) {
+        if (pod.getSpec() == null || pod.getSpec().getNodeName() == null) {
+            return Collections.emptyList();
+        }
+        return List.of(pod.getSpec().getNodeName());
+    }
+
+    @PreDestroy
+    public void stop() {
+        log.info("Stopping {} pod informer(s)", informers.size());
+        informers.values().forEach(SharedIndexInformer::close);
+        informers.clear();
+    }
+}
@@ -0,0 +1,327 @@
+package com.kubesent.operator.service;
+
+import com.kubesent.operator.cluster.ClusterScoped;
+import com.kubesent.operator.config.ApiRateLimiter;
+import com.kubesent.operator.config.ApiRateLimiter.Priority;
+import io.fabric8.kubernetes.api.model.ContainerStatus;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.dsl.ContainerResource;
+import io.fabric8.kubernetes.client.dsl.Loggable;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Extracts logs of a failed pod for analysis.
+ * Reads the current and the previous (crashed) instance of every failing
+ * container concurrently, streams each log line by line without materializing
+ * it as one String, caps oversized lines, folds repeated lines and stack
+ * traces, and keeps the tail of each stream within its share of a byte budget.
+ * Reads still running when the timeout expires have their streams closed, so
+ * a slow API server cannot pin the reader threads.
+ */
+@Slf4j
+@ClusterScoped
+@RequiredArgsConstructor
+public class PodLogExtractor {
+
+    private final KubernetesClient kubernetesClient;
+    private final MeterRegistry meterRegistry;
+    private final ApiRateLimiter rateLimiter;
+
+    @Value("${kubesent.pod-watcher.log-lines:2000}")
+    private Integer logLines;
+
+    @Value("${kubesent.pod-watcher.log-byte-budget:16384}")
+    private Integer byteBudget;
+
+    @Value("${kubesent.pod-watcher.log-max-line-bytes:2048}")
+    private Integer maxLineBytes;
+
+    @Value("${kubesent.pod-watcher.log-reader-threads:8}")
+    private Integer readerThreads;
+
+    @Value("${kubesent.pod-watcher.log-timeout-ms:10000}")
+    private Long timeoutMs;
+
+    private ExecutorService readerExecutor;
+    private Timer extractTimer;
+    private DistributionSummary extractedBytes;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger counter = new AtomicInteger();
+        readerExecutor = ExecutorServiceMetrics.monitor(meterRegistry,
+                Executors.newFixedThreadPool(readerThreads, r -> {
+                    Thread thread = new Thread(r, "log-reader-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }), "log-reader");
+
+        extractTimer = Timer.builder("kubesent.logs.extract")
+                .description("Time to read and fold the logs of a failed pod")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        extractedBytes = DistributionSummary.builder("kubesent.logs.extracted")
+                .baseUnit("bytes")
+                .description("Size of the log text sent for analysis")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Extracts the folded, budgeted logs of all failing containers of a pod.
+     *
+     * @param pod The failed pod
+     * @return Pod logs, one section per container instance
+     */
+    public String extractPodLogs(Pod pod) {
+        return extractTimer.record(() -> readPodLogs(pod));
+    }
+
+    private String readPodLogs(Pod pod) {
+        String namespace = pod.getMetadata().getNamespace();
+        String podName = pod.getMetadata().getName();
+
+        List<LogSource> sources = logSources(pod);
+        if (sources.isEmpty()) {
+            return "No logs available";
+        }
+
+        // Equal shares that add up to no more than the total budget
+        int budgetPerSource = Math.max(1, byteBudget / sources.size());
+        List<LogRead> handles = new ArrayList<>(sources.size());
+        List<CompletableFuture<String>> reads = new ArrayList<>(sources.size());
+        for (LogSource source : sources) {
+            LogRead handle = new LogRead();
+            handles.add(handle);
+            reads.add(CompletableFuture.supplyAsync(
+                    () -> readSource(namespace, podName, source, budgetPerSource, handle), readerExecutor));
+        }
+
+        try {
+            CompletableFuture.allOf(reads.toArray(new CompletableFuture[0])).get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Timed out reading logs for pod {}/{} after {} ms", namespace, podName, timeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("Failed reading logs for pod {}/{}: {}", namespace, podName, e.getMessage());
+        }
+        // Free the reader threads of reads that did not finish in time
+        for (int i = 0; i < reads.size(); i++) {
+            if (!reads.get(i).isDone()) {
+                handles.get(i).cancel();
+            }
+        }
+
+        StringBuilder logs = new StringBuilder();
+        for (int i = 0; i < sources.size(); i++) {
+            LogSource source = sources.get(i);
+            String section = reads.get(i).getNow(null);
+            logs.append("=== container ").append(source.container())
+                    .append(source.previous() ? " (previous instance)" : "")
+                    .append(" ===\n")
+                    .append(section != null ? section : "[log read timed out]\n");
+        }
+
+        extractedBytes.record(logs.length());
+        log.debug("Extracted {} bytes of logs from {} source(s) for pod {}/{}",
+                logs.length(), sources.size(), namespace, podName);
+        return logs.toString();
+    }
+
+    /**
+     * Lists the log streams worth reading: containers that are failing (waiting,
+     * terminated with a non-zero exit code, or restarted), plus the previous
+     * instance of each restarted container. Falls back to the first container.
+     */
+    private List<LogSource> logSources(Pod pod) {
+        List<LogSource> sources = new ArrayList<>();
+        List<ContainerStatus> statuses = new ArrayList<>();
+        if (pod.getStatus() != null) {
+            if (pod.getStatus().getInitContainerStatuses() != null) {
+                statuses.addAll(pod.getStatus().getInitContainerStatuses());
+            }
+            if (pod.getStatus().getContainerStatuses() != null) {
+                statuses.addAll(pod.getStatus().getContainerStatuses());
+            }
+        }
+
+        for (ContainerStatus status : statuses) {
+            boolean restarted = status.getRestartCount() != null && status.getRestartCount() > 0;
+            boolean waiting = status.getState() != null && status.getState().getWaiting() != null;
+            boolean failedExit = status.getState() != null && status.getState().getTerminated() != null
+                    && status.getState().getTerminated().getExitCode() != null
+                    && status.getState().getTerminated().getExitCode() != 0;
+
+            if (!restarted && !waiting && !failedExit) {
+                continue;
+            }
+            // A waiting container (e.g. in CrashLoopBackOff) has no current log
+            if (!waiting) {
+                sources.add(new LogSource(status.getName(), false));
+            }
+            if (restarted || (status.getLastState() != null && status.getLastState().getTerminated() != null)) {
+                sources.add(new LogSource(status.getName(), true));
+            }
+        }
+
+        if (sources.isEmpty() && pod.getSpec() != null && !pod.getSpec().getContainers().isEmpty()) {
+            sources.add(new LogSource(pod.getSpec().getContainers().get(0).getName(), false));
+        }
+        return sources;
+    }
+
+    private String readSource(String namespace, String podName, LogSource source, int budget, LogRead handle) {
+        if (handle.isCancelled()) {
+            return null;
+        }
+        ContainerResource container = kubernetesClient.pods()
+                .inNamespace(namespace)
+                .withName(podName)
+                .inContainer(source.container())
+                .withReadyWaitTimeout(0);
+
+        // Generous server-side tail cap so the folder decides what is kept; the byte
+        // budget is enforced while streaming, since a server-side limitBytes would
+        // cut off the end of the tail
+        Loggable loggable = source.previous()
+                ? container.terminated().tailingLines(logLines)
+                : container.tailingLines(logLines);
+
+        LogFolder folder = new LogFolder(budget);
+        try {
+            rateLimiter.acquire(Priority.LOGS);
+            try (InputStream in = loggable.getLogInputStream()) {
+                if (!handle.open(in)) {
+                    return null;
+                }
+                readLines(in, folder, maxLineBytes);
+            }
+        } catch (Exception e) {
+            if (handle.isCancelled()) {
+                return null;
+            }
+            log.debug("Could not read {} logs of {}/{}/{}: {}", source.previous() ? "previous" : "current",
+                    namespace, podName, source.container(), e.getMessage());
+            folder.accept("[failed to retrieve logs: " + e.getMessage() + "]");
+        }
+        return folder.finish();
+    }
+
+    /**
+     * Splits the stream into lines with a reusable buffer. Bytes beyond
+     * {@code maxLineBytes} in a line are skipped rather than buffered.
+     */
+    static void readLines(InputStream in, LogFolder folder, int maxLineBytes) throws IOException {
+        byte[] chunk = new byte[8192];
+        byte[] line = new byte[maxLineBytes];
+        int lineLength = 0;
+        int lineBytes = 0;
+
+        int read;
+        while ((read = in.read(chunk)) != -1) {
+            for (int i = 0; i < read; i++) {
+                byte b = chunk[i];
+                if (b == '\n') {
+                    emit(folder, line, lineLength, lineBytes);
+                    lineLength = 0;
+                    lineBytes = 0;
+                    continue;
+                }
+                if (lineLength < line.length) {
+                    line[lineLength++] = b;
+                }
+                lineBytes++;
+            }
+        }
+        if (lineBytes > 0) {
+            emit(folder, line, lineLength, lineBytes);
+        }
+    }
+
+    private static void emit(LogFolder folder, byte[] line, int length, int totalBytes) {
+        if (totalBytes > length) {
+            int end = characterBoundary(line, length);
+            String marker = " [... " + (totalBytes - end) + " bytes truncated]";
+            // The marker is ASCII, so its length is its size in bytes
+            folder.accept(new String(line, 0, end, StandardCharsets.UTF_8) + marker, end + marker.length());
+            return;
+        }
+        int end = length > 0 && line[length - 1] == '\r' ? length - 1 : length;
+        folder.accept(new String(line, 0, end, StandardCharsets.UTF_8), end);
+    }
+
+    /**
+     * Moves a cut back to the start of a UTF-8 character it would split.
+     */
+    static int characterBoundary(byte[] line, int length) {
+        if (length == 0) {
+            return 0;
+        }
+        int start = length - 1;
+        while (start > 0 && (line[start] & 0xC0) == 0x80) {
+            start--;
+        }
+        int lead = line[start] & 0xFF;
+        int size = lead >= 0xF0 ? 4 : lead >= 0xE0 ? 3 : lead >= 0xC0 ? 2 : 1;
+        return start + size > length ? start : length;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        readerExecutor.shutdownNow();
+    }
+
+    private record LogSource(String container, boolean previous) {
+    }
+
+    /**
+     * Lets the extracting thread close the stream of a read it gave up on,
+     * which unblocks the reader thread stuck on it.
+     */
+    private static final class LogRead {
+
+        private InputStream in;
+        private boolean cancelled;
+
+        synchronized boolean open(InputStream in) {
+            this.in = in;
+            return !cancelled;
+        }
+
+        synchronized boolean isCancelled() {
+            return cancelled;
+        }
+
+        synchronized void cancel() {
+            cancelled = true;
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    log.debug("Could not close timed out log stream: {}", e.getMessage());
+                }
+            }
+        }
+    }
+}
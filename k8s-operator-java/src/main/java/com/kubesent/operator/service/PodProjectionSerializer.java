@@ -0,0 +1,281 @@
+package com.kubesent.operator.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.fasterxml.jackson.dataformat.yaml.YAMLGenerator;
+import io.fabric8.kubernetes.api.model.Container;
+import io.fabric8.kubernetes.api.model.ContainerState;
+import io.fabric8.kubernetes.api.model.ContainerStatus;
+import io.fabric8.kubernetes.api.model.EnvFromSource;
+import io.fabric8.kubernetes.api.model.EnvVar;
+import io.fabric8.kubernetes.api.model.OwnerReference;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodCondition;
+import io.fabric8.kubernetes.api.model.Probe;
+import io.fabric8.kubernetes.api.model.ResourceRequirements;
+import io.fabric8.kubernetes.api.model.VolumeMount;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serializes only the parts of a pod that matter for diagnosis: owner refs,
+ * container specs (image, command, resources, probes, env var names, mounts)
+ * and recent container statuses. Skips managedFields, annotations, env values
+ * and the rest of the status, which make up most of a full dump.
+ * <p>
+ * The YAML is streamed with a Jackson generator into a per-thread buffer that
+ * is reused across calls, so no intermediate object tree is built.
+ */
+@Component
+public class PodProjectionSerializer {
+
+    private static final int MAX_RETAINED_BUFFER = 256 * 1024;
+
+    private final ObjectMapper yamlMapper = new ObjectMapper(new YAMLFactory()
+            .disable(YAMLGenerator.Feature.WRITE_DOC_START_MARKER)
+            .enable(YAMLGenerator.Feature.MINIMIZE_QUOTES));
+
+    private final ThreadLocal<ByteArrayOutputStream> buffers =
+            ThreadLocal.withInitial(() -> new ByteArrayOutputStream(8192));
+
+    /**
+     * Writes the diagnosis projection of a pod as YAML.
+     *
+     * @param pod The pod to serialize
+     * @return YAML projection
+     * @throws IOException if the YAML could not be written
+     */
+    public String toYaml(Pod pod) throws IOException {
+        ByteArrayOutputStream buffer = buffers.get();
+        buffer.reset();
+        try (JsonGenerator gen = yamlMapper.getFactory().createGenerator(buffer)) {
+            writePod(gen, pod);
+        }
+        String yaml = buffer.toString(StandardCharsets.UTF_8);
+
+        // Don't pin an unusually large buffer to the thread
+        if (buffer.size() > MAX_RETAINED_BUFFER) {
+            buffers.remove();
+        }
+        return yaml;
+    }
+
+    private void writePod(JsonGenerator gen, Pod pod) throws IOException {
+        gen.writeStartObject();
+
+        gen.writeObjectFieldStart("metadata");
+        writeString(gen, "name", pod.getMetadata().getName());
+        writeString(gen, "namespace", pod.getMetadata().getNamespace());
+        List<OwnerReference> owners = pod.getMetadata().getOwnerReferences();
+        if (owners != null && !owners.isEmpty()) {
+            gen.writeArrayFieldStart("ownerReferences");
+            for (OwnerReference owner : owners) {
+                gen.writeStartObject();
+                writeString(gen, "kind", owner.getKind());
+                writeString(gen, "name", owner.getName());
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+        }
+        gen.writeEndObject();
+
+        if (pod.getSpec() != null) {
+            gen.writeObjectFieldStart("spec");
+            writeString(gen, "nodeName", pod.getSpec().getNodeName());
+            writeString(gen, "restartPolicy", pod.getSpec().getRestartPolicy());
+            writeContainers(gen, "initContainers", pod.getSpec().getInitContainers());
+            writeContainers(gen, "containers", pod.getSpec().getContainers());
+            gen.writeEndObject();
+        }
+
+        if (pod.getStatus() != null) {
+            gen.writeObjectFieldStart("status");
+            writeString(gen, "phase", pod.getStatus().getPhase());
+            writeString(gen, "reason", pod.getStatus().getReason());
+            writeString(gen, "message", pod.getStatus().getMessage());
+            writeConditions(gen, pod.getStatus().getConditions());
+            writeStatuses(gen, "initContainerStatuses", pod.getStatus().getInitContainerStatuses());
+            writeStatuses(gen, "containerStatuses", pod.getStatus().getContainerStatuses());
+            gen.writeEndObject();
+        }
+
+        gen.writeEndObject();
+    }
+
+    private void writeContainers(JsonGenerator gen, String field, List<Container> containers) throws IOException {
+        if (containers == null || containers.isEmpty()) {
+            return;
+        }
+        gen.writeArrayFieldStart(field);
+        for (Container container : containers) {
+            gen.writeStartObject();
+            writeString(gen, "name", container.getName());
+            writeString(gen, "image", container.getImage());
+            writeStrings(gen, "command", container.getCommand());
+            writeStrings(gen, "args", container.getArgs());
+            writeResources(gen, container.getResources());
+            writeProbe(gen, "livenessProbe", container.getLivenessProbe());
+            writeProbe(gen, "readinessProbe", container.getReadinessProbe());
+            writeProbe(gen, "startupProbe", container.getStartupProbe());
+
+            // Names only: values are noise for diagnosis and may hold secrets
+            List<EnvVar> env = container.getEnv();
+            if (env != null && !env.isEmpty()) {
+                gen.writeArrayFieldStart("envNames");
+                for (EnvVar var : env) {
+                    gen.writeString(var.getName());
+                }
+                gen.writeEndArray();
+            }
+            List<EnvFromSource> envFrom = container.getEnvFrom();
+            if (envFrom != null && !envFrom.isEmpty()) {
+                gen.writeArrayFieldStart("envFrom");
+                for (EnvFromSource source : envFrom) {
+                    if (source.getConfigMapRef() != null) {
+                        gen.writeString("configMap/" + source.getConfigMapRef().getName());
+                    } else if (source.getSecretRef() != null) {
+                        gen.writeString("secret/" + source.getSecretRef().getName());
+                    }
+                }
+                gen.writeEndArray();
+            }
+            List<VolumeMount> mounts = container.getVolumeMounts();
+            if (mounts != null && !mounts.isEmpty()) {
+                gen.writeArrayFieldStart("volumeMounts");
+                for (VolumeMount mount : mounts) {
+                    gen.writeString(mount.getName() + ":" + mount.getMountPath());
+                }
+                gen.writeEndArray();
+            }
+            gen.writeEndObject();
+        }
+        gen.writeEndArray();
+    }
+
+    private void writeResources(JsonGenerator gen, ResourceRequirements resources) throws IOException {
+        if (resources == null || (isEmpty(resources.getLimits()) && isEmpty(resources.getRequests()))) {
+            return;
+        }
+        gen.writeObjectFieldStart("resources");
+        if (!isEmpty(resources.getLimits())) {
+            gen.writeObjectField("limits", resources.getLimits());
+        }
+        if (!isEmpty(resources.getRequests())) {
+            gen.writeObjectField("requests", resources.getRequests());
+        }
+        gen.writeEndObject();
+    }
+
+    private void writeProbe(JsonGenerator gen, String field, Probe probe) throws IOException {
+        if (probe != null) {
+            gen.writeObjectField(field, probe);
+        }
+    }
+
+    private void writeConditions(JsonGenerator gen, List<PodCondition> conditions) throws IOException {
+        if (conditions == null || conditions.isEmpty()) {
+            return;
+        }
+        boolean started = false;
+        for (PodCondition condition : conditions) {
+            // Only conditions that are not satisfied carry diagnostic signal
+            if ("True".equals(condition.getStatus())) {
+                continue;
+            }
+            if (!started) {
+                gen.writeArrayFieldStart("unmetConditions");
+                started = true;
+            }
+            gen.writeStartObject();
+            writeString(gen, "type", condition.getType());
+            writeString(gen, "reason", condition.getReason());
+            writeString(gen, "message", condition.getMessage());
+            gen.writeEndObject();
+        }
+        if (started) {
+            gen.writeEndArray();
+        }
+    }
+
+    private void writeStatuses(JsonGenerator gen, String field, List<ContainerStatus> statuses) throws IOException {
+        if (statuses == null || statuses.isEmpty()) {
+            return;
+        }
+        gen.writeArrayFieldStart(field);
+        for (ContainerStatus status : statuses) {
+            gen.writeStartObject();
+            writeString(gen, "name", status.getName());
+            if (status.getReady() != null) {
+                gen.writeBooleanField("ready", status.getReady());
+            }
+            if (status.getRestartCount() != null) {
+                gen.writeNumberField("restartCount", status.getRestartCount());
+            }
+            writeState(gen, "state", status.getState());
+            writeState(gen, "lastState", status.getLastState());
+            gen.writeEndObject();
+        }
+        gen.writeEndArray();
+    }
+
+    private void writeState(JsonGenerator gen, String field, ContainerState state) throws IOException {
+        if (state == null) {
+            return;
+        }
+        if (state.getWaiting() != null) {
+            gen.writeObjectFieldStart(field);
+            gen.writeObjectFieldStart("waiting");
+            writeString(gen, "reason", state.getWaiting().getReason());
+            writeString(gen, "message", state.getWaiting().getMessage());
+            gen.writeEndObject();
+            gen.writeEndObject();
+        } else if (state.getTerminated() != null) {
+            gen.writeObjectFieldStart(field);
+            gen.writeObjectFieldStart("terminated");
+            writeString(gen, "reason", state.getTerminated().getReason());
+            if (state.getTerminated().getExitCode() != null) {
+                gen.writeNumberField("exitCode", state.getTerminated().getExitCode());
+            }
+            if (state.getTerminated().getSignal() != null) {
+                gen.writeNumberField("signal", state.getTerminated().getSignal());
+            }
+            writeString(gen, "message", state.getTerminated().getMessage());
+            writeString(gen, "finishedAt", state.getTerminated().getFinishedAt());
+            gen.writeEndObject();
+            gen.writeEndObject();
+        } else if (state.getRunning() != null) {
+            gen.writeObjectFieldStart(field);
+            gen.writeObjectFieldStart("running");
+            writeString(gen, "startedAt", state.getRunning().getStartedAt());
+            gen.writeEndObject();
+            gen.writeEndObject();
+        }
+    }
+
+    private static void writeString(JsonGenerator gen, String field, String value) throws IOException {
+        if (value != null) {
+            gen.writeStringField(field, value);
+        }
+    }
+
+    private static void writeStrings(JsonGenerator gen, String field, List<String> values) throws IOException {
+        if (values == null || values.isEmpty()) {
+            return;
+        }
+        gen.writeArrayFieldStart(field);
+        for (String value : values) {
+            gen.writeString(value);
+        }
+        gen.writeEndArray();
+    }
+
+    private static boolean isEmpty(Map<?, ?> map) {
+        return map == null || map.isEmpty();
+    }
+}
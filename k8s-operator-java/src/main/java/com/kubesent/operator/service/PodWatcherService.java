@@ -1,246 +1,478 @@
 package com.kubesent.operator.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
-import com.kubesent.operator.model.AnalysisRequest;
-import com.kubesent.operator.model.AnalysisResponse;
-import io.fabric8.kubernetes.api.model.ContainerStatus;
+import com.kubesent.operator.cluster.ClusterScoped;
+import com.kubesent.operator.config.ApiRateLimiter;
+import com.kubesent.operator.config.ApiRateLimiter.Priority;
+import com.kubesent.operator.model.FailureClassification;
+import com.kubesent.operator.model.WorkloadRef;
+import com.kubesent.operator.queue.RateLimitingWorkQueue;
+import io.fabric8.kubernetes.api.model.OwnerReference;
+import io.fabric8.kubernetes.api.model.ListOptionsBuilder;
 import io.fabric8.kubernetes.api.model.Pod;
-import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.api.model.PodList;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.Watch;
 import io.fabric8.kubernetes.client.Watcher;
+import io.fabric8.kubernetes.client.Watcher.Action;
 import io.fabric8.kubernetes.client.WatcherException;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.stereotype.Service;
 
-import java.io.IOException;
-import java.util.Arrays;
+import java.net.HttpURLConnection;
+import java.time.Duration;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Core Watcher service that monitors Kubernetes pod events.
  * Detects failures (CrashLoopBackOff, OOMKilled, ImagePullBackOff) and triggers
- * AI analysis.
+ * AI analysis. Pods that are already failing at startup are picked up from the
+ * initial list.
  */
 @Slf4j
-@Service
+@ClusterScoped
 @RequiredArgsConstructor
-public class PodWatcherService implements Watcher<Pod> {
+public class PodWatcherService {
 
-    private final KubernetesClient kubernetesClient;
-    private final AiAnalysisService aiAnalysisService;
-    private final RemediationService remediationService;
+    private final PodCacheService podCacheService;
+    private final FailureClassifier failureClassifier;
+    private final FailurePipelineService failurePipelineService;
+    private final CoordinationService coordinationService;
+    private final FailureCorrelator failureCorrelator;
+    private final MeterRegistry meterRegistry;
+    private final ApiRateLimiter rateLimiter;
 
-    @Value("${kubesent.kubernetes.namespace:default}")
-    private String watchNamespace;
+    @Value("${kubesent.pod-watcher.mode:informer}")
+    private String watchMode;
 
-    @Value("${kubesent.pod-watcher.log-lines:50}")
-    private Integer logLines;
+    @Value("${kubesent.pipeline.max-in-flight:100}")
+    private Integer maxInFlight;
 
-    private final ObjectMapper yamlMapper = new ObjectMapper(new YAMLFactory());
-    private final ExecutorService executorService = Executors.newFixedThreadPool(5);
+    @Value("${kubesent.work-queue.base-delay-ms:1000}")
+    private Long baseDelayMs;
 
-    private static final List<String> FAILURE_REASONS = Arrays.asList(
-            "CrashLoopBackOff",
-            "OOMKilled",
-            "ImagePullBackOff",
-            "Error",
-            "Failed");
+    @Value("${kubesent.work-queue.max-delay-ms:300000}")
+    private Long maxDelayMs;
+
+    @Value("${kubesent.pod-watcher.sync-parallelism:4}")
+    private Integer syncParallelism;
+
+    @Value("${kubesent.pod-watcher.reconnect-base-delay-ms:1000}")
+    private Long reconnectBaseDelayMs;
+
+    @Value("${kubesent.pod-watcher.reconnect-max-delay-ms:60000}")
+    private Long reconnectMaxDelayMs;
+
+    private RateLimitingWorkQueue<FailureEvent> workQueue;
+    private Semaphore inFlight;
+    private ExecutorService executorService;
+    private ScheduledExecutorService watchExecutor;
+    private final List<NamespaceWatcher> watchers = new CopyOnWriteArrayList<>();
+    private final Map<Action, Timer> eventTimers = new EnumMap<>(Action.class);
 
     /**
-     * Starts watching pods in the configured namespace.
+     * Starts the work queue dispatcher, then the pod watch.
      */
     @PostConstruct
+    public void start() {
+        initMetrics();
+        workQueue = new RateLimitingWorkQueue<>("pod-failures", meterRegistry, baseDelayMs, maxDelayMs);
+        inFlight = new Semaphore(maxInFlight);
+        executorService = Executors.newSingleThreadExecutor(r -> new Thread(r, "pod-failure-dispatcher"));
+        executorService.submit(this::runDispatcher);
+        log.info("Started pod failure dispatcher (max in flight: {})", maxInFlight);
+
+        coordinationService.addOwnershipListener(this::requeueOwnedFailures);
+        startWatching();
+    }
+
+    /**
+     * Starts watching pods in the configured namespaces.
+     * In informer mode, events come from the shared pod cache. In watch mode
+     * every namespace is listed in pages, each page classified on its own
+     * thread, and a watch with bookmarks is opened from the list's
+     * resourceVersion (see {@link NamespaceWatcher}).
+     */
     public void startWatching() {
-        log.info("Starting pod watcher for namespace: {}", watchNamespace);
+        if ("informer".equalsIgnoreCase(watchMode)) {
+            podCacheService.start(new InformerEventHandler());
+            log.info("Pod watcher started in informer mode");
+            return;
+        }
+
+        // Close any watches left over from a previous attempt before reopening
+        watchers.forEach(NamespaceWatcher::stop);
+        watchers.clear();
+        if (watchExecutor == null) {
+            watchExecutor = Executors.newScheduledThreadPool(syncParallelism, r -> {
+                Thread thread = new Thread(r, "pod-watch");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
 
-        kubernetesClient.pods()
-                .inNamespace(watchNamespace)
-                .watch(this);
+        for (String namespace : podCacheService.resolveNamespaces()) {
+            log.info("Starting pod watcher for namespace: {}", namespace);
+            NamespaceWatcher watcher = new NamespaceWatcher(namespace);
+            watchers.add(watcher);
+            watchExecutor.execute(watcher::listThenWatch);
+        }
+    }
 
-        log.info("Pod watcher started successfully");
+    /**
+     * Registers the per-action event handling timers up front, so the event path
+     * does not look meters up.
+     */
+    void initMetrics() {
+        for (Action action : Action.values()) {
+            eventTimers.put(action, Timer.builder("kubesent.watch.events")
+                    .tag("action", action.name())
+                    .description("Time to handle a pod event, up to queueing a detected failure")
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
     }
 
-    @Override
+    /**
+     * Handles a pod event: queues the failure if the pod fails, resets its
+     * backoff if it recovered.
+     *
+     * @param action Event type
+     * @param pod    The pod as of the event
+     */
     public void eventReceived(Action action, Pod pod) {
+        long start = System.nanoTime();
+        try {
+            handleEvent(action, pod);
+        } finally {
+            eventTimers.get(action).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void handleEvent(Action action, Pod pod) {
         String podName = pod.getMetadata().getName();
         String namespace = pod.getMetadata().getNamespace();
 
         log.info("Received {} event for pod: {}/{}", action, namespace, podName);
 
-        // Only process MODIFIED events (status changes)
-        if (action != Action.MODIFIED) {
+        String podKey = namespace + "/" + podName;
+        if (action == Action.DELETED) {
+            // Workload keys keep their backoff; replicas come and go
+            workQueue.forget(podKey);
+            return;
+        }
+
+        // ADDED covers pods that were already failing when the watch started
+        if (action != Action.ADDED && action != Action.MODIFIED) {
             return;
         }
 
         // Check if pod has failed
-        String failureReason = detectFailure(pod);
-        if (failureReason != null) {
-            log.warn("Detected failure in pod {}/{}: {}", namespace, podName, failureReason);
+        FailureClassification classification = failureClassifier.classify(pod);
+        if (classification == null) {
+            workQueue.forget(podKey);
+            forgetRecoveredWorkload(pod);
+            return;
+        }
+
+        // Replicas of a Deployment/StatefulSet/DaemonSet share one key, so they
+        // collapse into one queue item: one analysis and one patch per workload
+        WorkloadRef workload = WorkloadRef.of(pod);
+        String key = workload.isTemplated() ? workload.key() : podKey;
 
-            // Process failure asynchronously to avoid blocking the watcher
-            executorService.submit(() -> handlePodFailure(pod, failureReason));
+        // Another replica handles this pod (leader election / sharding)
+        if (!coordinationService.owns(pod)) {
+            workQueue.forget(key);
+            return;
         }
-    }
 
-    @Override
-    public void onClose(WatcherException e) {
-        if (e != null) {
-            log.error("Pod watcher closed due to exception: {}", e.getMessage(), e);
+        log.warn("Detected {} failure in pod {}/{} (container {}): {}", classification.severity(),
+                namespace, podName, classification.container(), classification.reason());
+        Counter.builder("kubesent.failures.detected")
+                .tag("reason", classification.reason())
+                .tag("severity", classification.severity().name())
+                .register(meterRegistry)
+                .increment();
+        failureCorrelator.observe(pod, classification);
+
+        // Queue the failure; repeated events for the same key collapse into one item
+        // and keys that keep failing are delayed by their backoff
+        Duration delay = workQueue.addRateLimited(key, new FailureEvent(pod, classification));
+        if (!delay.isZero()) {
+            log.debug("{} is backing off for {} ms", key, delay.toMillis());
+        }
+    }
 
-            // Attempt to restart watcher
-            log.info("Attempting to restart pod watcher...");
-            try {
-                Thread.sleep(5000);
-                startWatching();
-            } catch (InterruptedException ie) {
-                Thread.currentThread().interrupt();
-                log.error("Failed to restart pod watcher", ie);
+    /**
+     * Resets the backoff of a workload once none of its cached replicas fail.
+     */
+    private void forgetRecoveredWorkload(Pod pod) {
+        List<OwnerReference> owners = pod.getMetadata().getOwnerReferences();
+        if (owners == null || owners.isEmpty()) {
+            return;
+        }
+        WorkloadRef workload = WorkloadRef.of(pod);
+        if (!workload.isTemplated() || workQueue.numRequeues(workload.key()) == 0) {
+            return;
+        }
+        for (Pod sibling : podCacheService.byOwnerUid(workload.ownerUid())) {
+            if (failureClassifier.classify(sibling) != null) {
+                return;
             }
-        } else {
-            log.info("Pod watcher closed normally");
         }
+        workQueue.forget(workload.key());
     }
 
     /**
-     * Detects if pod is in a failure state.
-     *
-     * @param pod The pod to check
-     * @return Failure reason if detected, null otherwise
+     * Re-checks every pod in scope after this replica gained ownership (became
+     * leader, or a shard member left), so failures that were being ignored get
+     * queued.
      */
-    private String detectFailure(Pod pod) {
-        if (pod.getStatus() == null || pod.getStatus().getContainerStatuses() == null) {
-            return null;
+    private void requeueOwnedFailures() {
+        try {
+            List<Pod> pods = podCacheService.listPods();
+            log.info("Ownership changed; re-checking {} pod(s)", pods.size());
+            for (Pod pod : pods) {
+                handleEvent(Action.MODIFIED, pod);
+            }
+        } catch (Exception e) {
+            log.error("Failed to re-check pods after ownership change: {}", e.getMessage(), e);
         }
+    }
 
-        for (ContainerStatus containerStatus : pod.getStatus().getContainerStatuses()) {
-            // Check waiting state (CrashLoopBackOff, ImagePullBackOff)
-            if (containerStatus.getState() != null &&
-                    containerStatus.getState().getWaiting() != null) {
+    /**
+     * Dispatcher loop: hands pod keys from the work queue to the failure
+     * pipeline. A key stays in flight (and is not handed out again) until its
+     * pipeline run completes; at most {@code max-in-flight} keys run at once.
+     */
+    private void runDispatcher() {
+        while (!Thread.currentThread().isInterrupted()) {
+            RateLimitingWorkQueue.Item<FailureEvent> next;
+            try {
+                inFlight.acquire();
+                next = workQueue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (next == null) {
+                return;
+            }
 
-                String reason = containerStatus.getState().getWaiting().getReason();
-                if (reason != null && FAILURE_REASONS.contains(reason)) {
-                    return reason;
-                }
+            String key = next.key();
+            if (!coordinationService.owns(next.item().pod())) {
+                // Ownership moved to another replica while the key was queued
+                log.debug("Pod {} is no longer owned by this replica. Dropping.", key);
+                workQueue.forget(key);
+                workQueue.done(key);
+                inFlight.release();
+                continue;
             }
+            workQueue.backoff(key);
 
-            // Check terminated state (OOMKilled, Error)
-            if (containerStatus.getState() != null &&
-                    containerStatus.getState().getTerminated() != null) {
+            CompletableFuture<Void> run;
+            try {
+                run = failurePipelineService.process(next.item().pod(), next.item().classification());
+            } catch (RuntimeException e) {
+                run = CompletableFuture.failedFuture(e);
+            }
 
-                String reason = containerStatus.getState().getTerminated().getReason();
-                if (reason != null && FAILURE_REASONS.contains(reason)) {
-                    return reason;
+            run.whenComplete((ignored, e) -> {
+                try {
+                    if (e != null) {
+                        Duration delay = workQueue.addRateLimited(key, next.item());
+                        log.warn("Retrying pod {} in {} ms", key, delay.toMillis());
+                    }
+                } finally {
+                    workQueue.done(key);
+                    inFlight.release();
                 }
-            }
+            });
+        }
+    }
+
+    /**
+     * List-then-watch of one namespace. The initial list is paginated and each
+     * page is classified on the watch executor while the next one is fetched.
+     * The watch then starts from the list's resourceVersion with bookmarks
+     * enabled, and every event or bookmark advances the version to resume from.
+     * fabric8 reconnects dropped connections itself; when it gives up, or the
+     * version expired (410 Gone, which forces a relist), the watch is reopened
+     * after a jittered exponential backoff on the watch executor rather than on
+     * the callback thread.
+     */
+    private final class NamespaceWatcher implements Watcher<Pod> {
+
+        private final String namespace;
+        private volatile String resourceVersion;
+        private volatile Watch watch;
+        private volatile boolean stopped;
+        private int failures;
 
-            // Check last terminated state for recent failures
-            if (containerStatus.getLastState() != null &&
-                    containerStatus.getLastState().getTerminated() != null) {
+        private NamespaceWatcher(String namespace) {
+            this.namespace = namespace;
+        }
 
-                String reason = containerStatus.getLastState().getTerminated().getReason();
-                if (reason != null && FAILURE_REASONS.contains(reason)) {
-                    return reason;
+        private void listThenWatch() {
+            if (stopped) {
+                return;
+            }
+            try {
+                if (resourceVersion == null) {
+                    resourceVersion = listAll();
                 }
+                rateLimiter.acquire(Priority.CONTROL);
+                watch = podCacheService.podsIn(namespace).watch(new ListOptionsBuilder()
+                        .withResourceVersion(resourceVersion)
+                        .withAllowWatchBookmarks(true)
+                        .build(), this);
+                failures = 0;
+                log.info("Watching pods in {} from resourceVersion {}", namespace, resourceVersion);
+            } catch (KubernetesClientException e) {
+                if (e.getCode() == HttpURLConnection.HTTP_GONE) {
+                    resourceVersion = null;
+                }
+                reconnect(e);
+            } catch (RuntimeException e) {
+                reconnect(e);
             }
         }
 
-        return null;
-    }
+        /**
+         * @return resourceVersion of the list snapshot
+         */
+        private String listAll() {
+            long start = System.nanoTime();
+            String continueToken = null;
+            String version;
+            int pods = 0;
+            do {
+                rateLimiter.acquire(Priority.READ);
+                PodList page = podCacheService.podsIn(namespace).list(new ListOptionsBuilder()
+                        .withLimit(podCacheService.getListPageSize())
+                        .withContinue(continueToken)
+                        .build());
+                List<Pod> items = page.getItems();
+                pods += items.size();
+                watchExecutor.execute(() -> {
+                    for (Pod pod : items) {
+                        eventReceived(Action.ADDED, pod);
+                    }
+                });
+                continueToken = page.getMetadata().getContinue();
+                version = page.getMetadata().getResourceVersion();
+            } while (continueToken != null && !continueToken.isEmpty());
+
+            log.info("Listed {} pod(s) in {} in {} ms (resourceVersion {})", pods, namespace,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), version);
+            return version;
+        }
 
-    /**
-     * Handles pod failure by extracting logs, calling AI analysis, and applying
-     * remediation.
-     *
-     * @param pod           The failed pod
-     * @param failureReason The detected failure reason
-     */
-    private void handlePodFailure(Pod pod, String failureReason) {
-        String podName = pod.getMetadata().getName();
-        String namespace = pod.getMetadata().getNamespace();
+        @Override
+        public void eventReceived(Action action, Pod pod) {
+            if (pod.getMetadata() != null && pod.getMetadata().getResourceVersion() != null) {
+                resourceVersion = pod.getMetadata().getResourceVersion();
+            }
+            if (action == Action.BOOKMARK || action == Action.ERROR) {
+                return;
+            }
+            PodWatcherService.this.eventReceived(action, pod);
+        }
 
-        try {
-            log.info("Processing failure for pod {}/{}", namespace, podName);
-
-            // Extract logs (last N lines)
-            String logs = extractPodLogs(namespace, podName);
-
-            // Convert pod to YAML
-            String podYaml = convertPodToYaml(pod);
-
-            // Create analysis request
-            AnalysisRequest request = AnalysisRequest.builder()
-                    .podName(podName)
-                    .namespace(namespace)
-                    .failureReason(failureReason)
-                    .logs(logs)
-                    .podYaml(podYaml)
-                    .build();
-
-            // Call AI Agent for analysis
-            AnalysisResponse analysis = aiAnalysisService.analyzeFailure(request);
-
-            if (analysis != null && analysis.getSuggestedFixYaml() != null) {
-                // Apply remediation
-                remediationService.applyRemediation(pod, analysis);
-            } else {
-                log.warn("No valid analysis received for pod {}/{}", namespace, podName);
+        @Override
+        public void onClose(WatcherException e) {
+            if (stopped || e == null) {
+                log.info("Pod watcher for {} closed", namespace);
+                return;
             }
+            if (e.isHttpGone()) {
+                // Events since our version were compacted away; only a relist is complete
+                resourceVersion = null;
+            }
+            reconnect(e);
+        }
 
-        } catch (Exception e) {
-            log.error("Failed to process pod failure for {}/{}: {}",
-                    namespace, podName, e.getMessage(), e);
+        private void reconnect(Exception e) {
+            if (stopped) {
+                return;
+            }
+            long ceiling = Math.min(reconnectMaxDelayMs, reconnectBaseDelayMs << Math.min(failures++, 20));
+            long delay = ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+            Counter.builder("kubesent.watch.restarts")
+                    .tag("relist", String.valueOf(resourceVersion == null))
+                    .description("Pod watches reopened after an error")
+                    .register(meterRegistry)
+                    .increment();
+            log.warn("Pod watcher for {} failed ({}); reconnecting in {} ms{}", namespace, e.getMessage(), delay,
+                    resourceVersion == null ? " with a relist" : " from resourceVersion " + resourceVersion);
+            watchExecutor.schedule(this::listThenWatch, delay, TimeUnit.MILLISECONDS);
+        }
+
+        private void stop() {
+            stopped = true;
+            if (watch != null) {
+                watch.close();
+            }
         }
     }
 
     /**
-     * Extracts the last N lines of logs from the pod.
-     *
-     * @param namespace Pod namespace
-     * @param podName   Pod name
-     * @return Pod logs
+     * Adapts informer notifications to the watcher callbacks. Resync
+     * notifications (unchanged resource version) are ignored.
      */
-    private String extractPodLogs(String namespace, String podName) {
-        try {
-            String logs = kubernetesClient.pods()
-                    .inNamespace(namespace)
-                    .withName(podName)
-                    .tailingLines(logLines)
-                    .getLog();
+    private class InformerEventHandler implements ResourceEventHandler<Pod> {
 
-            log.debug("Extracted {} lines of logs for pod {}/{}", logLines, namespace, podName);
-            return logs != null ? logs : "No logs available";
+        @Override
+        public void onAdd(Pod pod) {
+            eventReceived(Action.ADDED, pod);
+        }
 
-        } catch (Exception e) {
-            log.error("Failed to extract logs for pod {}/{}: {}",
-                    namespace, podName, e.getMessage());
-            return "Failed to retrieve logs: " + e.getMessage();
+        @Override
+        public void onUpdate(Pod oldPod, Pod newPod) {
+            if (oldPod != null && Objects.equals(oldPod.getMetadata().getResourceVersion(),
+                    newPod.getMetadata().getResourceVersion())) {
+                return;
+            }
+            eventReceived(Action.MODIFIED, newPod);
+        }
+
+        @Override
+        public void onDelete(Pod pod, boolean deletedFinalStateUnknown) {
+            eventReceived(Action.DELETED, pod);
         }
     }
 
     /**
-     * Converts pod object to YAML string.
-     *
-     * @param pod The pod to convert
-     * @return YAML representation
+     * A detected failure waiting in the work queue.
      */
-    private String convertPodToYaml(Pod pod) {
-        try {
-            return yamlMapper.writeValueAsString(pod);
-        } catch (IOException e) {
-            log.error("Failed to convert pod to YAML: {}", e.getMessage());
-            return "Failed to convert pod to YAML";
-        }
+    private record FailureEvent(Pod pod, FailureClassification classification) {
     }
 
     @PreDestroy
     public void shutdown() {
         log.info("Shutting down pod watcher service");
-        executorService.shutdown();
+        watchers.forEach(NamespaceWatcher::stop);
+        if (watchExecutor != null) {
+            watchExecutor.shutdownNow();
+        }
+        workQueue.shutdown();
+        executorService.shutdownNow();
     }
 }
@@ -1,41 +1,200 @@
 package com.kubesent.operator.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kubesent.operator.cluster.ClusterScoped;
+import com.kubesent.operator.config.ApiRateLimiter;
+import com.kubesent.operator.config.ApiRateLimiter.Priority;
 import com.kubesent.operator.model.AnalysisResponse;
+import com.kubesent.operator.model.FailureFingerprint;
+import com.kubesent.operator.model.WorkloadRef;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.ManagedFieldsEntry;
 import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import io.fabric8.kubernetes.api.model.StatusCause;
 import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
 import io.fabric8.kubernetes.client.dsl.PodResource;
+import io.fabric8.kubernetes.client.dsl.Resource;
+import io.fabric8.kubernetes.client.dsl.base.PatchContext;
+import io.fabric8.kubernetes.client.dsl.base.PatchType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.stereotype.Service;
 
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Service to apply remediation patches to Kubernetes resources.
+ * Pods of a Deployment, StatefulSet or DaemonSet are fixed by patching the
+ * workload's pod template once, since the controller would revert a patch to
+ * the pod itself; standalone pods are patched (or replaced) directly.
+ * <p>
+ * Fixes are sent with server-side apply under the operator's field manager,
+ * after a server-side dry-run. Each apply carries the part of the fix that
+ * differs from the live object together with every field the manager applied
+ * to that object before, since server-side apply removes owned fields left
+ * out of a later configuration. Fixes that change nothing are skipped, and a fix applied before is
+ * not re-applied to the same object until it changed or a while has passed, so
+ * a fix reverted by another controller does not start a patch loop.
  */
 @Slf4j
-@Service
+@ClusterScoped
 @RequiredArgsConstructor
 public class RemediationService {
 
     private final KubernetesClient kubernetesClient;
+    private final MeterRegistry meterRegistry;
+    private final ApiRateLimiter rateLimiter;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    private static final int HTTP_UNPROCESSABLE_ENTITY = 422;
+
+    // Workload key -> pod template revision that has already been patched
+    private final Map<String, String> remediatedRevisions = new ConcurrentHashMap<>();
+    // Workload or pod key#digest of an applied change -> what it wrote; least recently used evicted first
+    private final Map<String, AppliedChange> appliedChanges = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, AppliedChange> eldest) {
+            return size() > appliedMaxEntries;
+        }
+    };
+    private final Set<CompletableFuture<?>> pendingDeletions = ConcurrentHashMap.newKeySet();
+
     @Value("${kubesent.remediation.confidence-threshold:90.0}")
     private Double confidenceThreshold;
 
     @Value("${kubesent.remediation.dry-run:false}")
     private Boolean dryRun;
 
+    @Value("${kubesent.remediation.field-manager:kubesent-operator}")
+    private String fieldManager;
+
+    @Value("${kubesent.remediation.server-dry-run:true}")
+    private Boolean serverDryRun;
+
+    @Value("${kubesent.remediation.reapply-after-ms:3600000}")
+    private Long reapplyAfterMs;
+
+    @Value("${kubesent.remediation.applied-max-entries:10000}")
+    private Integer appliedMaxEntries;
+
+    @Value("${kubesent.remediation.deletion-timeout-ms:30000}")
+    private Long deletionTimeoutMs;
+
+    @Value("${kubesent.remediation.recreate-attempts:6}")
+    private Integer recreateAttempts;
+
+    @Value("${kubesent.remediation.recreate-base-delay-ms:100}")
+    private Long recreateBaseDelayMs;
+
+    @Value("${kubesent.remediation.recreate-max-delay-ms:5000}")
+    private Long recreateMaxDelayMs;
+
+    @Value("${kubesent.remediation.replace-threads:2}")
+    private Integer replaceThreads;
+
+    // Creates of force replaces, off the informer threads that complete deletions
+    private ExecutorService replaceExecutor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger counter = new AtomicInteger();
+        replaceExecutor = Executors.newFixedThreadPool(replaceThreads, r -> {
+            Thread thread = new Thread(r, "pod-replace-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
     /**
      * Applies the suggested fix if confidence score exceeds threshold.
      *
      * @param pod      The pod to remediate
      * @param analysis The AI analysis response
+     * @return Future with the outcome (workload_patched, patched, replaced,
+     *         unchanged, already_applied, rejected, below_threshold, dry_run or
+     *         failed), completed once the fix has been applied or skipped; a
+     *         force replace completes it only after the pod was recreated
      */
-    public void applyRemediation(Pod pod, AnalysisResponse analysis) {
+    public CompletableFuture<String> applyRemediation(Pod pod, AnalysisResponse analysis) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        CompletableFuture<String> outcome;
+        try {
+            outcome = remediate(pod, analysis);
+        } catch (RuntimeException e) {
+            outcome = CompletableFuture.failedFuture(e);
+        }
+        return outcome
+                .exceptionally(e -> "failed")
+                .thenApply(result -> {
+                    sample.stop(Timer.builder("kubesent.remediation.apply")
+                            .tag("outcome", result)
+                            .description("Time to evaluate and apply a suggested fix")
+                            .publishPercentileHistogram()
+                            .register(meterRegistry));
+                    Counter.builder("kubesent.remediations")
+                            .tag("outcome", result)
+                            .description("Suggested fixes by outcome: workload_patched, patched, replaced, "
+                                    + "unchanged, already_applied, rejected, below_threshold, dry_run, failed")
+                            .register(meterRegistry)
+                            .increment();
+                    return result;
+                });
+    }
+
+    /**
+     * Checks whether the pod comes from a workload revision whose template has
+     * already been patched, i.e. it is an old replica awaiting the rollout.
+     *
+     * @param pod The failing pod
+     * @return True if its workload was remediated for the pod's revision
+     */
+    public boolean isRemediated(Pod pod) {
+        WorkloadRef workload = WorkloadRef.of(pod);
+        return workload.isTemplated()
+                && FailureFingerprint.revision(pod).equals(remediatedRevisions.get(workload.key()));
+    }
+
+    /**
+     * Marks a workload revision as remediated, e.g. from the incident journal
+     * after a restart.
+     *
+     * @param workload Workload key (namespace/Kind/name)
+     * @param revision Pod template revision that was patched
+     */
+    public void restoreRemediated(String workload, String revision) {
+        remediatedRevisions.put(workload, revision);
+    }
+
+    /**
+     * @return Future with the outcome tag of the remediation
+     */
+    private CompletableFuture<String> remediate(Pod pod, AnalysisResponse analysis) {
         String podName = pod.getMetadata().getName();
         String namespace = pod.getMetadata().getNamespace();
 
@@ -45,126 +204,511 @@ public class RemediationService {
         if (analysis.getConfidenceScore() < confidenceThreshold) {
             log.warn("Confidence score {} is below threshold {}. Skipping auto-remediation.",
                     analysis.getConfidenceScore(), confidenceThreshold);
-            return;
+            return CompletableFuture.completedFuture("below_threshold");
         }
 
         if (dryRun) {
             log.info("[DRY-RUN] Would apply patch to pod {}/{}: {}",
                     namespace, podName, analysis.getSuggestedFixYaml());
-            return;
+            return CompletableFuture.completedFuture("dry_run");
         }
 
-        try {
-            log.info("Applying remediation patch to pod {}/{}", namespace, podName);
+        WorkloadRef workload = WorkloadRef.of(pod);
+        if (workload.isTemplated()) {
+            return CompletableFuture.completedFuture(
+                    patchWorkloadTemplate(workload, pod, analysis.getSuggestedFixYaml()));
+        }
 
-            // Convert suggested fix to JSON string for patch
-            String patchJson = objectMapper.writeValueAsString(analysis.getSuggestedFixYaml());
+        String key = namespace + "/Pod/" + podName;
+        Map<String, Object> fix = analysis.getSuggestedFixYaml();
+        Map<?, ?> change = FixDiff.change(fix, objectMapper.convertValue(pod, Map.class));
+        String skipped = skipReason(key, change, pod);
+        if (skipped != null) {
+            return CompletableFuture.completedFuture(skipped);
+        }
+        String appliedKey = appliedKey(key, change);
 
-            // Apply strategic merge patch
+        try {
+            log.info("Applying remediation to pod {}/{}: {}", namespace, podName, change);
             PodResource podResource = kubernetesClient.pods()
                     .inNamespace(namespace)
                     .withName(podName);
+            String configuration = applyConfiguration(pod, change);
 
-            Pod patchedPod = podResource.patch(patchJson);
+            if (serverDryRun && !changes(pod, serverSideApply(podResource, configuration, true))) {
+                log.info("Suggested fix for pod {}/{} changes nothing on the server. Skipping.", namespace, podName);
+                return CompletableFuture.completedFuture("unchanged");
+            }
+            Pod patchedPod = serverSideApply(podResource, configuration, false);
+            recordApplied(appliedKey, patchedPod);
 
-            log.info("Successfully applied remediation patch to pod {}/{}. New resource version: {}",
+            log.info("Successfully applied remediation to pod {}/{}. New resource version: {}",
                     namespace, podName, patchedPod.getMetadata().getResourceVersion());
+            return CompletableFuture.completedFuture("patched");
 
+        } catch (KubernetesClientException e) {
+            if (requiresRecreate(e)) {
+                log.warn("Pod {}/{} cannot be changed in place: {}. Attempting force replace...",
+                        namespace, podName, e.getMessage());
+                return replace(pod, fix, appliedKey);
+            }
+            log.error("Failed to apply remediation to pod {}/{}: {}", namespace, podName, e.getMessage());
+            return CompletableFuture.completedFuture(isInvalid(e) ? "rejected" : "failed");
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize remediation for pod {}/{}: {}", namespace, podName, e.getMessage());
+            return CompletableFuture.completedFuture("failed");
+        }
+    }
+
+    /**
+     * Applies the pod-level fix to the workload's pod template. Containers are
+     * merged by name and fields the fix leaves out are kept, so the controller
+     * only rolls out a new revision when the fix actually changes the template.
+     *
+     * @return Outcome tag: workload_patched, unchanged, already_applied,
+     *         rejected or failed
+     */
+    private String patchWorkloadTemplate(WorkloadRef workload, Pod pod, Map<String, Object> fix) {
+        Object podSpec = fix.get("spec");
+        if (!(podSpec instanceof Map)) {
+            log.warn("Suggested fix for {} has no pod spec to apply to the template", workload.key());
+            return "failed";
+        }
+        try {
+            Resource<? extends HasMetadata> resource = workloadResource(workload);
+            rateLimiter.acquire(Priority.READ);
+            HasMetadata live = resource.get();
+            if (live == null) {
+                log.warn("{} no longer exists. Skipping remediation.", workload.key());
+                return "failed";
+            }
+            Map<?, ?> change = FixDiff.change(Map.of("spec", Map.of("template", Map.of("spec", podSpec))),
+                    objectMapper.convertValue(live, Map.class));
+            String skipped = skipReason(workload.key(), change, live);
+            if (skipped != null) {
+                return skipped;
+            }
+
+            log.info("Applying remediation to {} template: {}", workload.key(), change);
+            String configuration = applyConfiguration(live, change);
+            if (serverDryRun && !changes(live, serverSideApply(resource, configuration, true))) {
+                log.info("Suggested fix for {} changes nothing on the server. Skipping.", workload.key());
+                return "unchanged";
+            }
+            HasMetadata patched = serverSideApply(resource, configuration, false);
+
+            recordApplied(appliedKey(workload.key(), change), patched);
+            remediatedRevisions.put(workload.key(), FailureFingerprint.revision(pod));
+            log.info("Successfully patched {} template. New resource version: {}",
+                    workload.key(), patched.getMetadata().getResourceVersion());
+            return "workload_patched";
+        } catch (KubernetesClientException e) {
+            log.error("Failed to patch {} template: {}", workload.key(), e.getMessage());
+            return isInvalid(e) ? "rejected" : "failed";
         } catch (Exception e) {
-            log.error("Failed to apply patch for pod {}/{}: {}. Attempting force replace...",
-                    namespace, podName, e.getMessage());
-            forceReplace(pod, analysis.getSuggestedFixYaml());
+            log.error("Failed to patch {} template: {}", workload.key(), e.getMessage());
+            return "failed";
+        }
+    }
+
+    /**
+     * A change applied before is skipped while the object is still at the
+     * version the change wrote (the fix only looks different, e.g. after server
+     * normalization), and for {@code reapply-after-ms} after it was applied, so
+     * a fix reverted by another controller is re-applied at most that often.
+     *
+     * @param key    Workload or pod key
+     * @param change Effective change of the suggested fix, null if none
+     * @param live   The live object
+     * @return Outcome tag if the fix should not be applied, null otherwise
+     */
+    private String skipReason(String key, Map<?, ?> change, HasMetadata live) {
+        if (change == null) {
+            log.info("Suggested fix for {} is already in place. Skipping.", key);
+            return "unchanged";
+        }
+        String appliedKey = appliedKey(key, change);
+        synchronized (appliedChanges) {
+            AppliedChange applied = appliedChanges.get(appliedKey);
+            if (applied == null) {
+                return null;
+            }
+            if (applied.version() != null && applied.version().equals(version(live))) {
+                log.info("Suggested fix for {} was applied and nothing changed since. Skipping.", key);
+                return "already_applied";
+            }
+            if (System.currentTimeMillis() - applied.appliedAtMillis() < reapplyAfterMs) {
+                log.warn("Suggested fix for {} was applied {} ms ago and has been reverted since. "
+                        + "Not reapplying it yet.", key, System.currentTimeMillis() - applied.appliedAtMillis());
+                return "already_applied";
+            }
+            appliedChanges.remove(appliedKey);
+            return null;
+        }
+    }
+
+    /**
+     * @param written The object as written by the change, null if unknown
+     */
+    private void recordApplied(String appliedKey, HasMetadata written) {
+        synchronized (appliedChanges) {
+            appliedChanges.put(appliedKey, new AppliedChange(
+                    written != null ? version(written) : null, System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * @return Workload or pod key plus a SHA-256 digest of the change
+     */
+    private static String appliedKey(String key, Map<?, ?> change) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return key + "#" + HexFormat.of().formatHex(digest.digest(
+                    change.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * @return Generation of the object if it has one (spec changes only),
+     *         otherwise its resource version
+     */
+    private static String version(HasMetadata resource) {
+        Long generation = resource.getMetadata().getGeneration();
+        return generation != null
+                ? "generation " + generation
+                : "resourceVersion " + resource.getMetadata().getResourceVersion();
+    }
+
+    /**
+     * Builds the apply configuration: the fields the field manager applied to
+     * the object before, the effective change laid over them, and the identity
+     * of the object. Fields of earlier fixes that are missing here would be
+     * removed by the apply.
+     */
+    private String applyConfiguration(HasMetadata live, Map<?, ?> change) throws JsonProcessingException {
+        Map<?, ?> intended = (Map<?, ?>) FixDiff.merge(appliedBefore(live), change);
+
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        if (intended.get("metadata") instanceof Map<?, ?> intendedMetadata) {
+            intendedMetadata.forEach((k, v) -> metadata.put((String) k, v));
         }
+        metadata.put("name", live.getMetadata().getName());
+        metadata.put("namespace", live.getMetadata().getNamespace());
+
+        Map<String, Object> configuration = new LinkedHashMap<>();
+        intended.forEach((k, v) -> configuration.put((String) k, v));
+        configuration.remove("status");
+        configuration.put("apiVersion", HasMetadata.getApiVersion(live.getClass()));
+        configuration.put("kind", HasMetadata.getKind(live.getClass()));
+        configuration.put("metadata", metadata);
+        return objectMapper.writeValueAsString(configuration);
     }
 
     /**
-     * Deletes and recreates the pod with the suggested changes.
+     * @return The fields the field manager owns through apply, with their live
+     *         values, or an empty map if it never applied to the object
+     */
+    private Map<?, ?> appliedBefore(HasMetadata live) {
+        if (live.getMetadata().getManagedFields() == null) {
+            return Map.of();
+        }
+        for (ManagedFieldsEntry entry : live.getMetadata().getManagedFields()) {
+            if (fieldManager.equals(entry.getManager()) && "Apply".equals(entry.getOperation())
+                    && (entry.getSubresource() == null || entry.getSubresource().isEmpty())
+                    && entry.getFieldsV1() != null) {
+                return (Map<?, ?>) FixDiff.owned(entry.getFieldsV1().getAdditionalProperties(),
+                        objectMapper.convertValue(live, Map.class));
+            }
+        }
+        return Map.of();
+    }
+
+    private <T extends HasMetadata> T serverSideApply(Resource<T> resource, String configuration, boolean dryRun) {
+        rateLimiter.acquire(Priority.WRITE);
+        return resource.patch(new PatchContext.Builder()
+                .withPatchType(PatchType.SERVER_SIDE_APPLY)
+                .withFieldManager(fieldManager)
+                // Take over fields last set by kubectl, Helm or the workload's creator
+                .withForce(true)
+                .withDryRun(dryRun ? List.of("All") : null)
+                .build(), configuration);
+    }
+
+    /**
+     * Compares labels, annotations and spec of the live object with the
+     * dry-run result, which includes the server's defaulting and normalization.
+     */
+    private boolean changes(HasMetadata live, HasMetadata dryRun) {
+        return !comparable(live).equals(comparable(dryRun));
+    }
+
+    private Map<String, Object> comparable(HasMetadata resource) {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("labels", resource.getMetadata().getLabels());
+        fields.put("annotations", resource.getMetadata().getAnnotations());
+        fields.put("spec", objectMapper.convertValue(resource, Map.class).get("spec"));
+        return fields;
+    }
+
+    /**
+     * Most of a pod's spec is immutable: changing e.g. its resources in place is
+     * answered with 422 and only Forbidden causes. A server without server-side
+     * apply answers 415.
+     */
+    private static boolean requiresRecreate(KubernetesClientException e) {
+        if (e.getCode() == HttpURLConnection.HTTP_UNSUPPORTED_TYPE) {
+            return true;
+        }
+        if (e.getCode() != HTTP_UNPROCESSABLE_ENTITY) {
+            return false;
+        }
+        List<StatusCause> causes = e.getStatus() != null && e.getStatus().getDetails() != null
+                ? e.getStatus().getDetails().getCauses() : null;
+        return causes == null || causes.isEmpty()
+                || causes.stream().allMatch(cause -> "FieldValueForbidden".equals(cause.getReason()));
+    }
+
+    /**
+     * @return Whether the server rejected the fix itself rather than failing
+     */
+    private static boolean isInvalid(KubernetesClientException e) {
+        return e.getCode() == HttpURLConnection.HTTP_BAD_REQUEST || e.getCode() == HTTP_UNPROCESSABLE_ENTITY
+                || e.getCode() == HttpURLConnection.HTTP_FORBIDDEN;
+    }
+
+    /**
+     * Recreates the pod with the fix, once a dry-run shows the replacement would
+     * be admitted: a pod that is deleted but cannot be recreated is worse than
+     * a failing one.
+     */
+    private CompletableFuture<String> replace(Pod pod, Map<String, Object> fix, String appliedKey) {
+        String podName = pod.getMetadata().getName();
+        String namespace = pod.getMetadata().getNamespace();
+        Pod replacement = replacement(pod, fix);
+
+        if (serverDryRun) {
+            try {
+                rateLimiter.acquire(Priority.WRITE);
+                kubernetesClient.pods().inNamespace(namespace).resource(replacement).dryRun().create();
+            } catch (KubernetesClientException e) {
+                // Validation and admission run before the name is checked, so a
+                // conflict with the pod being replaced means the replacement is valid
+                if (e.getCode() != HttpURLConnection.HTTP_CONFLICT) {
+                    log.error("Replacement for pod {}/{} would not be admitted, keeping the pod: {}",
+                            namespace, podName, e.getMessage());
+                    return CompletableFuture.completedFuture(isInvalid(e) ? "rejected" : "failed");
+                }
+            }
+        }
+        return timedForceReplace(pod, replacement)
+                .thenApply(replaced -> {
+                    if (replaced) {
+                        recordApplied(appliedKey, null);
+                    }
+                    return replaced ? "replaced" : "failed";
+                });
+    }
+
+    /**
+     * @return Copy of the pod with the fix merged in, ready to be created
+     */
+    private Pod replacement(Pod pod, Map<String, Object> fix) {
+        Pod replacement = new PodBuilder(pod).build();
+        // Manually merge suggestions into the copy (Client-side patching)
+        mergeSuggestedFix(replacement, fix);
+
+        // Clean metadata for recreation
+        replacement.getMetadata().setResourceVersion(null);
+        replacement.getMetadata().setUid(null);
+        replacement.getMetadata().setCreationTimestamp(null);
+        replacement.getMetadata().setDeletionTimestamp(null);
+        replacement.getMetadata().setDeletionGracePeriodSeconds(null);
+        replacement.getMetadata().setManagedFields(null);
+        replacement.setStatus(null); // Clear status
+        return replacement;
+    }
+
+    private Resource<? extends HasMetadata> workloadResource(WorkloadRef workload) {
+        return switch (workload.kind()) {
+            case "Deployment" -> kubernetesClient.apps().deployments()
+                    .inNamespace(workload.namespace()).withName(workload.name());
+            case "StatefulSet" -> kubernetesClient.apps().statefulSets()
+                    .inNamespace(workload.namespace()).withName(workload.name());
+            case "DaemonSet" -> kubernetesClient.apps().daemonSets()
+                    .inNamespace(workload.namespace()).withName(workload.name());
+            default -> throw new IllegalArgumentException("Not a templated workload: " + workload.kind());
+        };
+    }
+
+    private CompletableFuture<Boolean> timedForceReplace(Pod originalPod, Pod replacement) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        return forceReplace(originalPod, replacement)
+                .whenComplete((replaced, e) -> sample.stop(Timer.builder("kubesent.remediation.force.replace")
+                        .tag("outcome", Boolean.TRUE.equals(replaced) ? "replaced" : "failed")
+                        .description("Time to delete and recreate a pod, including waiting for deletion")
+                        .publishPercentileHistogram()
+                        .register(meterRegistry)));
+    }
+
+    /**
+     * Deletes the pod and creates its replacement.
      * Used when in-place patching is forbidden (e.g., resource updates on
      * standalone pods).
+     * <p>
+     * The deletion is awaited with a watch on the pod instead of polling, and no
+     * thread is held while waiting. The blocking create runs on the replace
+     * executor, never on the informer thread that completes the wait. Creation is retried with backoff while the
+     * old pod's name is still taken (e.g. a finalizer is still running).
+     *
+     * @return Future completed with whether the pod was recreated
      */
-    private void forceReplace(Pod originalPod, Map<String, Object> patchMap) {
+    private CompletableFuture<Boolean> forceReplace(Pod originalPod, Pod replacement) {
         String podName = originalPod.getMetadata().getName();
         String namespace = originalPod.getMetadata().getNamespace();
+        String uid = originalPod.getMetadata().getUid();
 
+        CompletableFuture<List<Pod>> deleted = null;
         try {
             log.info("Starting force replace for pod {}/{}", namespace, podName);
 
-            // 1. Manually merge suggestions into originalPod (Client-side patching)
-            // We do this to avoid losing fields like 'image' which Jackson would overwrite
-            // if we used simple merge
-            Map<String, Object> spec = (Map) patchMap.get("spec");
-            if (spec != null) {
-                java.util.List<Map<String, Object>> containers = (java.util.List) spec.get("containers");
-                if (containers != null) {
-                    for (Map<String, Object> containerPatch : containers) {
-                        String name = (String) containerPatch.get("name");
-                        // Find matching container in original pod
-                        originalPod.getSpec().getContainers().stream()
-                                .filter(c -> c.getName().equals(name))
-                                .findFirst()
-                                .ifPresent(target -> {
-                                    try {
-                                        // Update resources if present
-                                        if (containerPatch.containsKey("resources")) {
-                                            io.fabric8.kubernetes.api.model.ResourceRequirements reqs = objectMapper
-                                                    .convertValue(containerPatch.get("resources"),
-                                                            io.fabric8.kubernetes.api.model.ResourceRequirements.class);
-                                            target.setResources(reqs);
-                                            log.info("Updated resources for container {}", name);
-                                        }
-                                        // Update image if present (optional support)
-                                        if (containerPatch.containsKey("image")) {
-                                            target.setImage((String) containerPatch.get("image"));
-                                        }
-                                    } catch (Exception ex) {
-                                        log.error("Failed to merge patch for container {}", name, ex);
-                                    }
-                                });
-                    }
-                }
-            }
-
-            // 2. Clean metadata for recreation
-            originalPod.getMetadata().setResourceVersion(null);
-            originalPod.getMetadata().setUid(null);
-            originalPod.getMetadata().setCreationTimestamp(null);
-            originalPod.setStatus(null); // Clear status
+            // 1. Start watching before deleting, so the deletion cannot be missed.
+            // Done once no pod with the old UID exists under this name.
+            PodResource podResource = kubernetesClient.pods().inNamespace(namespace).withName(podName);
+            rateLimiter.acquire(Priority.CONTROL);
+            CompletableFuture<List<Pod>> condition = podResource.informOnCondition(pods -> pods.stream()
+                    .noneMatch(p -> uid == null || uid.equals(p.getMetadata().getUid())));
+            // Bounded from the start, so the watch closes even if nothing below completes it
+            deleted = condition.orTimeout(deletionTimeoutMs, TimeUnit.MILLISECONDS);
+            pendingDeletions.add(condition);
+            condition.whenComplete((pods, e) -> pendingDeletions.remove(condition));
 
-            // 3. Delete old pod
+            // 2. Delete old pod
             log.info("Deleting old pod {}/{}", namespace, podName);
-            kubernetesClient.pods().inNamespace(namespace).withName(podName).delete();
+            rateLimiter.acquire(Priority.WRITE);
+            podResource.delete();
 
-            // 4. Wait for deletion to complete
-            log.info("Waiting for pod {}/{} to be fully deleted...", namespace, podName);
-            long timeout = System.currentTimeMillis() + 30000; // 30 seconds timeout
-            boolean deleted = false;
+            // 3. Wait for deletion to complete, then create the new pod
+            log.info("Waiting up to {} ms for pod {}/{} to be fully deleted...", deletionTimeoutMs, namespace, podName);
+            long deleteStart = System.nanoTime();
+            return deleted
+                    .thenComposeAsync(ignored -> {
+                        log.info("Pod {}/{} deleted after {} ms. Creating new pod", namespace, podName,
+                                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - deleteStart));
+                        return createWithRetry(replacement, 1);
+                    }, replaceExecutor)
+                    .handle((created, e) -> {
+                        if (e != null) {
+                            Throwable cause = e instanceof CompletionException && e.getCause() != null
+                                    ? e.getCause() : e;
+                            if (cause instanceof TimeoutException) {
+                                log.error("Timed out waiting for pod {}/{} to be deleted", namespace, podName);
+                            } else {
+                                log.error("Force replace failed for pod {}/{}: {}",
+                                        namespace, podName, cause.getMessage(), cause);
+                            }
+                            return false;
+                        }
+                        log.info("Successfully recreated pod {}/{} with applied remediation.", namespace, podName);
+                        return true;
+                    });
 
-            while (System.currentTimeMillis() < timeout) {
-                if (kubernetesClient.pods().inNamespace(namespace).withName(podName).get() == null) {
-                    deleted = true;
-                    break;
-                }
-                try {
-                    Thread.sleep(1000);
-                } catch (InterruptedException ie) {
-                    Thread.currentThread().interrupt();
-                    throw new RuntimeException("Interrupted while waiting for pod deletion");
-                }
+        } catch (Exception e) {
+            if (deleted != null) {
+                // Stops the watch; the pod was not deleted, or not by us
+                deleted.cancel(false);
+                pendingDeletions.remove(deleted);
             }
+            log.error("Force replace failed for pod {}/{}: {}", namespace, podName, e.getMessage(), e);
+            return CompletableFuture.completedFuture(false);
+        }
+    }
 
-            if (!deleted) {
-                log.error("Timed out waiting for pod {}/{} to be deleted", namespace, podName);
-                return;
+    /**
+     * Creates the pod, retrying with exponential backoff on 409 Conflict (the
+     * old pod still holds the name). Backoff delays are scheduled, not slept,
+     * and every attempt runs on the replace executor.
+     */
+    private CompletableFuture<Pod> createWithRetry(Pod pod, int attempt) {
+        String namespace = pod.getMetadata().getNamespace();
+        try {
+            rateLimiter.acquire(Priority.WRITE);
+            return CompletableFuture.completedFuture(
+                    kubernetesClient.pods().inNamespace(namespace).resource(pod).create());
+        } catch (KubernetesClientException e) {
+            if (e.getCode() != HttpURLConnection.HTTP_CONFLICT || attempt >= recreateAttempts) {
+                return CompletableFuture.failedFuture(e);
             }
+            long delay = Math.min(recreateMaxDelayMs, recreateBaseDelayMs << Math.min(attempt - 1, 20));
+            log.warn("Pod {}/{} still exists (attempt {}/{}). Retrying create in {} ms",
+                    namespace, pod.getMetadata().getName(), attempt, recreateAttempts, delay);
+            Executor delayed = CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS, replaceExecutor);
+            return CompletableFuture.supplyAsync(() -> attempt + 1, delayed)
+                    .thenCompose(next -> createWithRetry(pod, next));
+        }
+    }
 
-            // 5. Create new pod
-            log.info("Creating new pod {}/{}", namespace, podName);
-            kubernetesClient.pods().inNamespace(namespace).resource(originalPod).create();
+    /**
+     * Merges the container changes of a suggested fix (resources, image) into
+     * the pod spec. Done field by field rather than with a generic merge, so
+     * fields the fix leaves out (e.g. 'image') are not overwritten.
+     *
+     * @param pod      The pod to modify
+     * @param patchMap The suggested fix
+     */
+    void mergeSuggestedFix(Pod pod, Map<String, Object> patchMap) {
+        if (patchMap.get("spec") instanceof Map<?, ?> spec) {
+            if (spec.get("containers") instanceof List<?> containers) {
+                for (Object entry : containers) {
+                    if (!(entry instanceof Map<?, ?> containerPatch)) {
+                        continue;
+                    }
+                    String name = (String) containerPatch.get("name");
+                    // Find matching container in original pod
+                    pod.getSpec().getContainers().stream()
+                            .filter(c -> c.getName().equals(name))
+                            .findFirst()
+                            .ifPresent(target -> {
+                                try {
+                                    // Update resources if present
+                                    if (containerPatch.containsKey("resources")) {
+                                        io.fabric8.kubernetes.api.model.ResourceRequirements reqs = objectMapper
+                                                .convertValue(containerPatch.get("resources"),
+                                                        io.fabric8.kubernetes.api.model.ResourceRequirements.class);
+                                        target.setResources(reqs);
+                                        log.info("Updated resources for container {}", name);
+                                    }
+                                    // Update image if present (optional support)
+                                    if (containerPatch.containsKey("image")) {
+                                        target.setImage((String) containerPatch.get("image"));
+                                    }
+                                } catch (Exception ex) {
+                                    log.error("Failed to merge patch for container {}", name, ex);
+                                }
+                            });
+                }
+            }
+        }
+    }
 
-            log.info("Successfully recreated pod {}/{} with applied remediation.", namespace, podName);
+    /**
+     * @param version        Version of the object the change wrote, null if unknown
+     * @param appliedAtMillis When the change was applied
+     */
+    private record AppliedChange(String version, long appliedAtMillis) {
+    }
 
-        } catch (Exception e) {
-            log.error("Force replace failed for pod {}/{}: {}", namespace, podName, e.getMessage(), e);
+    /**
+     * Stops the informers of force replaces still waiting for a deletion. They
+     * must be stopped before the client closes: an informer stopping itself
+     * while the client closes its informers deadlocks in the client.
+     */
+    @PreDestroy
+    public void shutdown() {
+        pendingDeletions.forEach(deletion -> deletion.cancel(false));
+        if (replaceExecutor != null) {
+            replaceExecutor.shutdownNow();
         }
     }
 }
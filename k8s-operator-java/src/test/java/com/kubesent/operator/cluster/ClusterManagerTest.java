@@ -0,0 +1,53 @@
+package com.kubesent.operator.cluster;
+
+import com.kubesent.operator.config.ApiRateLimiter;
+import com.kubesent.operator.service.PodCacheService;
+import com.kubesent.operator.support.ValueDefaults;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Checks the child contexts clusters run in.
+ */
+class ClusterManagerTest {
+
+    @Test
+    void childContextSplitsCommaSeparatedNamespaces() {
+        try (AnnotationConfigApplicationContext parent = new AnnotationConfigApplicationContext()) {
+            parent.getEnvironment().getPropertySources().addFirst(new MapPropertySource("test",
+                    Map.of("kubesent.kubernetes.namespaces", "team-a, team-b")));
+            // As set up by Spring Boot
+            parent.getBeanFactory().setConversionService(ApplicationConversionService.getSharedInstance());
+            parent.refresh();
+            ClusterManager manager = ValueDefaults.apply(new ClusterManager(parent, new SimpleMeterRegistry()));
+
+            try (AnnotationConfigApplicationContext cluster = manager.clusterContext(
+                    ClusterManager.DEFAULT_CLUSTER, null, false)) {
+                cluster.registerBean(KubernetesClient.class, () -> mock(KubernetesClient.class));
+                cluster.registerBean(ApiRateLimiter.class, ApiRateLimiter::unlimited);
+                cluster.register(PodCacheService.class);
+                cluster.refresh();
+
+                assertThat(cluster.getBean(PodCacheService.class).resolveNamespaces())
+                        .containsExactly("team-a", "team-b");
+            }
+        }
+    }
+
+    @Test
+    void clusterPathGoesBeforeExtension() {
+        assertThat(ClusterManager.clusterPath("/var/kubesent/incidents.journal", "prod"))
+                .isEqualTo("/var/kubesent/incidents-prod.journal");
+        assertThat(ClusterManager.clusterPath("/var/kubesent.d/incidents", "eu/west"))
+                .isEqualTo("/var/kubesent.d/incidents-eu_west");
+    }
+}
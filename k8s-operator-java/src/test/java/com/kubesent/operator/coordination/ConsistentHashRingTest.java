@@ -0,0 +1,83 @@
+package com.kubesent.operator.coordination;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Places namespace-like keys on rings of a few members.
+ */
+class ConsistentHashRingTest {
+
+    private static final int KEYS = 10_000;
+    private static final List<String> MEMBERS = List.of("kubesent-0", "kubesent-1", "kubesent-2", "kubesent-3");
+
+    @Test
+    void emptyRingOwnsNothing() {
+        assertThat(new ConsistentHashRing(List.of(), 64).ownerOf("shop")).isNull();
+    }
+
+    @Test
+    void ownershipDoesNotDependOnMemberOrder() {
+        ConsistentHashRing ring = new ConsistentHashRing(MEMBERS, 64);
+        ConsistentHashRing reversed = new ConsistentHashRing(List.of("kubesent-3", "kubesent-2", "kubesent-1",
+                "kubesent-0"), 64);
+
+        for (int i = 0; i < KEYS; i++) {
+            assertThat(reversed.ownerOf(key(i))).isEqualTo(ring.ownerOf(key(i)));
+        }
+    }
+
+    @Test
+    void keysSpreadEvenly() {
+        ConsistentHashRing ring = new ConsistentHashRing(MEMBERS, 64);
+        Map<String, Integer> owned = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            owned.merge(ring.ownerOf(key(i)), 1, Integer::sum);
+        }
+
+        // Within a third of an equal share at the default 64 virtual nodes
+        int fair = KEYS / MEMBERS.size();
+        assertThat(owned).containsOnlyKeys(MEMBERS);
+        assertThat(owned.values()).allSatisfy(count -> assertThat(count).isBetween(fair * 2 / 3, fair * 4 / 3));
+    }
+
+    @Test
+    void joiningMemberOnlyTakesKeys() {
+        ConsistentHashRing before = new ConsistentHashRing(MEMBERS, 64);
+        ConsistentHashRing after = new ConsistentHashRing(List.of("kubesent-0", "kubesent-1", "kubesent-2",
+                "kubesent-3", "kubesent-4"), 64);
+
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            String owner = after.ownerOf(key(i));
+            if (!owner.equals(before.ownerOf(key(i)))) {
+                assertThat(owner).isEqualTo("kubesent-4");
+                moved++;
+            }
+        }
+        // About 1/5 of the keys, not a reshuffle
+        assertThat(moved).isBetween(KEYS / 10, KEYS * 3 / 10);
+    }
+
+    @Test
+    void leavingMemberOnlyGivesUpItsKeys() {
+        ConsistentHashRing before = new ConsistentHashRing(MEMBERS, 64);
+        ConsistentHashRing after = new ConsistentHashRing(List.of("kubesent-0", "kubesent-1", "kubesent-3"), 64);
+
+        for (int i = 0; i < KEYS; i++) {
+            String owner = before.ownerOf(key(i));
+            if (!owner.equals("kubesent-2")) {
+                assertThat(after.ownerOf(key(i))).isEqualTo(owner);
+            }
+        }
+    }
+
+    private static String key(int i) {
+        return "namespace-" + i;
+    }
+}
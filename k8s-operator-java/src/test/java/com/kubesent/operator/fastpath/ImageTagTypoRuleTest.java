@@ -0,0 +1,98 @@
+package com.kubesent.operator.fastpath;
+
+import com.kubesent.operator.model.AnalysisResponse;
+import com.kubesent.operator.model.FailureClassification;
+import com.kubesent.operator.model.FailureClassification.Severity;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks which image tags the rule corrects, and to what.
+ */
+class ImageTagTypoRuleTest {
+
+    private static final FailureClassification PULL_FAILURE =
+            new FailureClassification(Severity.HIGH, "ImagePullBackOff", "app", false);
+
+    private final ImageTagTypoRule rule =
+            new ImageTagTypoRule(Set.of("latest", "stable", "main", "master", "release"), 90.0);
+
+    @Test
+    void distanceCountsAdjacentSwapsAsOneEdit() {
+        assertThat(ImageTagTypoRule.distance("latest", "latest")).isZero();
+        assertThat(ImageTagTypoRule.distance("lastest", "latest")).isEqualTo(1);
+        assertThat(ImageTagTypoRule.distance("latst", "latest")).isEqualTo(1);
+        assertThat(ImageTagTypoRule.distance("lateat", "latest")).isEqualTo(1);
+        assertThat(ImageTagTypoRule.distance("latset", "latest")).isEqualTo(1);
+        // Optimal string alignment edits no substring twice, unlike full Damerau-Levenshtein
+        assertThat(ImageTagTypoRule.distance("ca", "abc")).isEqualTo(3);
+    }
+
+    @Test
+    void correctsTagsOneEditFromAKnownTag() {
+        assertThat(rule.correction("lastest")).isEqualTo("latest");
+        assertThat(rule.correction("stabel")).isEqualTo("stable");
+        assertThat(rule.correction("mian")).isEqualTo("main");
+    }
+
+    @Test
+    void leavesKnownShortAndDistantTagsAlone() {
+        assertThat(rule.correction("latest")).isNull();
+        assertThat(rule.correction("mai")).isNull();
+        assertThat(rule.correction("4.12.3")).isNull();
+        assertThat(rule.correction("lattest1")).isNull();
+    }
+
+    @Test
+    void rejectsTagsCloseToSeveralKnownTags() {
+        ImageTagTypoRule releases = new ImageTagTypoRule(Set.of("release-1", "release-2"), 90.0);
+
+        assertThat(releases.correction("release-3")).isNull();
+        assertThat(releases.correction("relase-1")).isEqualTo("release-1");
+    }
+
+    @Test
+    void fixesTheTagAndKeepsRegistryPort() {
+        AnalysisResponse analysis = rule.evaluate(pod("registry.local:5000/shop/web:lastest"), PULL_FAILURE);
+
+        assertThat(analysis.getConfidenceScore()).isEqualTo(90.0);
+        assertThat(analysis.getSuggestedFixYaml()).isEqualTo(Map.of("spec", Map.of("containers", List.of(
+                Map.of("name", "app", "image", "registry.local:5000/shop/web:latest")))));
+    }
+
+    @Test
+    void skipsUntaggedAndDigestPinnedImages() {
+        assertThat(rule.evaluate(pod("registry.local:5000/shop/web"), PULL_FAILURE)).isNull();
+        assertThat(rule.evaluate(pod("registry.local/shop/web:lastest@sha256:0123"), PULL_FAILURE)).isNull();
+    }
+
+    @Test
+    void onlyHandlesPullFailuresOfAppContainers() {
+        Pod pod = pod("registry.local/shop/web:lastest");
+
+        assertThat(rule.evaluate(pod, new FailureClassification(Severity.HIGH, "ErrImagePull", "app", false)))
+                .isNotNull();
+        assertThat(rule.evaluate(pod, new FailureClassification(Severity.HIGH, "CrashLoopBackOff", "app", false)))
+                .isNull();
+        assertThat(rule.evaluate(pod, new FailureClassification(Severity.HIGH, "ImagePullBackOff", "app", true)))
+                .isNull();
+        assertThat(rule.evaluate(pod, new FailureClassification(Severity.HIGH, "ImagePullBackOff", "other", false)))
+                .isNull();
+    }
+
+    private static Pod pod(String image) {
+        return new PodBuilder()
+                .withNewMetadata().withNamespace("shop").withName("web-1").endMetadata()
+                .withNewSpec()
+                .addNewContainer().withName("app").withImage(image).endContainer()
+                .endSpec()
+                .build();
+    }
+}
@@ -0,0 +1,125 @@
+package com.kubesent.operator.fastpath;
+
+import com.kubesent.operator.model.AnalysisResponse;
+import com.kubesent.operator.model.FailureClassification;
+import com.kubesent.operator.model.FailureClassification.Severity;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import io.fabric8.kubernetes.api.model.Quantity;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Checks the memory limits the rule raises OOMKilled containers to.
+ */
+class OomMemoryBumpRuleTest {
+
+    private static final FailureClassification OOM =
+            new FailureClassification(Severity.CRITICAL, "OOMKilled", "app", false);
+
+    private final OomMemoryBumpRule rule = new OomMemoryBumpRule(1.5, new Quantity("1Gi"), 95.0);
+
+    @Test
+    void raisesTheLimitByTheFactor() {
+        AnalysisResponse analysis = rule.evaluate(pod("512Mi"), OOM);
+
+        assertThat(analysis.getConfidenceScore()).isEqualTo(95.0);
+        assertThat(limits(analysis)).containsEntry("memory", "768Mi");
+    }
+
+    @Test
+    void roundsUpToWholeMi() {
+        // 100M x 1.5 = 150,000,000 bytes, about 143.05Mi
+        assertThat(limits(rule.evaluate(pod("100M"), OOM))).containsEntry("memory", "144Mi");
+    }
+
+    @Test
+    void capsAtTheMaximum() {
+        assertThat(limits(rule.evaluate(pod("800Mi"), OOM))).containsEntry("memory", "1024Mi");
+        assertThat(rule.evaluate(pod("1Gi"), OOM)).isNull();
+        assertThat(rule.evaluate(pod("2Gi"), OOM)).isNull();
+    }
+
+    @Test
+    void keepsOtherResources() {
+        Pod pod = new PodBuilder(pod("512Mi"))
+                .editSpec()
+                .editFirstContainer()
+                .editResources()
+                .addToLimits("cpu", new Quantity("500m"))
+                .addToRequests("memory", new Quantity("256Mi"))
+                .endResources()
+                .endContainer()
+                .endSpec()
+                .build();
+
+        Map<String, Object> resources = resources(rule.evaluate(pod, OOM));
+
+        assertThat(resources).containsEntry("limits", Map.of("memory", "768Mi", "cpu", "500m"));
+        assertThat(resources).containsEntry("requests", Map.of("memory", "256Mi"));
+    }
+
+    @Test
+    void crashLoopAfterOomKillCounts() {
+        Pod pod = new PodBuilder(pod("512Mi"))
+                .withNewStatus()
+                .addNewContainerStatus().withName("app")
+                .withNewLastState().withNewTerminated().withReason("OOMKilled").withExitCode(137)
+                .endTerminated().endLastState()
+                .endContainerStatus()
+                .endStatus()
+                .build();
+        FailureClassification crashLoop = new FailureClassification(Severity.HIGH, "CrashLoopBackOff", "app", false);
+
+        assertThat(limits(rule.evaluate(pod, crashLoop))).containsEntry("memory", "768Mi");
+        assertThat(rule.evaluate(pod("512Mi"), crashLoop)).isNull();
+    }
+
+    @Test
+    void skipsContainersWithoutLimitAndInitContainers() {
+        Pod unlimited = new PodBuilder()
+                .withNewMetadata().withNamespace("shop").withName("web-1").endMetadata()
+                .withNewSpec().addNewContainer().withName("app").withImage("registry.local/web:1").endContainer()
+                .endSpec()
+                .build();
+
+        assertThat(rule.evaluate(unlimited, OOM)).isNull();
+        assertThat(rule.evaluate(pod("512Mi"), new FailureClassification(Severity.CRITICAL, "OOMKilled", "app", true)))
+                .isNull();
+    }
+
+    @Test
+    void factorMustRaiseTheLimit() {
+        assertThatThrownBy(() -> new OomMemoryBumpRule(1.0, new Quantity("1Gi"), 95.0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> resources(AnalysisResponse analysis) {
+        Map<String, Object> spec = (Map<String, Object>) analysis.getSuggestedFixYaml().get("spec");
+        Map<String, Object> container = ((List<Map<String, Object>>) spec.get("containers")).get(0);
+        assertThat(container).containsEntry("name", "app");
+        return (Map<String, Object>) container.get("resources");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, String> limits(AnalysisResponse analysis) {
+        return (Map<String, String>) resources(analysis).get("limits");
+    }
+
+    private static Pod pod(String memoryLimit) {
+        return new PodBuilder()
+                .withNewMetadata().withNamespace("shop").withName("web-1").endMetadata()
+                .withNewSpec()
+                .addNewContainer().withName("app").withImage("registry.local/web:1")
+                .withNewResources().addToLimits("memory", new Quantity(memoryLimit)).endResources()
+                .endContainer()
+                .endSpec()
+                .build();
+    }
+}
@@ -0,0 +1,164 @@
+package com.kubesent.operator.journal;
+
+import com.kubesent.operator.journal.IncidentJournal.Analysis;
+import com.kubesent.operator.journal.IncidentJournal.Detection;
+import com.kubesent.operator.journal.IncidentJournal.Entry;
+import com.kubesent.operator.journal.IncidentJournal.Remediation;
+import com.kubesent.operator.model.FailureClassification.Severity;
+import com.kubesent.operator.model.FailureFingerprint;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Writes journals to a temporary directory and replays them.
+ */
+class IncidentJournalTest {
+
+    private static final long RETENTION = TimeUnit.HOURS.toMillis(1);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replaysEveryEntryType() throws IOException {
+        Path path = dir.resolve("incidents.journal");
+        long now = System.currentTimeMillis();
+        byte[] json = "{\"root_cause\":\"oom\"}".getBytes(StandardCharsets.UTF_8);
+        FailureFingerprint fingerprint = new FailureFingerprint("default", "shop/Deployment/web", "abc123",
+                "app", "registry.local/web:1", "OOMKilled", "f00d");
+        try (IncidentJournal journal = new IncidentJournal(path, 4096, 65536, RETENTION)) {
+            journal.append(new Detection(now, "shop/web-1", "shop/Deployment/web", "OOMKilled", Severity.CRITICAL));
+            journal.append(new Analysis(now + 1, fingerprint, json));
+            journal.append(new Remediation(now + 2, "shop/web-1", "shop/Deployment/web", "abc123", "workload_patched"));
+        }
+
+        try (IncidentJournal journal = new IncidentJournal(path, 4096, 65536, RETENTION)) {
+            List<Entry> entries = journal.entries();
+
+            assertThat(entries).hasSize(3);
+            assertThat(entries.get(0)).isEqualTo(
+                    new Detection(now, "shop/web-1", "shop/Deployment/web", "OOMKilled", Severity.CRITICAL));
+            Analysis analysis = (Analysis) entries.get(1);
+            assertThat(analysis.fingerprint()).isEqualTo(fingerprint);
+            assertThat(analysis.responseJson()).isEqualTo(json);
+            assertThat(entries.get(2)).isEqualTo(
+                    new Remediation(now + 2, "shop/web-1", "shop/Deployment/web", "abc123", "workload_patched"));
+        }
+    }
+
+    @Test
+    void laterOutcomeDoesNotHidePatchedWorkload() throws IOException {
+        Path path = dir.resolve("incidents.journal");
+        long now = System.currentTimeMillis();
+        try (IncidentJournal journal = new IncidentJournal(path, 4096, 65536, RETENTION)) {
+            journal.append(new Remediation(now, "shop/web-1", "shop/Deployment/web", "abc123", "workload_patched"));
+            journal.append(new Remediation(now + 1, "shop/web-2", "shop/Deployment/web", "abc123", "unchanged"));
+            journal.compact();
+        }
+
+        try (IncidentJournal journal = new IncidentJournal(path, 4096, 65536, RETENTION)) {
+            assertThat(journal.entries()).extracting(e -> ((Remediation) e).outcome())
+                    .containsExactly("workload_patched", "unchanged");
+        }
+    }
+
+    @Test
+    void tornRecordEndsReplayAndIsOverwritten() throws IOException {
+        Path path = dir.resolve("incidents.journal");
+        long now = System.currentTimeMillis();
+        int firstEnd;
+        try (IncidentJournal journal = new IncidentJournal(path, 4096, 65536, RETENTION)) {
+            journal.append(detection(now, "shop/web-1"));
+            firstEnd = journal.usedBytes();
+            journal.append(detection(now + 1, "shop/web-2"));
+        }
+        // Corrupt the payload of the second record, as a write cut short by a crash would
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.seek(firstEnd + 10);
+            file.write(0xFF);
+        }
+
+        try (IncidentJournal journal = new IncidentJournal(path, 4096, 65536, RETENTION)) {
+            assertThat(journal.entries()).containsExactly(detection(now, "shop/web-1"));
+            assertThat(journal.usedBytes()).isEqualTo(firstEnd);
+            journal.append(detection(now + 2, "shop/web-3"));
+        }
+
+        try (IncidentJournal journal = new IncidentJournal(path, 4096, 65536, RETENTION)) {
+            assertThat(journal.entries())
+                    .containsExactly(detection(now, "shop/web-1"), detection(now + 2, "shop/web-3"));
+        }
+    }
+
+    @Test
+    void compactionKeepsLatestEntryPerKeyAndDropsExpired() throws IOException {
+        Path path = dir.resolve("incidents.journal");
+        long now = System.currentTimeMillis();
+        try (IncidentJournal journal = new IncidentJournal(path, 4096, 65536, RETENTION)) {
+            journal.append(detection(now - 2 * RETENTION, "shop/old-1"));
+            for (int i = 0; i < 20; i++) {
+                journal.append(detection(now + i, "shop/web-1"));
+            }
+            int before = journal.usedBytes();
+
+            assertThat(journal.compact()).isPositive();
+            assertThat(journal.usedBytes()).isLessThan(before);
+            assertThat(journal.entries()).containsExactly(detection(now + 19, "shop/web-1"));
+        }
+
+        try (IncidentJournal journal = new IncidentJournal(path, 4096, 65536, RETENTION)) {
+            assertThat(journal.entries()).containsExactly(detection(now + 19, "shop/web-1"));
+        }
+    }
+
+    @Test
+    void fullJournalCompactsAndGrowsInsteadOfDropping() throws IOException {
+        Path path = dir.resolve("incidents.journal");
+        long now = System.currentTimeMillis();
+        try (IncidentJournal journal = new IncidentJournal(path, 256, 65536, RETENTION)) {
+            for (int i = 0; i < 50; i++) {
+                journal.append(detection(now + i, "shop/web-" + i));
+            }
+            assertThat(journal.capacityBytes()).isGreaterThan(256);
+        }
+
+        try (IncidentJournal journal = new IncidentJournal(path, 256, 65536, RETENTION)) {
+            assertThat(journal.entries()).hasSize(50);
+        }
+    }
+
+    @Test
+    void compactionFailsRatherThanDropLiveEntries() throws IOException {
+        Path path = dir.resolve("incidents.journal");
+        long now = System.currentTimeMillis();
+        try (IncidentJournal journal = new IncidentJournal(path, 4096, 65536, RETENTION)) {
+            for (int i = 0; i < 20; i++) {
+                journal.append(detection(now + i, "shop/web-" + i));
+            }
+        }
+
+        // Reopened with a maximum below what its live entries need
+        try (IncidentJournal journal = new IncidentJournal(path, 256, 256, RETENTION)) {
+            assertThat(journal.entries()).hasSize(20);
+            assertThatThrownBy(journal::compact).isInstanceOf(IOException.class);
+        }
+
+        try (IncidentJournal journal = new IncidentJournal(path, 4096, 65536, RETENTION)) {
+            assertThat(journal.entries()).hasSize(20);
+        }
+    }
+
+    private static Detection detection(long timestamp, String podKey) {
+        return new Detection(timestamp, podKey, "shop/Deployment/web", "CrashLoopBackOff", Severity.HIGH);
+    }
+}
@@ -0,0 +1,469 @@
+package com.kubesent.operator.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.kubesent.operator.KubeSentOperatorApplication;
+import io.fabric8.kubernetes.api.model.ContainerStatus;
+import io.fabric8.kubernetes.api.model.ContainerStatusBuilder;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import io.fabric8.kubernetes.api.model.Quantity;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
+import io.fabric8.kubernetes.client.WatcherException;
+import io.fabric8.kubernetes.client.server.mock.KubernetesCrudDispatcher;
+import io.fabric8.kubernetes.client.server.mock.KubernetesMockServer;
+import io.fabric8.mockwebserver.Context;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * End-to-end load harness: runs the whole operator against a fabric8
+ * {@link KubernetesMockServer} in CRUD mode and a {@link StubAiAgent}, creates
+ * a few thousand healthy standalone pods, then drives each of them into
+ * CrashLoopBackOff, OOMKilled or ImagePullBackOff by updating its status.
+ * Deleted pods linger for a grace period, as they would while the kubelet stops
+ * them, so standalone pods go through the operator's full force-replace path.
+ * <p>
+ * A pod counts as remediated once the harness sees its memory limit changed,
+ * by the stub's fix or a fast-path rule; the pod is then marked healthy again,
+ * as the restarted pod would be in a cluster. Reports pod events/sec handled by
+ * the operator, detection-to-remediation latency (from the failing status being
+ * written to the fix being visible) and peak heap, sampled every 10 ms from the
+ * operator's start. Operator, mock API servers and generator share one JVM, so
+ * peak heap is an upper bound for the operator. With several clusters, the pods
+ * are spread over that many mock API servers, each a kubeconfig context of the
+ * operator.
+ * <p>
+ * Run with {@code mvn -Pload verify}, settings as system properties:
+ * {@code load.pods}, {@code load.clusters}, {@code load.rate} (failures/sec, 0 = unpaced),
+ * {@code load.agent.latency-ms}, {@code load.agent.error-rate},
+ * {@code load.delete-grace-ms}, {@code load.fast-path}, {@code load.callback}, {@code load.timeout-s}. The report
+ * is printed and written to
+ * {@code target/load-report.json}.
+ */
+public class LoadHarness {
+
+    static final String NAMESPACE = "load";
+    private static final String CONTAINER = "app";
+    private static final String MEMORY_LIMIT = "128Mi";
+    // Client auto-configuration the harness sets for the operator, restored after a run
+    private static final List<String> CLIENT_PROPERTIES = List.of("kubernetes.master", "kubeconfig",
+            "kubernetes.namespace", "kubernetes.trust.certificates", "kubernetes.auth.tryServiceAccount",
+            "kubernetes.auth.tryKubeConfig");
+
+    /**
+     * @param pods           Pods to create and fail
+     * @param clusters       Mock clusters the pods are spread over, each a kubeconfig context of the operator
+     * @param rate           Failures injected per second (0 = as fast as possible)
+     * @param agentLatencyMs Mean latency of the stub agent
+     * @param agentErrorRate Share of stub agent calls failing with HTTP 500
+     * @param deleteGraceMs  How long a deleted pod stays visible
+     * @param fastPath       Whether fast-path rules handle OOMKilled pods instead of the agent
+     * @param callback       Whether analyses run as jobs posted back to the operator's callback endpoint
+     * @param timeoutSeconds How long to wait for all pods to be remediated
+     */
+    public record Settings(int pods, int clusters, int rate, long agentLatencyMs, double agentErrorRate, long deleteGraceMs,
+                           boolean fastPath, boolean callback, long timeoutSeconds) {
+
+        static Settings fromSystemProperties() {
+            return new Settings(
+                    Integer.getInteger("load.pods", 2000),
+                    Integer.getInteger("load.clusters", 1),
+                    Integer.getInteger("load.rate", 0),
+                    Long.getLong("load.agent.latency-ms", 200L),
+                    Double.parseDouble(System.getProperty("load.agent.error-rate", "0.05")),
+                    Long.getLong("load.delete-grace-ms", 500L),
+                    Boolean.parseBoolean(System.getProperty("load.fast-path", "true")),
+                    Boolean.parseBoolean(System.getProperty("load.callback", "false")),
+                    Long.getLong("load.timeout-s", 300L));
+        }
+    }
+
+    public record Report(Settings settings, long startupMs, long durationMs, int failed, int remediated,
+                         long podEvents, double eventsPerSecond,
+                         double latencyP50Ms, double latencyP99Ms, double latencyMaxMs,
+                         long agentCalls, long agentErrors, long apiThrottled, double peakHeapMb) {
+
+        String summary() {
+            return String.format("""
+                            KubeSent load report
+                              pods failed / remediated     %d / %d
+                              operator startup and sync    %d ms
+                              load phase                   %d ms
+                              pod events handled           %d (%.1f/s)
+                              detection -> remediation     p50 %.1f ms, p99 %.1f ms, max %.1f ms
+                              agent calls / errors         %d / %d
+                              API calls throttled          %d
+                              peak heap                    %.1f MB""",
+                    failed, remediated, startupMs, durationMs, podEvents, eventsPerSecond,
+                    latencyP50Ms, latencyP99Ms, latencyMaxMs, agentCalls, agentErrors, apiThrottled, peakHeapMb);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Report report = run(Settings.fromSystemProperties());
+        System.out.println(report.summary());
+
+        Path out = Path.of("target", "load-report.json");
+        Files.createDirectories(out.getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(out.toFile(), report);
+        System.out.println("Report written to " + out.toAbsolutePath());
+        System.exit(report.remediated() == report.failed() ? 0 : 1);
+    }
+
+    public static Report run(Settings settings) throws Exception {
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
+        List<KubernetesMockServer> servers = new ArrayList<>();
+        List<KubernetesClient> clients = new ArrayList<>();
+        ExecutorService generator = Executors.newFixedThreadPool(16);
+        AtomicLong peakHeap = new AtomicLong();
+        Map<String, String> savedProperties = new HashMap<>();
+        CLIENT_PROPERTIES.forEach(name -> savedProperties.put(name, System.getProperty(name)));
+        try (StubAiAgent agent = new StubAiAgent(settings.agentLatencyMs(), settings.agentErrorRate())) {
+            for (int c = 0; c < settings.clusters(); c++) {
+                KubernetesMockServer server = new KubernetesMockServer(new Context(), new MockWebServer(),
+                        new HashMap<>(), new GracefulCrudDispatcher(scheduler, settings.deleteGraceMs()), false);
+                server.init();
+                servers.add(server);
+                clients.add(server.createClient());
+            }
+            createPods(clients, generator, settings.pods());
+
+            // The operator's clients auto-configure from these
+            String contexts = configureClients(clients);
+            System.setProperty("kubernetes.namespace", NAMESPACE);
+            System.setProperty("kubernetes.trust.certificates", "true");
+            System.setProperty("kubernetes.auth.tryServiceAccount", "false");
+
+            MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+            scheduler.scheduleAtFixedRate(() -> peakHeap.accumulateAndGet(
+                    memory.getHeapMemoryUsage().getUsed(), Math::max), 0, 10, TimeUnit.MILLISECONDS);
+            // The callback URL needs the operator's port up front
+            int port = settings.callback() ? freePort() : 0;
+            long startupStart = System.nanoTime();
+            ConfigurableApplicationContext operator = new SpringApplicationBuilder(KubeSentOperatorApplication.class)
+                    .run("--server.port=" + port,
+                            "--spring.main.banner-mode=off",
+                            "--logging.level.com.kubesent=WARN",
+                            "--kubesent.kubernetes.namespace=" + NAMESPACE,
+                            "--kubesent.clusters.contexts=" + contexts,
+                            "--kubesent.ai-agent.url=" + agent.url(),
+                            "--kubesent.journal.enabled=false",
+                            "--kubesent.fast-path.enabled=" + settings.fastPath(),
+                            "--kubesent.ai-agent.callback.enabled=" + settings.callback(),
+                            "--kubesent.ai-agent.callback.url=http://127.0.0.1:" + port + "/api/v1/analysis-callbacks");
+            long startupMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startupStart);
+
+            try {
+                return drive(settings, clients, generator, agent, operator.getBean(MeterRegistry.class), startupMs,
+                        peakHeap);
+            } finally {
+                operator.close();
+                // Let pending status updates finish before the servers go away
+                generator.shutdown();
+                generator.awaitTermination(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            scheduler.shutdownNow();
+            generator.shutdownNow();
+            clients.forEach(KubernetesClient::close);
+            servers.forEach(KubernetesMockServer::destroy);
+            savedProperties.forEach((name, value) -> {
+                if (value != null) {
+                    System.setProperty(name, value);
+                } else {
+                    System.clearProperty(name);
+                }
+            });
+        }
+    }
+
+    /**
+     * Points the operator at the mock clusters: a single one through system
+     * properties, several through a kubeconfig with one context each.
+     *
+     * @return Value for {@code kubesent.clusters.contexts}
+     */
+    private static String configureClients(List<KubernetesClient> clients) throws IOException {
+        if (clients.size() == 1) {
+            System.setProperty("kubernetes.master", clients.get(0).getConfiguration().getMasterUrl());
+            System.setProperty("kubernetes.auth.tryKubeConfig", "false");
+            return "";
+        }
+
+        StringBuilder kubeconfig = new StringBuilder("apiVersion: v1\nkind: Config\nclusters:\n");
+        for (int c = 0; c < clients.size(); c++) {
+            kubeconfig.append("- name: load-").append(c).append("\n  cluster:\n    server: ")
+                    .append(clients.get(c).getConfiguration().getMasterUrl())
+                    .append("\n    insecure-skip-tls-verify: true\n");
+        }
+        kubeconfig.append("contexts:\n");
+        for (int c = 0; c < clients.size(); c++) {
+            kubeconfig.append("- name: load-").append(c).append("\n  context:\n    cluster: load-").append(c)
+                    .append("\n    user: load\n    namespace: ").append(NAMESPACE).append('\n');
+        }
+        kubeconfig.append("current-context: load-0\nusers:\n- name: load\n  user:\n    token: load\n");
+
+        Path file = Files.createTempFile("kubesent-load", ".kubeconfig");
+        file.toFile().deleteOnExit();
+        Files.writeString(file, kubeconfig);
+        System.clearProperty("kubernetes.master");
+        System.setProperty("kubeconfig", file.toString());
+        System.setProperty("kubernetes.auth.tryKubeConfig", "true");
+        return IntStream.range(0, clients.size()).mapToObj(c -> "load-" + c).collect(Collectors.joining(","));
+    }
+
+    private static Report drive(Settings settings, List<KubernetesClient> clients, ExecutorService generator,
+                                StubAiAgent agent, MeterRegistry registry, long startupMs, AtomicLong peakHeap)
+            throws Exception {
+        Map<String, Long> failedAt = new ConcurrentHashMap<>();
+        Map<String, Long> latencies = new ConcurrentHashMap<>();
+        CountDownLatch remediated = new CountDownLatch(settings.pods());
+        long eventsBefore = podEvents(registry);
+
+        List<Watch> watches = new ArrayList<>();
+        try {
+            for (KubernetesClient client : clients) {
+                watches.add(client.pods().inNamespace(NAMESPACE).watch(new Watcher<>() {
+                    @Override
+                    public void eventReceived(Action action, Pod pod) {
+                        String name = pod.getMetadata().getName();
+                        Long start = failedAt.get(name);
+                        if (action != Action.DELETED && start != null && isFixed(pod)
+                                && latencies.putIfAbsent(name, System.nanoTime() - start) == null) {
+                            remediated.countDown();
+                            generator.execute(() -> setStatus(client, name, running(name)));
+                        }
+                    }
+
+                    @Override
+                    public void onClose(WatcherException cause) {
+                    }
+                }));
+            }
+
+            long start = System.nanoTime();
+            long intervalNanos = settings.rate() > 0 ? TimeUnit.SECONDS.toNanos(1) / settings.rate() : 0;
+            for (int i = 0; i < settings.pods(); i++) {
+                if (intervalNanos > 0) {
+                    LockSupport.parkNanos(start + i * intervalNanos - System.nanoTime());
+                }
+                String name = podName(i);
+                KubernetesClient client = clients.get(i % clients.size());
+                ContainerStatus failure = failure(i, name);
+                generator.execute(() -> {
+                    failedAt.put(name, System.nanoTime());
+                    setStatus(client, name, failure);
+                });
+            }
+
+            remediated.await(settings.timeoutSeconds(), TimeUnit.SECONDS);
+            long durationNanos = System.nanoTime() - start;
+            long events = podEvents(registry) - eventsBefore;
+
+            long[] sorted = latencies.values().stream().mapToLong(Long::longValue).sorted().toArray();
+            return new Report(settings, startupMs, TimeUnit.NANOSECONDS.toMillis(durationNanos), settings.pods(),
+                    sorted.length, events, events / (durationNanos / 1e9),
+                    percentileMs(sorted, 0.50), percentileMs(sorted, 0.99), percentileMs(sorted, 1.0),
+                    agent.calls(), agent.errors(), apiThrottled(registry), peakHeap.get() / (1024.0 * 1024.0));
+        } finally {
+            watches.forEach(Watch::close);
+        }
+    }
+
+    /**
+     * Creates the pods, spread round-robin over the clusters.
+     */
+    private static void createPods(List<KubernetesClient> clients, ExecutorService generator, int pods)
+            throws InterruptedException {
+        CountDownLatch created = new CountDownLatch(pods);
+        for (int i = 0; i < pods; i++) {
+            int index = i;
+            KubernetesClient client = clients.get(i % clients.size());
+            generator.execute(() -> {
+                try {
+                    String name = podName(index);
+                    client.pods().inNamespace(NAMESPACE).resource(new PodBuilder()
+                                    .withNewMetadata()
+                                    .withName(name)
+                                    .withNamespace(NAMESPACE)
+                                    .withUid("uid-" + name)
+                                    .addToLabels("app", name)
+                                    .endMetadata()
+                                    .withNewSpec()
+                                    .addNewContainer()
+                                    .withName(CONTAINER)
+                                    // Distinct images, so failures are not correlated into one incident
+                                    .withImage("registry.local/load/" + name + ":1.0")
+                                    .withNewResources()
+                                    .addToLimits("memory", new Quantity(MEMORY_LIMIT))
+                                    .endResources()
+                                    .endContainer()
+                                    .endSpec()
+                                    .withNewStatus()
+                                    .withPhase("Running")
+                                    .withContainerStatuses(running(name))
+                                    .endStatus()
+                                    .build())
+                            .create();
+                } finally {
+                    created.countDown();
+                }
+            });
+        }
+        created.await();
+    }
+
+    /**
+     * Rotates through the three failure modes.
+     */
+    private static ContainerStatus failure(int index, String name) {
+        ContainerStatusBuilder status = new ContainerStatusBuilder()
+                .withName(CONTAINER)
+                .withImage("registry.local/load/" + name + ":1.0")
+                .withReady(false)
+                .withRestartCount(3);
+        return switch (index % 3) {
+            case 0 -> status
+                    .withNewState().withNewWaiting().withReason("CrashLoopBackOff").endWaiting().endState()
+                    .withNewLastState().withNewTerminated().withReason("Error").withExitCode(1)
+                    .endTerminated().endLastState()
+                    .build();
+            case 1 -> status
+                    .withNewState().withNewWaiting().withReason("CrashLoopBackOff").endWaiting().endState()
+                    .withNewLastState().withNewTerminated().withReason("OOMKilled").withExitCode(137)
+                    .endTerminated().endLastState()
+                    .build();
+            default -> status
+                    .withRestartCount(0)
+                    .withNewState().withNewWaiting().withReason("ImagePullBackOff").endWaiting().endState()
+                    .build();
+        };
+    }
+
+    private static ContainerStatus running(String name) {
+        return new ContainerStatusBuilder()
+                .withName(CONTAINER)
+                .withImage("registry.local/load/" + name + ":1.0")
+                .withReady(true)
+                .withRestartCount(0)
+                .withNewState().withNewRunning().endRunning().endState()
+                .build();
+    }
+
+    /**
+     * Replaces the pod's container status, retrying when the operator changed
+     * the pod in between. A pod deleted meanwhile is skipped.
+     */
+    private static void setStatus(KubernetesClient client, String name, ContainerStatus containerStatus) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                client.pods().inNamespace(NAMESPACE).withName(name).editStatus(pod -> new PodBuilder(pod)
+                        .editStatus()
+                        .withContainerStatuses(containerStatus)
+                        .endStatus()
+                        .build());
+                return;
+            } catch (KubernetesClientException e) {
+                if (e.getCode() != HttpURLConnection.HTTP_CONFLICT || attempt >= 5) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private static boolean isFixed(Pod pod) {
+        return pod.getSpec().getContainers().stream()
+                .map(c -> c.getResources() != null && c.getResources().getLimits() != null
+                        ? c.getResources().getLimits().get("memory") : null)
+                .filter(Objects::nonNull)
+                .anyMatch(memory -> !MEMORY_LIMIT.equals(memory.toString()));
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static String podName(int index) {
+        return "load-" + index;
+    }
+
+    private static long podEvents(MeterRegistry registry) {
+        return registry.find("kubesent.watch.events").timers().stream().mapToLong(Timer::count).sum();
+    }
+
+    private static long apiThrottled(MeterRegistry registry) {
+        return (long) registry.find("kubesent.k8s.api.throttled").counters().stream()
+                .mapToDouble(Counter::count).sum();
+    }
+
+    private static double percentileMs(long[] sortedNanos, double percentile) {
+        if (sortedNanos.length == 0) {
+            return Double.NaN;
+        }
+        int index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(0, Math.min(index, sortedNanos.length - 1))] / 1e6;
+    }
+
+    /**
+     * CRUD dispatcher whose DELETE answers with the pod and removes it only
+     * after the grace period. The mock does not replay watch events from a
+     * resourceVersion, so without the grace a deletion racing a new watch, like
+     * the operator's wait in force replace, would be lost.
+     */
+    private static class GracefulCrudDispatcher extends KubernetesCrudDispatcher {
+
+        private final ScheduledExecutorService scheduler;
+        private final long graceMs;
+
+        GracefulCrudDispatcher(ScheduledExecutorService scheduler, long graceMs) {
+            this.scheduler = scheduler;
+            this.graceMs = graceMs;
+        }
+
+        @Override
+        public MockResponse handleDelete(String path) {
+            if (graceMs <= 0) {
+                return super.handleDelete(path);
+            }
+            MockResponse current = handleGet(path);
+            if (current.getStatus().contains(" 200")) {
+                scheduler.schedule(() -> super.handleDelete(path), graceMs, TimeUnit.MILLISECONDS);
+            }
+            return current;
+        }
+    }
+}
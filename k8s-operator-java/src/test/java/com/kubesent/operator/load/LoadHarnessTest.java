@@ -0,0 +1,38 @@
+package com.kubesent.operator.load;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Small run of the {@link LoadHarness}, so the harness keeps working; the
+ * numbers themselves come from {@code mvn -Pload verify}.
+ */
+class LoadHarnessTest {
+
+    @Test
+    void remediatesEveryFailedPod() throws Exception {
+        LoadHarness.Report report = LoadHarness.run(new LoadHarness.Settings(30, 1, 0, 20, 0.0, 200, true, false, 60));
+
+        assertThat(report.remediated()).isEqualTo(30);
+        assertThat(report.podEvents()).isGreaterThanOrEqualTo(30);
+        assertThat(report.latencyP99Ms()).isGreaterThan(0);
+        assertThat(report.peakHeapMb()).isGreaterThan(0);
+    }
+
+    @Test
+    void remediatesThroughAnalysisCallbacks() throws Exception {
+        LoadHarness.Report report = LoadHarness.run(new LoadHarness.Settings(20, 1, 0, 20, 0.1, 200, false, true, 60));
+
+        assertThat(report.remediated()).isEqualTo(20);
+        assertThat(report.agentCalls()).isGreaterThanOrEqualTo(20);
+    }
+
+    @Test
+    void remediatesAcrossClusters() throws Exception {
+        LoadHarness.Report report = LoadHarness.run(new LoadHarness.Settings(30, 3, 0, 20, 0.0, 200, false, false, 60));
+
+        assertThat(report.remediated()).isEqualTo(30);
+        assertThat(report.podEvents()).isGreaterThanOrEqualTo(30);
+    }
+}
@@ -0,0 +1,188 @@
+package com.kubesent.operator.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Local stand-in for the Python AI Agent's {@code /analyze} and
+ * {@code /analyze/async} endpoints. Answers (or posts the job's callback) after
+ * a configurable latency (with +/-50% jitter), fails a configurable share of
+ * calls with HTTP 500 (or an error callback), and otherwise suggests raising
+ * the failing pod's memory limit to {@link #FIXED_MEMORY}.
+ */
+public class StubAiAgent implements AutoCloseable {
+
+    public static final String FIXED_MEMORY = "321Mi";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final long latencyMs;
+    private final double errorRate;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "stub-ai-agent");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final HttpClient httpClient = HttpClient.newBuilder().executor(executor).build();
+
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+    public StubAiAgent(long latencyMs, double errorRate) throws IOException {
+        this.latencyMs = latencyMs;
+        this.errorRate = errorRate;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/analyze", this::analyze);
+        server.createContext("/analyze/async", this::analyzeAsync);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * @return Base URL to configure as {@code kubesent.ai-agent.url}
+     */
+    public String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public long calls() {
+        return calls.get();
+    }
+
+    public long errors() {
+        return errors.get();
+    }
+
+    private void analyze(HttpExchange exchange) throws IOException {
+        calls.incrementAndGet();
+        try (exchange) {
+            JsonNode request = readRequest(exchange);
+            Map<String, Object> response = analysis(request);
+            if (response == null) {
+                send(exchange, 500, Map.of("detail", "stub failure"));
+            } else {
+                send(exchange, 200, response);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Accepts the job right away and posts the result to the request's
+     * callback URL once the latency has passed.
+     */
+    private void analyzeAsync(HttpExchange exchange) throws IOException {
+        calls.incrementAndGet();
+        JsonNode request;
+        try (exchange) {
+            request = readRequest(exchange);
+            send(exchange, 202, Map.of("job_id", request.path("job_id").asText(), "status", "accepted"));
+        }
+        executor.execute(() -> {
+            try {
+                Map<String, Object> response = analysis(request);
+                Map<String, Object> callback = new HashMap<>();
+                callback.put("job_id", request.path("job_id").asText());
+                if (response == null) {
+                    callback.put("error", "stub failure");
+                } else {
+                    callback.put("response", response);
+                }
+                httpClient.send(HttpRequest.newBuilder(URI.create(request.path("callback_url").asText()))
+                                .header("Content-Type", "application/json")
+                                .POST(HttpRequest.BodyPublishers.ofByteArray(
+                                        objectMapper.writeValueAsBytes(callback)))
+                                .build(),
+                        HttpResponse.BodyHandlers.discarding());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException e) {
+                // The operator retries the analysis after the job timeout
+            }
+        });
+    }
+
+    private JsonNode readRequest(HttpExchange exchange) throws IOException {
+        InputStream body = exchange.getRequestBody();
+        if ("gzip".equalsIgnoreCase(exchange.getRequestHeaders().getFirst("Content-Encoding"))) {
+            body = new GZIPInputStream(body);
+        }
+        return objectMapper.readTree(body);
+    }
+
+    /**
+     * Waits out the latency and analyzes a request.
+     *
+     * @return The analysis, or null for a simulated failure
+     */
+    private Map<String, Object> analysis(JsonNode request) throws InterruptedException {
+        if (latencyMs > 0) {
+            long jitter = ThreadLocalRandom.current().nextLong(latencyMs + 1) - latencyMs / 2;
+            Thread.sleep(latencyMs + jitter);
+        }
+        if (ThreadLocalRandom.current().nextDouble() < errorRate) {
+            errors.incrementAndGet();
+            return null;
+        }
+
+        String container = containerOf(request.path("pod_yaml").asText());
+        return Map.of(
+                "root_cause", "Stub analysis of " + request.path("failure_reason").asText(),
+                "suggested_fix_yaml", Map.of("spec", Map.of("containers", List.of(Map.of(
+                        "name", container,
+                        "resources", Map.of("limits", Map.of("memory", FIXED_MEMORY)))))),
+                "confidence_score", 95.0);
+    }
+
+    /**
+     * The harness pods have a single container; pick its name out of the YAML
+     * without a full parse.
+     */
+    private static String containerOf(String podYaml) {
+        int containers = podYaml.indexOf("containers:");
+        int name = containers >= 0 ? podYaml.indexOf("name:", containers) : -1;
+        if (name < 0) {
+            return "app";
+        }
+        int end = podYaml.indexOf('\n', name);
+        return podYaml.substring(name + "name:".length(), end > 0 ? end : podYaml.length()).trim()
+                .replace("\"", "");
+    }
+
+    private void send(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] json = objectMapper.writeValueAsString(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, json.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(json);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,77 @@
+package com.kubesent.operator.model;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.kubesent.operator.service.PodProjectionSerializer;
+import com.kubesent.operator.support.PodFixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON round trips of the AI Agent DTOs, with an ObjectMapper configured like
+ * Spring Boot's.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AnalysisJsonBenchmark {
+
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    private AnalysisRequest request;
+    private AnalysisResponse response;
+
+    @Setup
+    public void setUp() throws Exception {
+        StringBuilder logs = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            logs.append("2024-05-02T09:31:").append(10 + i % 40)
+                    .append("Z INFO  c.e.payments.LedgerService - settled batch ").append(i).append('\n');
+        }
+        logs.append("java.lang.OutOfMemoryError: Java heap space\n");
+
+        request = AnalysisRequest.builder()
+                .podName("payments-api-7d9f8b6c5d-x2kqp")
+                .namespace("prod-payments")
+                .failureReason("OOMKilled")
+                .logs(logs.toString())
+                .podYaml(new PodProjectionSerializer().toYaml(PodFixtures.load("oomkilled")))
+                .build();
+        response = AnalysisResponse.builder()
+                .rootCause("Container 'api' exceeds its 512Mi memory limit; the JVM heap alone is allowed 768m.")
+                .confidenceScore(93.0)
+                .suggestedFixYaml(Map.of("spec", Map.of("containers", List.of(Map.of(
+                        "name", "api",
+                        "resources", Map.of("limits", Map.of("memory", "1Gi"),
+                                "requests", Map.of("memory", "1Gi")))))))
+                .build();
+    }
+
+    @Benchmark
+    public AnalysisRequest requestRoundTrip() throws Exception {
+        return objectMapper.readValue(objectMapper.writeValueAsBytes(request), AnalysisRequest.class);
+    }
+
+    @Benchmark
+    public AnalysisResponse responseRoundTrip() throws Exception {
+        return objectMapper.readValue(objectMapper.writeValueAsBytes(response), AnalysisResponse.class);
+    }
+}
@@ -0,0 +1,46 @@
+package com.kubesent.operator.model;
+
+import com.kubesent.operator.model.FailureClassification.Severity;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks which container a fingerprint is taken from.
+ */
+class FailureFingerprintTest {
+
+    private final Pod pod = new PodBuilder()
+            .withNewMetadata().withNamespace("shop").withName("web-1").withUid("uid-1").withGeneration(1L)
+            .endMetadata()
+            .withNewSpec()
+            .addNewInitContainer().withName("migrate").withImage("registry.local/migrate:7").endInitContainer()
+            .addNewContainer().withName("app").withImage("registry.local/web:1").endContainer()
+            .addNewContainer().withName("proxy").withImage("registry.local/proxy:2").endContainer()
+            .endSpec()
+            .build();
+
+    @Test
+    void usesTheClassifiedContainer() {
+        FailureFingerprint fingerprint = FailureFingerprint.of("default", pod,
+                new FailureClassification(Severity.HIGH, "ExitCode1", "proxy", false), "boom", 20);
+
+        assertThat(fingerprint.container()).isEqualTo("proxy");
+        assertThat(fingerprint.image()).isEqualTo("registry.local/proxy:2");
+        assertThat(fingerprint.failureReason()).isEqualTo("ExitCode1");
+    }
+
+    @Test
+    void usesInitContainers() {
+        FailureFingerprint init = FailureFingerprint.of("default", pod,
+                new FailureClassification(Severity.HIGH, "ExitCode1", "migrate", true), "boom", 20);
+        FailureFingerprint app = FailureFingerprint.of("default", pod,
+                new FailureClassification(Severity.HIGH, "ExitCode1", "app", false), "boom", 20);
+
+        assertThat(init.container()).isEqualTo("migrate");
+        assertThat(init.image()).isEqualTo("registry.local/migrate:7");
+        assertThat(init).isNotEqualTo(app);
+    }
+}
@@ -0,0 +1,124 @@
+package com.kubesent.operator.queue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives the work queue from the test thread, as a single worker would.
+ */
+@Timeout(10)
+class RateLimitingWorkQueueTest {
+
+    private final RateLimitingWorkQueue<String> queue =
+            new RateLimitingWorkQueue<>("test", new SimpleMeterRegistry(), 20, 1000);
+
+    @AfterEach
+    void tearDown() {
+        queue.shutdown();
+    }
+
+    @Test
+    void pendingKeyKeepsOnlyTheLatestItem() throws InterruptedException {
+        queue.add("shop/web-1", "first");
+        queue.add("shop/web-1", "second");
+        queue.add("shop/web-2", "other");
+
+        assertThat(queue.depth()).isEqualTo(2);
+        assertThat(queue.take()).isEqualTo(new RateLimitingWorkQueue.Item<>("shop/web-1", "second"));
+        assertThat(queue.take()).isEqualTo(new RateLimitingWorkQueue.Item<>("shop/web-2", "other"));
+    }
+
+    @Test
+    void keyIsNotHandedOutAgainWhileProcessing() throws InterruptedException {
+        queue.add("shop/web-1", "first");
+        assertThat(queue.take().item()).isEqualTo("first");
+
+        queue.add("shop/web-1", "second");
+        queue.add("shop/web-1", "third");
+
+        assertThat(queue.depth()).isZero();
+        assertThat(queue.inFlight()).isEqualTo(1);
+    }
+
+    @Test
+    void keyAddedWhileProcessingIsQueuedOnDone() throws InterruptedException {
+        queue.add("shop/web-1", "first");
+        queue.take();
+        queue.add("shop/web-1", "second");
+
+        queue.done("shop/web-1");
+
+        assertThat(queue.depth()).isEqualTo(1);
+        assertThat(queue.inFlight()).isZero();
+        assertThat(queue.take().item()).isEqualTo("second");
+    }
+
+    @Test
+    void doneWithoutNewItemLeavesQueueEmpty() throws InterruptedException {
+        queue.add("shop/web-1", "first");
+        queue.take();
+
+        queue.done("shop/web-1");
+
+        assertThat(queue.depth()).isZero();
+        assertThat(queue.inFlight()).isZero();
+    }
+
+    @Test
+    void backoffDoublesUpToTheMaximum() {
+        assertThat(queue.addRateLimited("shop/web-0", "item")).isEqualTo(Duration.ZERO);
+        assertThat(queue.depth()).isEqualTo(1);
+
+        long[] expected = {20, 40, 80, 160, 320, 640, 1000, 1000};
+        for (int attempts = 1; attempts <= expected.length; attempts++) {
+            String key = "shop/web-" + attempts;
+            for (int i = 0; i < attempts; i++) {
+                queue.backoff(key);
+            }
+            assertThat(queue.addRateLimited(key, "item")).isEqualTo(Duration.ofMillis(expected[attempts - 1]));
+        }
+
+        // The shift is capped too, so many attempts do not overflow
+        for (int i = 0; i < 40; i++) {
+            queue.backoff("shop/web-40");
+        }
+        assertThat(queue.addRateLimited("shop/web-40", "item")).isEqualTo(Duration.ofMillis(1000));
+    }
+
+    @Test
+    void forgetResetsTheBackoff() {
+        queue.backoff("shop/web-1");
+        queue.backoff("shop/web-1");
+        queue.forget("shop/web-1");
+
+        assertThat(queue.numRequeues("shop/web-1")).isZero();
+        assertThat(queue.addRateLimited("shop/web-1", "item")).isEqualTo(Duration.ZERO);
+    }
+
+    @Test
+    void delayedKeyIsAddedOnceWithItsLatestItem() throws InterruptedException {
+        queue.backoff("shop/web-1");
+        queue.addRateLimited("shop/web-1", "first");
+        queue.addRateLimited("shop/web-1", "second");
+        assertThat(queue.depth()).isZero();
+
+        assertThat(queue.take().item()).isEqualTo("second");
+        queue.done("shop/web-1");
+
+        Thread.sleep(100);
+        assertThat(queue.depth()).isZero();
+    }
+
+    @Test
+    void shutdownReleasesWaitingWorkers() throws InterruptedException {
+        queue.shutdown();
+
+        assertThat(queue.take()).isNull();
+    }
+}
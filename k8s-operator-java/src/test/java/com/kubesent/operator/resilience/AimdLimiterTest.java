@@ -0,0 +1,91 @@
+package com.kubesent.operator.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks admission against shares of the limit and the AIMD adjustments.
+ */
+class AimdLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.SECONDS.toNanos(60);
+
+    @Test
+    void admitsUpToShareOfLimit() {
+        AimdLimiter limiter = new AimdLimiter(10, 1, 64, 0.5, 30_000);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.tryAcquire(0.5)).isTrue();
+        }
+        assertThat(limiter.tryAcquire(0.5)).isFalse();
+        assertThat(limiter.tryAcquire(1.0)).isTrue();
+        assertThat(limiter.getInFlight()).isEqualTo(6);
+    }
+
+    @Test
+    void onlyFullShareTakesTheLastCallAtLimitOne() {
+        AimdLimiter limiter = new AimdLimiter(1, 1, 64, 0.5, 30_000);
+
+        assertThat(limiter.tryAcquire(0.5)).isFalse();
+        assertThat(limiter.tryAcquire(0.9)).isFalse();
+        assertThat(limiter.tryAcquire(1.0)).isTrue();
+        assertThat(limiter.tryAcquire(1.0)).isFalse();
+    }
+
+    @Test
+    void partialSharesLeaveHeadroomAtLimitTwo() {
+        AimdLimiter limiter = new AimdLimiter(2, 1, 64, 0.5, 30_000);
+
+        assertThat(limiter.tryAcquire(0.5)).isTrue();
+        assertThat(limiter.tryAcquire(0.5)).isFalse();
+        assertThat(limiter.tryAcquire(0.9)).isFalse();
+        assertThat(limiter.tryAcquire(1.0)).isTrue();
+        assertThat(limiter.getInFlight()).isEqualTo(2);
+    }
+
+    @Test
+    void growsByOneWhenLimitIsUsed() {
+        AimdLimiter limiter = new AimdLimiter(4, 1, 5, 0.5, 30_000);
+
+        // Two of four in flight: the limit is the bottleneck
+        limiter.tryAcquire(1.0);
+        limiter.tryAcquire(1.0);
+        limiter.release(FAST, false);
+        assertThat(limiter.getLimit()).isEqualTo(5);
+
+        // One of five in flight: no growth
+        limiter.release(FAST, false);
+        assertThat(limiter.getLimit()).isEqualTo(5);
+
+        // Never beyond the maximum
+        for (int i = 0; i < 5; i++) {
+            limiter.tryAcquire(1.0);
+        }
+        limiter.release(FAST, false);
+        assertThat(limiter.getLimit()).isEqualTo(5);
+    }
+
+    @Test
+    void shrinksOnDropOrSlowCall() {
+        AimdLimiter limiter = new AimdLimiter(16, 2, 64, 0.5, 30_000);
+
+        limiter.tryAcquire(1.0);
+        limiter.release(FAST, true);
+        assertThat(limiter.getLimit()).isEqualTo(8);
+
+        limiter.tryAcquire(1.0);
+        limiter.release(SLOW, false);
+        assertThat(limiter.getLimit()).isEqualTo(4);
+
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire(1.0);
+            limiter.release(FAST, true);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(2);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+}
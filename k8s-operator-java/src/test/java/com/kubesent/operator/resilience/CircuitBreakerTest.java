@@ -0,0 +1,129 @@
+package com.kubesent.operator.resilience;
+
+import com.kubesent.operator.resilience.CircuitBreaker.State;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Walks the breaker through its states.
+ */
+class CircuitBreakerTest {
+
+    @Test
+    void opensAtFailureRateOnceMinimumCallsRecorded() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 10, 4, 0.5, 60_000, 1);
+
+        record(breaker, false);
+        record(breaker, false);
+        record(breaker, false);
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+
+        record(breaker, true);
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+        assertThat(breaker.tryAcquire()).isNull();
+    }
+
+    @Test
+    void staysClosedBelowThreshold() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 4, 4, 0.5, 60_000, 1);
+
+        // The window slides: old failures drop out
+        for (int i = 0; i < 20; i++) {
+            record(breaker, i % 4 != 0);
+        }
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+    }
+
+    @Test
+    void halfOpenProbesCloseTheBreaker() {
+        CircuitBreaker breaker = openBreaker(2);
+
+        CircuitBreaker.Permit first = breaker.tryAcquire();
+        CircuitBreaker.Permit second = breaker.tryAcquire();
+        assertThat(first.state()).isEqualTo(State.HALF_OPEN);
+        assertThat(second.state()).isEqualTo(State.HALF_OPEN);
+        // Only the configured probes get through
+        assertThat(breaker.tryAcquire()).isNull();
+
+        breaker.onResult(first, true);
+        assertThat(breaker.getState()).isEqualTo(State.HALF_OPEN);
+        breaker.onResult(second, true);
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+        assertThat(breaker.tryAcquire().state()).isEqualTo(State.CLOSED);
+    }
+
+    @Test
+    void failedProbeReopens() {
+        CircuitBreaker breaker = openBreaker(2);
+
+        CircuitBreaker.Permit probe = breaker.tryAcquire();
+        breaker.onResult(probe, false);
+
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+    }
+
+    @Test
+    void releasedProbeFreesItsPermit() {
+        CircuitBreaker breaker = openBreaker(1);
+
+        CircuitBreaker.Permit probe = breaker.tryAcquire();
+        assertThat(breaker.tryAcquire()).isNull();
+        breaker.release(probe);
+
+        assertThat(breaker.tryAcquire().state()).isEqualTo(State.HALF_OPEN);
+    }
+
+    @Test
+    void ignoresLateResultsFromBeforeTransition() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 2, 2, 0.5, 0, 1);
+        CircuitBreaker.Permit late = breaker.tryAcquire();
+        record(breaker, false);
+        record(breaker, false);
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+
+        breaker.onResult(late, true);
+
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+    }
+
+    @Test
+    void ignoresProbesFromEarlierHalfOpenPhase() {
+        CircuitBreaker breaker = openBreaker(2);
+        CircuitBreaker.Permit stale = breaker.tryAcquire();
+        CircuitBreaker.Permit failed = breaker.tryAcquire();
+        breaker.onResult(failed, false);
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+
+        // Half-open again; the probe of the previous phase comes back late
+        CircuitBreaker.Permit fresh = breaker.tryAcquire();
+        assertThat(fresh.state()).isEqualTo(State.HALF_OPEN);
+        breaker.onResult(stale, true);
+        breaker.release(stale);
+
+        // The stale probe freed no permit of this phase...
+        CircuitBreaker.Permit second = breaker.tryAcquire();
+        assertThat(second).isNotNull();
+        assertThat(breaker.tryAcquire()).isNull();
+        // ...and its success does not count towards closing
+        breaker.onResult(fresh, true);
+        assertThat(breaker.getState()).isEqualTo(State.HALF_OPEN);
+        breaker.onResult(second, true);
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+    }
+
+    /**
+     * @return Breaker that was opened and whose open duration (0 ms) has passed
+     */
+    private static CircuitBreaker openBreaker(int probes) {
+        CircuitBreaker breaker = new CircuitBreaker("test", 2, 2, 0.5, 0, probes);
+        record(breaker, false);
+        record(breaker, false);
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+        return breaker;
+    }
+
+    private static void record(CircuitBreaker breaker, boolean success) {
+        breaker.onResult(breaker.tryAcquire(), success);
+    }
+}
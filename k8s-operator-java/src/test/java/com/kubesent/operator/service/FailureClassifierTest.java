@@ -0,0 +1,109 @@
+package com.kubesent.operator.service;
+
+import com.kubesent.operator.model.FailureClassification;
+import com.kubesent.operator.model.FailureClassification.Severity;
+import com.kubesent.operator.support.PodFixtures;
+import com.kubesent.operator.support.ValueDefaults;
+import io.fabric8.kubernetes.api.model.ContainerState;
+import io.fabric8.kubernetes.api.model.ContainerStateBuilder;
+import io.fabric8.kubernetes.api.model.ContainerStatus;
+import io.fabric8.kubernetes.api.model.Pod;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Classifies captured pods and variations of their container statuses.
+ */
+class FailureClassifierTest {
+
+    private FailureClassifier classifier;
+
+    @BeforeEach
+    void setUp() {
+        classifier = ValueDefaults.apply(new FailureClassifier());
+        classifier.init();
+    }
+
+    @Test
+    void healthyPodIsNotAFailure() {
+        assertThat(classifier.classify(PodFixtures.load("healthy"))).isNull();
+    }
+
+    @Test
+    void classifiesWaitingReason() {
+        FailureClassification found = classifier.classify(PodFixtures.load("imagepull"));
+
+        assertThat(found.reason()).isEqualTo("ImagePullBackOff");
+        assertThat(found.severity()).isEqualTo(Severity.MEDIUM);
+        assertThat(found.container()).isEqualTo("api");
+        assertThat(found.initContainer()).isFalse();
+    }
+
+    @Test
+    void classifiesLastTerminationOfUnreadyContainer() {
+        // Restarted after the OOM kill (long ago), but not ready yet
+        Pod pod = PodFixtures.load("oomkilled");
+        pod.getStatus().getContainerStatuses().get(0).setState(new ContainerStateBuilder()
+                .withNewRunning().withStartedAt(Instant.now().toString()).endRunning()
+                .build());
+
+        FailureClassification found = classifier.classify(pod);
+
+        assertThat(found.reason()).isEqualTo("OOMKilled");
+        assertThat(found.severity()).isEqualTo(Severity.CRITICAL);
+    }
+
+    @Test
+    void classifiesExitCodes() {
+        Pod pod = healthyWithLastTermination(null, 139, Instant.now());
+        assertThat(classifier.classify(pod).reason()).isEqualTo("ExitCode139");
+
+        pod = healthyWithLastTermination(null, 3, Instant.now());
+        assertThat(classifier.classify(pod).severity()).isEqualTo(Severity.MEDIUM);
+    }
+
+    @Test
+    void recentTerminationOfReadyContainerCounts() {
+        Pod pod = healthyWithLastTermination("OOMKilled", 137, Instant.now().minus(1, ChronoUnit.MINUTES));
+
+        assertThat(classifier.classify(pod).reason()).isEqualTo("OOMKilled");
+    }
+
+    @Test
+    void oldTerminationOfReadyContainerIsForgotten() {
+        Pod pod = healthyWithLastTermination("OOMKilled", 137, Instant.now().minus(2, ChronoUnit.HOURS));
+        pod.getStatus().getContainerStatuses().get(0).setRestartCount(12);
+
+        assertThat(classifier.classify(pod)).isNull();
+    }
+
+    @Test
+    void restartThresholdAppliesWhileNotReady() {
+        Pod pod = PodFixtures.load("healthy");
+        ContainerStatus status = pod.getStatus().getContainerStatuses().get(0);
+        status.setRestartCount(5);
+        assertThat(classifier.classify(pod)).isNull();
+
+        status.setReady(false);
+        assertThat(classifier.classify(pod).reason()).isEqualTo("RestartThreshold");
+    }
+
+    private static Pod healthyWithLastTermination(String reason, int exitCode, Instant finishedAt) {
+        Pod pod = PodFixtures.load("healthy");
+        ContainerState lastState = new ContainerStateBuilder()
+                .withNewTerminated()
+                .withReason(reason)
+                .withExitCode(exitCode)
+                .withFinishedAt(finishedAt.toString())
+                .endTerminated()
+                .build();
+        pod.getStatus().getContainerStatuses().get(0).setLastState(lastState);
+        pod.getStatus().getContainerStatuses().get(0).setRestartCount(1);
+        return pod;
+    }
+}
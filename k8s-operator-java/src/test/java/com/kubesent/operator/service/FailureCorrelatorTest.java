@@ -0,0 +1,187 @@
+package com.kubesent.operator.service;
+
+import com.kubesent.operator.model.AnalysisResponse;
+import com.kubesent.operator.model.FailureClassification;
+import com.kubesent.operator.model.FailureClassification.Severity;
+import com.kubesent.operator.support.ValueDefaults;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Groups failures of pods built in place and checks who leads the analysis.
+ */
+class FailureCorrelatorTest {
+
+    private static final FailureClassification CRASH =
+            new FailureClassification(Severity.HIGH, "CrashLoopBackOff", "app", false);
+
+    private FailureCorrelator correlator;
+
+    @BeforeEach
+    void setUp() {
+        correlator = ValueDefaults.apply(new FailureCorrelator(new SimpleMeterRegistry()));
+        correlator.init();
+    }
+
+    @Test
+    void keysCombineNodeImageAndConfigWithReason() {
+        Pod pod = new PodBuilder(pod("web-1", "worker-1", "app"))
+                .editSpec()
+                .editFirstContainer()
+                .addNewEnvFrom().withNewConfigMapRef().withName("settings").endConfigMapRef().endEnvFrom()
+                .addNewEnv().withName("PASSWORD").withNewValueFrom()
+                .withNewSecretKeyRef().withName("creds").withKey("password").endSecretKeyRef()
+                .endValueFrom().endEnv()
+                .endContainer()
+                .addNewVolume().withName("conf").withNewConfigMap().withName("files").endConfigMap().endVolume()
+                .endSpec()
+                .build();
+
+        assertThat(FailureCorrelator.keys(pod, CRASH)).containsExactly(
+                "node=worker-1|CrashLoopBackOff",
+                "image=sha256:0123|CrashLoopBackOff",
+                "configmap=shop/settings|CrashLoopBackOff",
+                "secret=shop/creds|CrashLoopBackOff",
+                "configmap=shop/files|CrashLoopBackOff");
+    }
+
+    @Test
+    void correlatesOnceMinGroupSizeWorkloadsFail() {
+        correlator.observe(pod("web-1", "worker-1", "app"), CRASH);
+        correlator.observe(pod("api-1", "worker-1", "app"), CRASH);
+        assertThat(correlator.correlate(pod("api-1", "worker-1", "app"), CRASH)).isNull();
+
+        correlator.observe(pod("db-1", "worker-1", "app"), CRASH);
+        FailureCorrelator.Correlation correlation = correlator.correlate(pod("db-1", "worker-1", "app"), CRASH);
+
+        assertThat(correlation.workloads()).isEqualTo(3);
+        assertThat(correlation.samples()).extracting("podName").containsExactly("api-1", "web-1");
+    }
+
+    @Test
+    void failuresLeaveTheWindow() throws InterruptedException {
+        ReflectionTestUtils.setField(correlator, "windowMs", 5L);
+        correlator.observe(pod("web-1", "worker-1", "app"), CRASH);
+        correlator.observe(pod("api-1", "worker-1", "app"), CRASH);
+        correlator.observe(pod("db-1", "worker-1", "app"), CRASH);
+
+        Thread.sleep(50);
+
+        assertThat(correlator.correlate(pod("db-1", "worker-1", "app"), CRASH)).isNull();
+    }
+
+    @Test
+    void firstWorkloadLeadsAndOthersJoin() {
+        FailureCorrelator.Correlation correlation = new FailureCorrelator.Correlation(
+                "node=worker-1|CrashLoopBackOff", 3, List.of());
+        CompletableFuture<AnalysisResponse> call = new CompletableFuture<>();
+        AtomicInteger calls = new AtomicInteger();
+
+        FailureCorrelator.GroupAnalysis leader = correlator.analyze(correlation, pod("web-1", "worker-1", "app"), () -> {
+            calls.incrementAndGet();
+            return call;
+        });
+        FailureCorrelator.GroupAnalysis joiner = correlator.analyze(correlation, pod("api-1", "worker-1", "app"), () -> {
+            calls.incrementAndGet();
+            return call;
+        });
+        FailureCorrelator.GroupAnalysis again = correlator.analyze(correlation, pod("web-1", "worker-1", "app"), () -> {
+            calls.incrementAndGet();
+            return call;
+        });
+
+        assertThat(calls).hasValue(1);
+        assertThat(leader.leader()).isTrue();
+        assertThat(joiner.leader()).isFalse();
+        assertThat(joiner.leaderWorkload()).isEqualTo("shop/Pod/web-1");
+        assertThat(joiner.leaderImages()).containsEntry("app", "registry.local/app:1");
+        assertThat(again.leader()).isTrue();
+
+        AnalysisResponse response = new AnalysisResponse();
+        call.complete(response);
+        assertThat(joiner.future()).isCompletedWithValue(response);
+    }
+
+    @Test
+    void failedAnalysisIsRetriedByNextMember() {
+        FailureCorrelator.Correlation correlation = new FailureCorrelator.Correlation(
+                "node=worker-1|CrashLoopBackOff", 3, List.of());
+        correlator.analyze(correlation, pod("web-1", "worker-1", "app"),
+                () -> CompletableFuture.failedFuture(new IllegalStateException("agent down")));
+
+        FailureCorrelator.GroupAnalysis next = correlator.analyze(correlation, pod("api-1", "worker-1", "app"),
+                CompletableFuture::new);
+
+        assertThat(next.leader()).isTrue();
+    }
+
+    @Test
+    void sharedFixFitsOnlyPodsRunningTheSameImages() {
+        Map<String, String> leaderImages = Map.of("app", "registry.local/app:1");
+        AnalysisResponse analysis = new AnalysisResponse();
+        analysis.setSuggestedFixYaml(Map.of("spec", Map.of("containers", List.of(
+                Map.of("name", "app", "resources", Map.of("limits", Map.of("memory", "1Gi")))))));
+
+        assertThat(FailureCorrelator.fits(analysis, leaderImages, pod("web-2", "worker-1", "app"))).isTrue();
+        assertThat(FailureCorrelator.fits(analysis, leaderImages, pod("api-1", "worker-1", "server"))).isFalse();
+    }
+
+    @Test
+    void differentWorkloadsSharingAContainerNameDoNotShareFixes() {
+        CompletableFuture<AnalysisResponse> call = new CompletableFuture<>();
+        FailureCorrelator.Correlation correlation = new FailureCorrelator.Correlation(
+                "node=worker-1|CrashLoopBackOff", 3, List.of());
+        correlator.analyze(correlation, pod("web-1", "worker-1", "app", "registry.local/web:1"), () -> call);
+        FailureCorrelator.GroupAnalysis other = correlator.analyze(correlation,
+                pod("billing-1", "worker-1", "app", "registry.local/billing:7"), CompletableFuture::new);
+
+        AnalysisResponse analysis = new AnalysisResponse();
+        analysis.setSuggestedFixYaml(Map.of("spec", Map.of("containers", List.of(
+                Map.of("name", "app", "image", "registry.local/web:2")))));
+
+        assertThat(other.leader()).isFalse();
+        assertThat(FailureCorrelator.fits(analysis, other.leaderImages(),
+                pod("billing-1", "worker-1", "app", "registry.local/billing:7"))).isFalse();
+    }
+
+    @Test
+    void fixWithoutContainersIsNotShared() {
+        Map<String, String> leaderImages = Map.of("app", "registry.local/app:1");
+        AnalysisResponse podLevel = new AnalysisResponse();
+        podLevel.setSuggestedFixYaml(Map.of("spec", Map.of("nodeSelector", Map.of("pool", "large"))));
+
+        assertThat(FailureCorrelator.fits(podLevel, leaderImages, pod("web-2", "worker-1", "app"))).isFalse();
+        assertThat(FailureCorrelator.fits(new AnalysisResponse(), leaderImages, pod("web-2", "worker-1", "app")))
+                .isFalse();
+        assertThat(FailureCorrelator.fits(null, leaderImages, pod("web-2", "worker-1", "app"))).isFalse();
+    }
+
+    private static Pod pod(String name, String node, String container) {
+        return pod(name, node, container, "registry.local/app:1");
+    }
+
+    private static Pod pod(String name, String node, String container, String image) {
+        return new PodBuilder()
+                .withNewMetadata().withNamespace("shop").withName(name).endMetadata()
+                .withNewSpec()
+                .withNodeName(node)
+                .addNewContainer().withName(container).withImage(image).endContainer()
+                .endSpec()
+                .withNewStatus()
+                .addNewContainerStatus().withName(container)
+                .withImageID("docker-pullable://registry.local/app@sha256:0123").endContainerStatus()
+                .endStatus()
+                .build();
+    }
+}
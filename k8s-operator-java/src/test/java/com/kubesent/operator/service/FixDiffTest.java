@@ -0,0 +1,78 @@
+package com.kubesent.operator.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kubesent.operator.support.PodFixtures;
+import io.fabric8.kubernetes.api.model.Pod;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the effective change of suggested fixes against a live pod.
+ */
+class FixDiffTest {
+
+    private final Map<String, Object> live = new ObjectMapper().convertValue(PodFixtures.load("oomkilled"), Map.class);
+    private final String container = PodFixtures.load("oomkilled").getSpec().getContainers().get(0).getName();
+
+    @Test
+    void fixAlreadyInPlaceChangesNothing() {
+        Pod pod = PodFixtures.load("oomkilled");
+        String memory = pod.getSpec().getContainers().get(0).getResources().getLimits().get("memory").toString();
+
+        assertThat(FixDiff.change(memoryFix(memory), live)).isNull();
+    }
+
+    @Test
+    void quantitiesAreComparedByValue() {
+        // The fixture's limit is 512Mi
+        assertThat(FixDiff.change(memoryFix("0.5Gi"), live)).isNull();
+        assertThat(FixDiff.change(memoryFix("536870912"), live)).isNull();
+        assertThat(FixDiff.change(memoryFix("1Gi"), live)).isNotNull();
+    }
+
+    @Test
+    void keepsOnlyChangedFieldsAndContainerNames() {
+        Map<String, Object> fix = Map.of("spec", Map.of("containers", List.of(
+                Map.of("name", container,
+                        "image", PodFixtures.load("oomkilled").getSpec().getContainers().get(0).getImage(),
+                        "resources", Map.of("limits", Map.of("memory", "1Gi", "cpu", "4"))),
+                Map.of("name", "sidecar", "image", "busybox"))));
+
+        assertThat(FixDiff.change(fix, live)).isEqualTo(Map.of("spec", Map.of("containers", List.of(
+                Map.of("name", container, "resources", Map.of("limits", Map.of("memory", "1Gi", "cpu", "4"))),
+                Map.of("name", "sidecar", "image", "busybox")))));
+    }
+
+    @Test
+    void ownedFieldsAreReadFromTheManagedFieldSet() {
+        Map<String, Object> fields = Map.of("f:spec", Map.of("f:containers", Map.of(
+                "k:{\"name\":\"" + container + "\"}", Map.of(
+                        ".", Map.of(),
+                        "f:resources", Map.of("f:limits", Map.of("f:memory", Map.of())))))));
+
+        assertThat(FixDiff.owned(fields, live)).isEqualTo(Map.of("spec", Map.of("containers", List.of(
+                Map.of("name", container, "resources", Map.of("limits", Map.of("memory", "512Mi")))))));
+    }
+
+    @Test
+    void laterChangeKeepsEarlierFixes() {
+        Map<String, Object> earlier = Map.of("spec", Map.of("containers", List.of(
+                Map.of("name", container, "resources", Map.of("limits", Map.of("memory", "1Gi"))))));
+        Map<String, Object> change = Map.of("spec", Map.of("containers", List.of(
+                Map.of("name", container, "resources", Map.of("limits", Map.of("cpu", "2"))),
+                Map.of("name", "sidecar", "image", "busybox"))));
+
+        assertThat(FixDiff.merge(earlier, change)).isEqualTo(Map.of("spec", Map.of("containers", List.of(
+                Map.of("name", container, "resources", Map.of("limits", Map.of("memory", "1Gi", "cpu", "2"))),
+                Map.of("name", "sidecar", "image", "busybox")))));
+    }
+
+    private Map<String, Object> memoryFix(String memory) {
+        return Map.of("spec", Map.of("containers", List.of(
+                Map.of("name", container, "resources", Map.of("limits", Map.of("memory", memory))))));
+    }
+}
@@ -0,0 +1,103 @@
+package com.kubesent.operator.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Feeds log lines through the folder and the line splitter.
+ */
+class LogFolderTest {
+
+    @Test
+    void foldsLinesThatOnlyDifferInDigits() {
+        LogFolder folder = new LogFolder(4096);
+        folder.accept("starting");
+        folder.accept("retry 1 of 5 failed");
+        folder.accept("retry 2 of 5 failed");
+        folder.accept("retry 3 of 5 failed");
+        folder.accept("giving up");
+
+        assertThat(folder.finish()).isEqualTo("""
+                starting
+                retry 1 of 5 failed
+                    [previous line repeated 2 times]
+                giving up
+                """);
+    }
+
+    @Test
+    void omitsFramesOfARepeatedStackTrace() {
+        LogFolder folder = new LogFolder(4096);
+        for (int i = 0; i < 2; i++) {
+            folder.accept("java.lang.IllegalStateException: boom");
+            folder.accept("\tat com.shop.Cart.add(Cart.java:42)");
+            folder.accept("\tat com.shop.Api.post(Api.java:17)");
+        }
+
+        assertThat(folder.finish()).isEqualTo("""
+                java.lang.IllegalStateException: boom
+                \tat com.shop.Cart.add(Cart.java:42)
+                \tat com.shop.Api.post(Api.java:17)
+                java.lang.IllegalStateException: boom
+                \t... 2 repeated frames omitted
+                """);
+    }
+
+    @Test
+    void keepsTheTailWithinBudget() {
+        LogFolder folder = new LogFolder(20);
+        folder.accept("first line");
+        folder.accept("second line");
+        folder.accept("third");
+
+        assertThat(folder.retainedBytes()).isLessThanOrEqualTo(20);
+        assertThat(folder.finish()).isEqualTo("""
+                [... 1 earlier lines dropped to fit log budget]
+                second line
+                third
+                """);
+    }
+
+    @Test
+    void cutsALineLargerThanTheBudget() {
+        LogFolder folder = new LogFolder(8);
+        folder.accept("short");
+        folder.accept("ééééééééé");
+
+        assertThat(folder.finish()).endsWith("ééé\n");
+        assertThat(folder.retainedBytes()).isLessThanOrEqualTo(8);
+    }
+
+    @Test
+    void splitsLinesAndCapsLongOnes() throws IOException {
+        LogFolder folder = new LogFolder(4096);
+        byte[] log = "one\r\ntwo\n0123456789abcdef\nlast".getBytes(StandardCharsets.UTF_8);
+
+        PodLogExtractor.readLines(new ByteArrayInputStream(log), folder, 10);
+
+        assertThat(folder.finish()).isEqualTo("""
+                one
+                two
+                0123456789 [... 6 bytes truncated]
+                last
+                """);
+    }
+
+    @Test
+    void capsLongLinesOnACharacterBoundary() throws IOException {
+        LogFolder folder = new LogFolder(4096);
+        // Each é is two bytes, so a 5 byte cap falls inside the third one
+        byte[] log = "ééééé\n".getBytes(StandardCharsets.UTF_8);
+
+        PodLogExtractor.readLines(new ByteArrayInputStream(log), folder, 5);
+
+        String marker = " [... 6 bytes truncated]";
+        assertThat(folder.finish()).isEqualTo("éé" + marker + "\n");
+        assertThat(folder.retainedBytes()).isEqualTo(4 + marker.length() + 1);
+    }
+}
@@ -0,0 +1,84 @@
+package com.kubesent.operator.service;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.kubesent.operator.config.ApiRateLimiter;
+import com.kubesent.operator.queue.RateLimitingWorkQueue;
+import com.kubesent.operator.support.PodFixtures;
+import com.kubesent.operator.support.ValueDefaults;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.client.Watcher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of handling one pod event: classification alone, and the full
+ * {@link PodWatcherService#eventReceived} path including the work queue.
+ * Repeated failing events for the same pod hit the queue's de-duplication.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PodEventBenchmark {
+
+    @Param({"healthy", "oomkilled", "imagepull"})
+    public String fixture;
+
+    private Pod pod;
+    private FailureClassifier classifier;
+    private PodWatcherService watcher;
+    private RateLimitingWorkQueue<?> queue;
+
+    @Setup
+    public void setUp() {
+        // Measure the handling, not console output
+        ((Logger) LoggerFactory.getLogger("com.kubesent")).setLevel(Level.ERROR);
+
+        pod = PodFixtures.load(fixture);
+        classifier = ValueDefaults.apply(new FailureClassifier());
+        classifier.init();
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        CoordinationService coordination = ValueDefaults.apply(
+                new CoordinationService(null, registry, ApiRateLimiter.unlimited()));
+        FailureCorrelator correlator = ValueDefaults.apply(new FailureCorrelator(registry));
+        watcher = new PodWatcherService(null, classifier, null, coordination, correlator, registry,
+                ApiRateLimiter.unlimited());
+        watcher.initMetrics();
+        queue = new RateLimitingWorkQueue<>("benchmark", registry, 1000, 300000);
+        ReflectionTestUtils.setField(watcher, "workQueue", queue);
+    }
+
+    @TearDown
+    public void tearDown() {
+        queue.shutdown();
+    }
+
+    @Benchmark
+    public Object classify() {
+        return classifier.classify(pod);
+    }
+
+    @Benchmark
+    public void eventReceived() {
+        watcher.eventReceived(Watcher.Action.MODIFIED, pod);
+    }
+}
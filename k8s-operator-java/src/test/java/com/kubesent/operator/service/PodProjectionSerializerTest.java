@@ -0,0 +1,61 @@
+package com.kubesent.operator.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.kubesent.operator.config.GzipRequestInterceptor;
+import com.kubesent.operator.support.PodFixtures;
+import io.fabric8.kubernetes.api.model.Pod;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the diagnosis projection with the full pod dump it replaces.
+ */
+class PodProjectionSerializerTest {
+
+    private final PodProjectionSerializer serializer = new PodProjectionSerializer();
+    private final ObjectMapper fullMapper = new ObjectMapper(new YAMLFactory());
+    private final Pod pod = PodFixtures.load("oomkilled");
+
+    @Test
+    void keepsDiagnosticFields() throws Exception {
+        String yaml = serializer.toYaml(pod);
+
+        assertThat(yaml)
+                .contains("name: payments-api-7d9f8b6c5d-x2kqp")
+                .contains("kind: ReplicaSet")
+                .contains("image: registry.example.com/payments-api:4.12.3")
+                .contains("memory: 512Mi")
+                .contains("/actuator/health/liveness")
+                .contains("- JAVA_OPTS")
+                .contains("configMap/payments-config")
+                .contains("reason: OOMKilled")
+                .contains("exitCode: 137")
+                .contains("reason: CrashLoopBackOff")
+                .contains("type: Ready");
+    }
+
+    @Test
+    void dropsNoise() throws Exception {
+        String yaml = serializer.toYaml(pod);
+
+        assertThat(yaml)
+                .doesNotContain("managedFields")
+                .doesNotContain("last-applied-configuration")
+                .doesNotContain("-Xms256m")
+                .doesNotContain("tolerations")
+                .doesNotContain("imageID");
+    }
+
+    @Test
+    void isMuchSmallerThanFullDump() throws Exception {
+        byte[] full = fullMapper.writeValueAsString(pod).getBytes(StandardCharsets.UTF_8);
+        byte[] projection = serializer.toYaml(pod).getBytes(StandardCharsets.UTF_8);
+
+        assertThat(projection.length).isLessThan(full.length / 3);
+        assertThat(GzipRequestInterceptor.compress(projection).length).isLessThan(projection.length);
+    }
+}
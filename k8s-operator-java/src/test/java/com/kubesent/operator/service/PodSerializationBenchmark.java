@@ -0,0 +1,54 @@
+package com.kubesent.operator.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.kubesent.operator.support.PodFixtures;
+import io.fabric8.kubernetes.api.model.Pod;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pod YAML for the analysis request: full object dump vs the diagnosis
+ * projection.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PodSerializationBenchmark {
+
+    @Param({"healthy", "oomkilled"})
+    public String fixture;
+
+    private Pod pod;
+    private final ObjectMapper yamlMapper = new ObjectMapper(new YAMLFactory());
+    private final PodProjectionSerializer projectionSerializer = new PodProjectionSerializer();
+
+    @Setup
+    public void setUp() {
+        pod = PodFixtures.load(fixture);
+    }
+
+    @Benchmark
+    public String fullYaml() throws Exception {
+        return yamlMapper.writeValueAsString(pod);
+    }
+
+    @Benchmark
+    public String projectionYaml() throws Exception {
+        return projectionSerializer.toYaml(pod);
+    }
+}
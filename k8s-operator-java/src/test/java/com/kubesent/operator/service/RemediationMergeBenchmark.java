@@ -0,0 +1,59 @@
+package com.kubesent.operator.service;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.kubesent.operator.config.ApiRateLimiter;
+import com.kubesent.operator.support.PodFixtures;
+import io.fabric8.kubernetes.api.model.Pod;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client-side merge of a suggested fix into the pod spec, as done by
+ * {@link RemediationService} before a force replace.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RemediationMergeBenchmark {
+
+    private Pod pod;
+    private Map<String, Object> fix;
+    private RemediationService remediationService;
+
+    @Setup
+    public void setUp() {
+        ((Logger) LoggerFactory.getLogger("com.kubesent")).setLevel(Level.ERROR);
+
+        pod = PodFixtures.load("oomkilled");
+        fix = Map.of("spec", Map.of("containers", List.of(Map.of(
+                "name", "api",
+                "resources", Map.of(
+                        "limits", Map.of("cpu", "1", "memory", "1Gi"),
+                        "requests", Map.of("cpu", "250m", "memory", "1Gi"))))));
+        remediationService = new RemediationService(null, null, ApiRateLimiter.unlimited());
+    }
+
+    @Benchmark
+    public Pod merge() {
+        // The merge only sets fields, so applying it again to the same pod is representative
+        remediationService.mergeSuggestedFix(pod, fix);
+        return pod;
+    }
+}
@@ -0,0 +1,34 @@
+package com.kubesent.operator.support;
+
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.client.utils.Serialization;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Loads pod manifests captured from a cluster ({@code kubectl get pod -o yaml})
+ * from {@code src/test/resources/pods}.
+ */
+public final class PodFixtures {
+
+    private PodFixtures() {
+    }
+
+    /**
+     * @param name Fixture name without extension, e.g. "oomkilled"
+     * @return A fresh copy of the pod
+     */
+    public static Pod load(String name) {
+        String path = "/pods/" + name + ".yaml";
+        try (InputStream in = PodFixtures.class.getResourceAsStream(path)) {
+            if (in == null) {
+                throw new IllegalArgumentException("No pod fixture " + path);
+            }
+            return Serialization.unmarshal(in, Pod.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
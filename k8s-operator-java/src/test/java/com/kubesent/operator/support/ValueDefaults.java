@@ -0,0 +1,46 @@
+package com.kubesent.operator.support;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.convert.support.DefaultConversionService;
+
+import java.lang.reflect.Field;
+
+/**
+ * Populates {@code @Value("${key:default}")} fields of a bean with their
+ * defaults, so services can be used outside a Spring context.
+ */
+public final class ValueDefaults {
+
+    private static final DefaultConversionService CONVERSION = new DefaultConversionService();
+
+    private ValueDefaults() {
+    }
+
+    /**
+     * @param bean Bean whose {@code @Value} fields should get their defaults
+     * @return The same bean
+     */
+    public static <T> T apply(T bean) {
+        for (Class<?> type = bean.getClass(); type != Object.class; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                Value value = field.getAnnotation(Value.class);
+                if (value == null) {
+                    continue;
+                }
+                String expression = value.value();
+                int colon = expression.indexOf(':');
+                if (!expression.startsWith("${") || colon < 0) {
+                    throw new IllegalArgumentException("No default in @Value of " + field);
+                }
+                String defaultValue = expression.substring(colon + 1, expression.length() - 1);
+                try {
+                    field.setAccessible(true);
+                    field.set(bean, CONVERSION.convert(defaultValue, field.getType()));
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+        return bean;
+    }
+}